@@ -0,0 +1,131 @@
+package cz.mendelu.pef.airline_reservation_system;
+
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.Aircraft;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftService;
+import cz.mendelu.pef.airline_reservation_system.domain.airport.Airport;
+import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariff;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightService;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.SeatReservations;
+import cz.mendelu.pef.airline_reservation_system.domain.ticket.Ticket;
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Builds benchmark entities from the CSV data in `db_data`, so benchmarks need no database.
+ */
+public final class BenchmarkData {
+
+    private static final Path DATA_DIR = Path.of(System.getProperty("benchmark.dataDir", "db_data"));
+
+    private BenchmarkData() {
+    }
+
+    public static List<Aircraft> loadAircrafts() {
+        return readCsv("aircraft.csv")
+                .map(columns -> {
+                    Aircraft aircraft = new Aircraft();
+                    aircraft.setId(Long.parseLong(columns[0]));
+                    aircraft.setCode(columns[1]);
+                    aircraft.setModel(columns[2]);
+                    aircraft.setBusinessCapacity(Integer.parseInt(columns[3]));
+                    aircraft.setPremiumCapacity(Integer.parseInt(columns[4]));
+                    aircraft.setEconomyCapacity(Integer.parseInt(columns[5]));
+
+                    return aircraft;
+                })
+                .toList();
+    }
+
+    public static Aircraft loadAircraft(long id) {
+        return loadAircrafts()
+                .stream()
+                .filter(a -> a.getId() == id)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No aircraft with id " + id));
+    }
+
+    public static List<Airport> loadAirports() {
+        // Quoted names may contain commas, but id, code and location are never quoted
+        return readCsv("airport.csv")
+                .map(columns -> {
+                    Airport airport = new Airport();
+                    airport.setId(Long.parseLong(columns[0]));
+                    airport.setCode(columns[1]);
+                    airport.setLatitude(Double.parseDouble(columns[columns.length - 2]));
+                    airport.setLongitude(Double.parseDouble(columns[columns.length - 1]));
+
+                    return airport;
+                })
+                .toList();
+    }
+
+    /**
+     * Creates a flight with every cabin filled from its first seat up to the fill level (0.0 - 1.0).
+     */
+    public static Flight createFlight(long id, Aircraft aircraft, double fillLevel, Airport departure, Airport arrival) {
+        FareTariff fareTariff = new FareTariff();
+        fareTariff.setBusinessPrice(5513.0);
+        fareTariff.setPremiumPrice(1326.0);
+        fareTariff.setEconomyPrice(924.0);
+
+        Flight flight = new Flight();
+        flight.setId(id);
+        flight.setNumber("BM" + id);
+        flight.setDeparture(OffsetDateTime.parse("2017-07-16T09:35:00Z"));
+        flight.setArrival(OffsetDateTime.parse("2017-07-16T12:35:00Z"));
+        flight.setStatus(id % 10 == 0 ? "Delayed" : "Scheduled");
+        flight.setAircraft(aircraft);
+        flight.setAirportDeparture(departure);
+        flight.setAirportArrival(arrival);
+        flight.setFareTariff(fareTariff);
+
+        var allSeats = new FlightService(null, new AircraftService(null), new SeatReservations()).getAllSeats(flight);
+        long ticketId = id * 1000;
+
+        for (TicketClass ticketClass : TicketClass.values()) {
+            List<String> seats = allSeats.get(ticketClass.name());
+            int soldSeats = (int) Math.floor(seats.size() * fillLevel);
+
+            for (int i = 0; i < soldSeats; i++) {
+                Ticket ticket = new Ticket();
+                ticket.setId(ticketId++);
+                ticket.setTicketClass(ticketClass);
+                ticket.setSeatNumber(seats.get(i));
+                ticket.setPrice(fareTariff.getPriceByTicketClass(ticketClass));
+                ticket.setDiscount(0.0);
+                ticket.setPriceAfterDiscount(ticket.getPrice());
+                ticket.setFlight(flight);
+
+                flight.getTickets().add(ticket);
+            }
+        }
+
+        return flight;
+    }
+
+    private static Stream<String[]> readCsv(String fileName) {
+        try {
+            List<String[]> rows = new ArrayList<>();
+
+            // Skip the header
+            Files.readAllLines(DATA_DIR.resolve(fileName))
+                    .stream()
+                    .skip(1)
+                    .filter(line -> !line.isBlank())
+                    .forEach(line -> rows.add(line.split(",", -1)));
+
+            return rows.stream();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read benchmark data " + fileName, e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package cz.mendelu.pef.airline_reservation_system.domain.aircraft;
+
+import cz.mendelu.pef.airline_reservation_system.BenchmarkData;
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AircraftServiceBenchmark {
+
+    @Param({"92", "24", "31"})
+    long aircraftId;
+
+    private AircraftService aircraftService;
+
+    private Aircraft aircraft;
+
+    @Setup
+    public void setUp() {
+        aircraftService = new AircraftService(null);
+        aircraft = BenchmarkData.loadAircraft(aircraftId);
+    }
+
+    @Benchmark
+    public void getStartAndEndSeatRowNumbers(Blackhole blackhole) {
+        for (TicketClass ticketClass : TicketClass.values()) {
+            blackhole.consume(aircraftService.getStartAndEndSeatRowNumbers(aircraft, ticketClass, 6));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package cz.mendelu.pef.airline_reservation_system.domain.aircraft;
+
+import cz.mendelu.pef.airline_reservation_system.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting all seat numbers of the largest aircraft of `aircraft.csv` to seat positions and back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SeatCodecBenchmark {
+
+    private int seats;
+
+    private String[] seatNumbers;
+
+    @Setup
+    public void setUp() {
+        seats = CabinLayout.of(BenchmarkData.loadAircraft(31L)).getSeatPositionCount();
+        seatNumbers = new String[seats];
+
+        for (int seatPosition = 0; seatPosition < seats; seatPosition++) {
+            // Not the cached instances, as seat numbers come from requests and the database
+            seatNumbers[seatPosition] = new String(SeatCodec.decode(seatPosition));
+        }
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) {
+        for (String seatNumber : seatNumbers) {
+            blackhole.consume(SeatCodec.encode(seatNumber));
+        }
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        for (int seatPosition = 0; seatPosition < seats; seatPosition++) {
+            blackhole.consume(SeatCodec.decode(seatPosition));
+        }
+    }
+
+    @Benchmark
+    public void normalize(Blackhole blackhole) {
+        for (String seatNumber : seatNumbers) {
+            blackhole.consume(SeatCodec.normalize(seatNumber));
+        }
+    }
+}
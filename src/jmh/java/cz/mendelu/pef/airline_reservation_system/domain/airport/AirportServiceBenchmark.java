@@ -0,0 +1,112 @@
+package cz.mendelu.pef.airline_reservation_system.domain.airport;
+
+import cz.mendelu.pef.airline_reservation_system.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distances of random routes between the airports of `airport.csv`, with and without the distance cache,
+ * and nearest-airport queries of the airport catalogue compared with scanning all airports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AirportServiceBenchmark {
+
+    private static final int ROUTES = 1024;
+
+    private AirportService airportService;
+
+    private Airport[] origins;
+
+    private Airport[] destinations;
+
+    private int route = 0;
+
+    private List<AirportLocation> locations;
+
+    private AirportCatalogue catalogue;
+
+    @Setup
+    public void setUp() {
+        List<Airport> airports = BenchmarkData.loadAirports();
+        Random random = new Random(42);
+
+        airportService = new AirportService(null);
+        origins = new Airport[ROUTES];
+        destinations = new Airport[ROUTES];
+
+        for (int i = 0; i < ROUTES; i++) {
+            origins[i] = airports.get(random.nextInt(airports.size()));
+            destinations[i] = airports.get(random.nextInt(airports.size()));
+        }
+
+        locations = airports
+                .stream()
+                .map(airport -> new AirportLocation(
+                        airport.getId(),
+                        airport.getCode(),
+                        null,
+                        null,
+                        airport.getLatitude(),
+                        airport.getLongitude()
+                ))
+                .toList();
+        catalogue = new AirportCatalogue(locations);
+    }
+
+    @Benchmark
+    public double calculateDistanceBetweenAirports() {
+        int i = route++ & (ROUTES - 1);
+
+        return airportService.calculateDistanceBetweenAirports(origins[i], destinations[i]);
+    }
+
+    @Benchmark
+    public double calculateDistance() {
+        int i = route++ & (ROUTES - 1);
+
+        return airportService.calculateDistance(
+                origins[i].getLatitude(),
+                origins[i].getLongitude(),
+                destinations[i].getLatitude(),
+                destinations[i].getLongitude()
+        );
+    }
+
+    @Benchmark
+    public List<NearbyAirport> getNearestAirports() {
+        int i = route++ & (ROUTES - 1);
+
+        return catalogue.getNearestAirports(catalogue.getAirport(origins[i].getId()).orElseThrow(), 10);
+    }
+
+    @Benchmark
+    public List<NearbyAirport> getAirportsWithinRadius() {
+        int i = route++ & (ROUTES - 1);
+
+        return catalogue.getAirportsWithinRadius(origins[i].getLatitude(), origins[i].getLongitude(), 300, 100);
+    }
+
+    @Benchmark
+    public List<AirportLocation> getNearestAirportsByScan() {
+        int i = route++ & (ROUTES - 1);
+        Airport origin = origins[i];
+
+        return locations
+                .stream()
+                .filter(airport -> !airport.id().equals(origin.getId()))
+                .sorted(Comparator.comparingDouble(airport -> airportService.calculateDistance(
+                        origin.getLatitude(),
+                        origin.getLongitude(),
+                        airport.latitude(),
+                        airport.longitude()
+                )))
+                .limit(10)
+                .toList();
+    }
+}
@@ -0,0 +1,133 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import cz.mendelu.pef.airline_reservation_system.BenchmarkData;
+import cz.mendelu.pef.airline_reservation_system.domain.airport.Airport;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Itinerary search over a generated year of flights between the airports of `airport.csv`,
+ * half of the flights departing from or arriving at one of ten hubs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlightRouteGraphBenchmark {
+
+    private static final int SEARCHES = 1024;
+
+    private static final int HUBS = 10;
+
+    private static final Instant FIRST_DAY = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Param({"10000", "300000"})
+    int flightCount;
+
+    @Param({"0", "2"})
+    int maxStops;
+
+    private FlightRouteGraph flightRouteGraph;
+
+    private String[] hubCodes;
+
+    private String[] departureCodes;
+
+    private String[] arrivalCodes;
+
+    private Instant[] days;
+
+    private int search = 0;
+
+    @Setup
+    public void setUp() {
+        List<String> codes = BenchmarkData.loadAirports().stream().map(Airport::getCode).toList();
+        Random random = new Random(42);
+        List<FlightRouteEntry> flights = new ArrayList<>(flightCount);
+
+        for (long id = 1; flights.size() < flightCount; id++) {
+            int departure = random.nextInt(codes.size());
+            int arrival = random.nextInt(codes.size());
+
+            if (random.nextBoolean()) {
+                if (random.nextBoolean()) {
+                    departure = random.nextInt(HUBS);
+                } else {
+                    arrival = random.nextInt(HUBS);
+                }
+            }
+
+            if (departure == arrival) {
+                continue;
+            }
+
+            Instant departureTime = FIRST_DAY.plusSeconds(random.nextInt(365 * 24 * 60) * 60L);
+            Instant arrivalTime = departureTime.plus(Duration.ofMinutes(60 + random.nextInt(11 * 60)));
+
+            flights.add(new FlightRouteEntry(id, "BM" + id, codes.get(departure), codes.get(arrival), departureTime, arrivalTime));
+        }
+
+        // Graph reads only its entries from the repository
+        FlightRepository flightRepository = (FlightRepository) Proxy.newProxyInstance(
+                FlightRepository.class.getClassLoader(),
+                new Class<?>[]{FlightRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getAllFlightRouteEntries")) {
+                        return flights;
+                    }
+
+                    throw new UnsupportedOperationException(method.getName());
+                }
+        );
+
+        flightRouteGraph = new FlightRouteGraph(flightRepository);
+        hubCodes = codes.subList(0, HUBS).toArray(new String[0]);
+        departureCodes = new String[SEARCHES];
+        arrivalCodes = new String[SEARCHES];
+        days = new Instant[SEARCHES];
+
+        for (int i = 0; i < SEARCHES; i++) {
+            departureCodes[i] = codes.get(random.nextInt(codes.size()));
+            arrivalCodes[i] = codes.get(random.nextInt(codes.size()));
+            days[i] = FIRST_DAY.plus(Duration.ofDays(random.nextInt(365)));
+        }
+
+        // Loads the graph, so the load is not measured
+        flightRouteGraph.findItineraries(departureCodes[0], arrivalCodes[0], days[0], days[0], maxStops, 1);
+    }
+
+    @Benchmark
+    public List<List<FlightRouteEntry>> findItineraries() {
+        int i = search++ & (SEARCHES - 1);
+
+        return flightRouteGraph.findItineraries(
+                departureCodes[i],
+                arrivalCodes[i],
+                days[i],
+                days[i].plus(Duration.ofDays(1)),
+                maxStops,
+                FlightSearchService.MAX_ITINERARIES
+        );
+    }
+
+    @Benchmark
+    public List<List<FlightRouteEntry>> findHubItineraries() {
+        int i = search++ & (SEARCHES - 1);
+
+        // Hubs have the most connections to enumerate
+        return flightRouteGraph.findItineraries(
+                hubCodes[i % HUBS],
+                hubCodes[(i + 1) % HUBS],
+                days[i],
+                days[i].plus(Duration.ofDays(1)),
+                maxStops,
+                FlightSearchService.MAX_ITINERARIES
+        );
+    }
+}
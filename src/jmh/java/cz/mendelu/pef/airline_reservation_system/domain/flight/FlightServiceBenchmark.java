@@ -0,0 +1,69 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import cz.mendelu.pef.airline_reservation_system.BenchmarkData;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftService;
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seat map operations of the booking path over the smallest, a median and the largest aircraft of `aircraft.csv`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlightServiceBenchmark {
+
+    @Param({"92", "24", "31"})
+    long aircraftId;
+
+    @Param({"0.0", "0.5", "0.95"})
+    double fillLevel;
+
+    private FlightService flightService;
+
+    private Flight flight;
+
+    private String lastEconomySeatNumber;
+
+    @Setup
+    public void setUp() {
+        var airports = BenchmarkData.loadAirports();
+
+        flightService = new FlightService(null, new AircraftService(null), new SeatReservations());
+        flight = BenchmarkData.createFlight(
+                1L,
+                BenchmarkData.loadAircraft(aircraftId),
+                fillLevel,
+                airports.get(0),
+                airports.get(1)
+        );
+
+        List<String> economySeats = flightService.getAllSeats(flight).get(TicketClass.Economy.name());
+        lastEconomySeatNumber = economySeats.get(economySeats.size() - 1);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> getAllSeats() {
+        return flightService.getAllSeats(flight);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> getAvailableSeats() {
+        return flightService.getAvailableSeats(flight);
+    }
+
+    @Benchmark
+    public Optional<String> issueSeatNumber() {
+        return flightService.issueSeatNumber(flight, TicketClass.Economy);
+    }
+
+    @Benchmark
+    public boolean isSeatNumberValid() {
+        return flightService.isSeatNumberValid(flight, TicketClass.Economy, lastEconomySeatNumber);
+    }
+}
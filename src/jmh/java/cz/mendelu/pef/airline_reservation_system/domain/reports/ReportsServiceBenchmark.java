@@ -0,0 +1,94 @@
+package cz.mendelu.pef.airline_reservation_system.domain.reports;
+
+import cz.mendelu.pef.airline_reservation_system.BenchmarkData;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.Aircraft;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftService;
+import cz.mendelu.pef.airline_reservation_system.domain.airport.Airport;
+import cz.mendelu.pef.airline_reservation_system.domain.airport.AirportService;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightService;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.SeatReservations;
+import cz.mendelu.pef.airline_reservation_system.domain.ticket.Ticket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory report aggregations over flights using the aircrafts and airports of `db_data`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReportsServiceBenchmark {
+
+    @Param({"100", "1000"})
+    int flightCount;
+
+    @Param({"0.5", "0.95"})
+    double fillLevel;
+
+    private ReportsService reportsService;
+
+    private List<Flight> flights;
+
+    private List<Ticket> tickets;
+
+    @Setup
+    public void setUp() {
+        List<Aircraft> aircrafts = BenchmarkData.loadAircrafts();
+        List<Airport> airports = BenchmarkData.loadAirports();
+
+        reportsService = new ReportsService(
+                null,
+                new FlightService(null, new AircraftService(null), new SeatReservations()),
+                new AirportService(null),
+                null
+        );
+        flights = new ArrayList<>(flightCount);
+
+        for (int i = 0; i < flightCount; i++) {
+            flights.add(BenchmarkData.createFlight(
+                    i + 1,
+                    aircrafts.get(i % aircrafts.size()),
+                    fillLevel,
+                    airports.get((2 * i) % airports.size()),
+                    airports.get((2 * i + 1) % airports.size())
+            ));
+        }
+
+        tickets = flights
+                .stream()
+                .map(Flight::getTickets)
+                .flatMap(Set::stream)
+                .toList();
+    }
+
+    @Benchmark
+    public double getTicketSales() {
+        return reportsService.getTicketSales(tickets);
+    }
+
+    @Benchmark
+    public Map<String, Long> getTicketClassDistribution() {
+        return reportsService.getTicketClassDistribution(tickets);
+    }
+
+    @Benchmark
+    public Map<String, Long> getCancelledAndDelayedFlights() {
+        return reportsService.getCancelledAndDelayedFlights(flights);
+    }
+
+    @Benchmark
+    public double calculatePassengerLoadFactor() {
+        return reportsService.calculatePassengerLoadFactor(flights);
+    }
+
+    @Benchmark
+    public double calculateRevenuePerPassenger() {
+        return reportsService.calculateRevenuePerPassenger(tickets);
+    }
+}
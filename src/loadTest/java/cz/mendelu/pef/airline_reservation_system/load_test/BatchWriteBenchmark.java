@@ -0,0 +1,159 @@
+package cz.mendelu.pef.airline_reservation_system.load_test;
+
+import cz.mendelu.pef.airline_reservation_system.domain.customer.Customer;
+import cz.mendelu.pef.airline_reservation_system.domain.customer.CustomerRepository;
+import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariff;
+import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariffRepository;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRepository;
+import cz.mendelu.pef.airline_reservation_system.domain.ticket.Ticket;
+import cz.mendelu.pef.airline_reservation_system.domain.ticket.TicketRepository;
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Compares JDBC round trips of bulk writes with and without Hibernate JDBC batching:
+ * creation of many tickets and reassignment of a fare tariff of many flights.
+ * <p>
+ * Every run is flushed and rolled back, so all runs write into the same data set. Run by `./gradlew batchWriteBenchmark`,
+ * options are passed as system properties:
+ * <ul>
+ *     <li>`batchWriteBenchmark.rows` - entities written by one run, 1000 by default</li>
+ *     <li>`batchWriteBenchmark.iterations` - measured runs of every workload, 5 by default</li>
+ *     <li>`loadTest.dataDir` - directory with the CSV files, `db_data` by default</li>
+ * </ul>
+ */
+public class BatchWriteBenchmark {
+
+    // Batch size 1 turns batching off, the other one is `hibernate.jdbc.batch_size` of `application.properties`
+    private static final int[] BATCH_SIZES = {1, 50};
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final Statistics statistics;
+
+    private final int rows;
+
+    public BatchWriteBenchmark(ConfigurableApplicationContext context, int rows) {
+        this.transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        this.entityManager = context.getBean(EntityManager.class);
+        this.statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        this.rows = rows;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = Integer.getInteger("batchWriteBenchmark.rows", 1000);
+        int iterations = Integer.getInteger("batchWriteBenchmark.iterations", 5);
+        Path dataDir = Path.of(System.getProperty("loadTest.dataDir", "db_data"));
+
+        try (
+                EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+                ConfigurableApplicationContext context = LoadTestApplication.startApplication(
+                        postgres,
+                        "--spring.jpa.properties.hibernate.generate_statistics=true"
+                )
+        ) {
+            new LoadTestDataLoader(context.getBean(DataSource.class), dataDir).load();
+
+            BatchWriteBenchmark benchmark = new BatchWriteBenchmark(context, rows);
+            Flight flight = context.getBean(FlightRepository.class).findAll(PageRequest.of(0, 1)).getContent().get(0);
+            Customer customer = context.getBean(CustomerRepository.class).findAll(PageRequest.of(0, 1)).getContent().get(0);
+            List<FareTariff> fareTariffs = context.getBean(FareTariffRepository.class).findAll(PageRequest.of(0, 2)).getContent();
+            TicketRepository ticketRepository = context.getBean(TicketRepository.class);
+            FlightRepository flightRepository = context.getBean(FlightRepository.class);
+
+            for (int batchSize : BATCH_SIZES) {
+                benchmark.run("Create tickets", batchSize, iterations, () -> {
+                    List<Ticket> tickets = new ArrayList<>(rows);
+
+                    for (int i = 0; i < rows; i++) {
+                        tickets.add(createTicket(i, flight, customer));
+                    }
+
+                    ticketRepository.saveAll(tickets);
+                });
+
+                // Alternates the tariffs, so every run really changes the flights
+                benchmark.run("Reassign fare tariff", batchSize, iterations, () -> {
+                    List<Flight> flights = flightRepository.findAll(PageRequest.of(0, rows)).getContent();
+                    FareTariff currentFareTariff = flights.get(0).getFareTariff();
+                    FareTariff fareTariff = currentFareTariff != null && fareTariffs.get(0).getId().equals(currentFareTariff.getId())
+                            ? fareTariffs.get(1)
+                            : fareTariffs.get(0);
+
+                    flights.forEach(fl -> fl.setFareTariff(fareTariff));
+                    flightRepository.saveAll(flights);
+                });
+            }
+        }
+    }
+
+    private void run(String name, int batchSize, int iterations, Runnable workload) {
+        Consumer<Boolean> execute = measured -> transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+            if (measured) {
+                statistics.clear();
+            }
+
+            workload.run();
+            entityManager.flush();
+            status.setRollbackOnly();
+        });
+
+        // Warm-up run, e.g. the first run of a workload fetches a new block of ids
+        execute.accept(false);
+
+        long statements = 0;
+        long duration = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            execute.accept(true);
+            duration += System.nanoTime() - start;
+            statements += statistics.getPrepareStatementCount();
+        }
+
+        System.out.printf(
+                "%-22s batch size %3d: %6d rows  %8.1f JDBC statements  %8.2f ms per run%n",
+                name,
+                batchSize,
+                rows,
+                (double) statements / iterations,
+                duration / 1e6 / iterations
+        );
+    }
+
+    private static Ticket createTicket(int index, Flight flight, Customer customer) {
+        Ticket ticket = new Ticket();
+        ticket.setNumber("%013d".formatted(index));
+        ticket.setTicketClass(TicketClass.Economy);
+        ticket.setPrice(100.0);
+        ticket.setDiscount(0.0);
+        ticket.setPriceAfterDiscount(100.0);
+        ticket.setPassengerFullName("Benchmark Passenger " + index);
+        ticket.setDeparture(flight.getDeparture());
+        ticket.setArrival(flight.getArrival());
+        ticket.setFlight(flight);
+        ticket.setCustomer(customer);
+
+        return ticket;
+    }
+}
@@ -0,0 +1,363 @@
+package cz.mendelu.pef.airline_reservation_system.load_test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import cz.mendelu.pef.airline_reservation_system.AirlineReservationSystemApplication;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftService;
+import cz.mendelu.pef.airline_reservation_system.domain.airport.AirportService;
+import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariffService;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRouteGraph;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.ScheduledFlightIndex;
+import cz.mendelu.pef.airline_reservation_system.domain.reports.ReportsStore;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Replays the JMeter plans of `performance_tests` in-process: starts the app against an embedded Postgres,
+ * loads `db_data` and writes p50/p99 latency and throughput of every endpoint into a JSON file.
+ * With more thread modes, every mode runs the scenarios against a freshly loaded database and the throughput
+ * and p99 latency of the modes are printed side by side.
+ * <p>
+ * Run by `./gradlew loadTest`, options are passed as system properties:
+ * <ul>
+ *     <li>`loadTest.scenarios` - comma separated scenarios to run, `Tickets,Flights,Reports` by default</li>
+ *     <li>`loadTest.warmupLoops` - loops of the read-only requests before measuring, 1 by default</li>
+ *     <li>`loadTest.threadModes` - comma separated threads handling the requests, `platform` (Tomcat worker pool)
+ *     by default, `virtual` runs the app with the `virtual-threads` profile as well and needs Java 21</li>
+ *     <li>`loadTest.dataDir` - directory with the CSV files, `db_data` by default</li>
+ *     <li>`loadTest.output` - result file, `build/reports/loadTest/results.json` by default</li>
+ * </ul>
+ */
+public class LoadTestApplication {
+
+    private final HttpClient httpClient = HttpClient
+            .newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String baseUrl;
+
+    public LoadTestApplication(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> scenarioNames = Arrays
+                .stream(System.getProperty("loadTest.scenarios", "Tickets,Flights,Reports").split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+        int warmupLoops = Integer.getInteger("loadTest.warmupLoops", 1);
+        List<ThreadMode> threadModes = Arrays
+                .stream(System.getProperty("loadTest.threadModes", "platform").split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(ThreadMode::of)
+                .toList();
+        Path dataDir = Path.of(System.getProperty("loadTest.dataDir", "db_data"));
+        Path output = Path.of(System.getProperty("loadTest.output", "build/reports/loadTest/results.json"));
+
+        for (String name : scenarioNames) {
+            if (!LoadTestScenario.SCENARIOS.containsKey(name)) {
+                throw new IllegalArgumentException(
+                        "Unknown scenario " + name + ", available: " + LoadTestScenario.SCENARIOS.keySet()
+                );
+            }
+        }
+
+        List<ScenarioResult> results = new ArrayList<>();
+
+        for (ThreadMode threadMode : threadModes) {
+            results.addAll(runScenarios(threadMode, scenarioNames, warmupLoops, dataDir));
+        }
+
+        if (threadModes.size() > 1) {
+            printComparison(results, threadModes);
+        }
+
+        writeResults(output, results);
+    }
+
+    /**
+     * Starts the app with its own database, so every thread mode starts from the same data set.
+     */
+    private static List<ScenarioResult> runScenarios(
+            ThreadMode threadMode,
+            List<String> scenarioNames,
+            int warmupLoops,
+            Path dataDir
+    ) throws Exception {
+        if (threadMode == ThreadMode.VIRTUAL && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on " + Runtime.version());
+        }
+
+        try (
+                EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+                ConfigurableApplicationContext context = startApplication(postgres, threadMode.args)
+        ) {
+            new LoadTestDataLoader(context.getBean(DataSource.class), dataDir).load();
+            context.getBean(ReportsStore.class).invalidate();
+            context.getBean(ScheduledFlightIndex.class).invalidate();
+            context.getBean(FlightRouteGraph.class).invalidate();
+            context.getBean(AircraftService.class).getAircraftCache().invalidate();
+            context.getBean(AirportService.class).invalidateAirportCatalogue();
+            context.getBean(FareTariffService.class).getFareTariffCache().invalidate();
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestApplication loadTest = new LoadTestApplication("http://localhost:" + port);
+            List<ScenarioResult> results = new ArrayList<>();
+
+            for (String name : scenarioNames) {
+                LoadTestScenario scenario = LoadTestScenario.SCENARIOS.get(name);
+
+                loadTest.warmUp(scenario, warmupLoops);
+                results.add(loadTest.run(scenario, threadMode));
+            }
+
+            return results;
+        }
+    }
+
+    static ConfigurableApplicationContext startApplication(EmbeddedPostgres postgres, String... extraArgs) {
+        // Command line arguments override `application.properties`, default properties would not
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.config.on-not-found=ignore",
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--server.port=0",
+                // Logs like prod, unless the extra arguments activate other profiles
+                "--spring.profiles.default=perf",
+                "--logging.level.root=warn"
+        ));
+        args.addAll(List.of(extraArgs));
+
+        return new SpringApplicationBuilder(AirlineReservationSystemApplication.class).run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Runs only the read-only requests, so the measured run starts from the loaded data set.
+     */
+    private void warmUp(LoadTestScenario scenario, int loops) throws Exception {
+        if (loops <= 0) {
+            return;
+        }
+
+        List<LoadTestRequest> requests = scenario
+                .requests()
+                .stream()
+                .filter(request -> request.method().equals("GET"))
+                .toList();
+
+        execute(new LoadTestScenario(scenario.name(), scenario.threads(), Duration.ZERO, loops, requests));
+    }
+
+    private ScenarioResult run(LoadTestScenario scenario, ThreadMode threadMode) throws Exception {
+        System.out.printf(
+                "Running %s on %s threads: %d threads, %d loops%n",
+                scenario.name(),
+                threadMode.label,
+                scenario.threads(),
+                scenario.loops()
+        );
+
+        long start = System.nanoTime();
+        LoadTestRecorder recorder = execute(scenario);
+        long duration = System.nanoTime() - start;
+
+        List<LoadTestRecorder.EndpointResult> endpoints = recorder.getResults(duration);
+        int samples = endpoints.stream().mapToInt(LoadTestRecorder.EndpointResult::samples).sum();
+
+        endpoints.forEach(endpoint -> System.out.printf(
+                "  %-35s %6d samples %4d errors  p50 %8.2f ms  p99 %8.2f ms  %8.1f req/s%n",
+                endpoint.name(),
+                endpoint.samples(),
+                endpoint.errors(),
+                endpoint.p50Ms(),
+                endpoint.p99Ms(),
+                endpoint.throughputPerSecond()
+        ));
+
+        return new ScenarioResult(
+                scenario.name(),
+                threadMode.label,
+                scenario.threads(),
+                scenario.loops(),
+                duration / 1e6,
+                samples,
+                samples / (duration / 1e9),
+                endpoints
+        );
+    }
+
+    /**
+     * Starts the threads evenly over the ramp-up period, like a JMeter thread group.
+     */
+    private LoadTestRecorder execute(LoadTestScenario scenario) throws Exception {
+        LoadTestRecorder recorder = new LoadTestRecorder(scenario.requests());
+        ExecutorService executor = Executors.newFixedThreadPool(scenario.threads());
+        long rampUpNanos = scenario.rampUp().toNanos();
+        long start = System.nanoTime();
+
+        try {
+            List<Future<?>> threads = new ArrayList<>();
+
+            for (int i = 0; i < scenario.threads(); i++) {
+                long startDelay = rampUpNanos * i / scenario.threads();
+
+                threads.add(executor.submit(() -> {
+                    TimeUnit.NANOSECONDS.sleep(start + startDelay - System.nanoTime());
+
+                    for (int loop = 0; loop < scenario.loops(); loop++) {
+                        for (LoadTestRequest request : scenario.requests()) {
+                            send(request, recorder);
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> thread : threads) {
+                thread.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return recorder;
+    }
+
+    private void send(LoadTestRequest request, LoadTestRecorder recorder) throws InterruptedException {
+        HttpRequest.Builder builder = HttpRequest
+                .newBuilder(URI.create(baseUrl + request.path()))
+                .timeout(Duration.ofSeconds(60));
+
+        if (request.body() != null) {
+            builder
+                    .header("Content-Type", "application/json")
+                    .method(request.method(), HttpRequest.BodyPublishers.ofString(request.body()));
+        } else {
+            builder.method(request.method(), HttpRequest.BodyPublishers.noBody());
+        }
+
+        long start = System.nanoTime();
+        boolean error;
+
+        try {
+            HttpResponse<Void> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+            error = response.statusCode() >= 400;
+        } catch (IOException e) {
+            error = true;
+        }
+
+        recorder.record(request, System.nanoTime() - start, error);
+    }
+
+    /**
+     * Prints throughput of every scenario and p99 latency of its endpoints in every thread mode.
+     */
+    private static void printComparison(List<ScenarioResult> results, List<ThreadMode> threadModes) {
+        System.out.println("Thread modes: " + threadModes.stream().map(threadMode -> threadMode.label).toList());
+
+        Map<String, List<ScenarioResult>> resultsByScenario = new LinkedHashMap<>();
+        results.forEach(result -> resultsByScenario.computeIfAbsent(result.name(), name -> new ArrayList<>()).add(result));
+
+        resultsByScenario.forEach((name, scenarioResults) -> {
+            System.out.printf("  %-35s %s req/s%n", name, format(scenarioResults, ScenarioResult::throughputPerSecond));
+
+            for (int i = 0; i < scenarioResults.get(0).endpoints().size(); i++) {
+                int endpoint = i;
+
+                System.out.printf(
+                        "    %-33s %s ms p99%n",
+                        scenarioResults.get(0).endpoints().get(endpoint).name(),
+                        format(scenarioResults, result -> result.endpoints().get(endpoint).p99Ms())
+                );
+            }
+        });
+    }
+
+    private static String format(List<ScenarioResult> results, ToDoubleFunction<ScenarioResult> value) {
+        return results
+                .stream()
+                .map(result -> String.format("%10.2f", value.applyAsDouble(result)))
+                .collect(Collectors.joining(" "));
+    }
+
+    private static void writeResults(Path output, List<ScenarioResult> scenarios) throws IOException {
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+
+        new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(output.toFile(), new LoadTestReport(OffsetDateTime.now().toString(), scenarios));
+
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    public record LoadTestReport(String finishedAt, List<ScenarioResult> scenarios) {
+    }
+
+    public record ScenarioResult(
+            String name,
+            String threadMode,
+            int threads,
+            int loops,
+            double durationMs,
+            int samples,
+            double throughputPerSecond,
+            List<LoadTestRecorder.EndpointResult> endpoints
+    ) {
+    }
+
+    private enum ThreadMode {
+
+        PLATFORM("platform"),
+        VIRTUAL("virtual", "--spring.profiles.active=perf,virtual-threads");
+
+        private final String label;
+
+        private final String[] args;
+
+        ThreadMode(String label, String... args) {
+            this.label = label;
+            this.args = args;
+        }
+
+        static ThreadMode of(String label) {
+            return Arrays
+                    .stream(values())
+                    .filter(threadMode -> threadMode.label.equals(label))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown thread mode " + label + ", available: platform, virtual"));
+        }
+    }
+}
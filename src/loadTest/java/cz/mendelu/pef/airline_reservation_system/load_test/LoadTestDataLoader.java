@@ -0,0 +1,84 @@
+package cz.mendelu.pef.airline_reservation_system.load_test;
+
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk loads `db_data/*.csv` with `COPY`, the same way as the manual dataset import in the README.
+ */
+public class LoadTestDataLoader {
+
+    // Referenced tables go first
+    private static final List<String> TABLES = List.of("aircraft", "airport", "fare_tariff", "customer", "flight", "ticket");
+
+    private static final List<String> TABLES_WITH_SERIAL_ID = List.of("aircraft", "airport", "fare_tariff", "flight", "ticket");
+
+    private final DataSource dataSource;
+
+    private final Path dataDir;
+
+    public LoadTestDataLoader(DataSource dataSource, Path dataDir) {
+        this.dataSource = dataSource;
+        this.dataDir = dataDir;
+    }
+
+    public void load() throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            for (String table : TABLES) {
+                copy(connection, table);
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                // Rows are copied with their ids, so the sequences must continue after them
+                for (String table : TABLES_WITH_SERIAL_ID) {
+                    statement.execute(
+                            "SELECT setval(pg_get_serial_sequence('%1$s', 'id'), (SELECT MAX(id) FROM %1$s))".formatted(table)
+                    );
+                }
+
+                // Counters are maintained by the app, COPY bypasses it
+                statement.execute("""
+                        UPDATE flight SET
+                            business_sold_seats = (SELECT COUNT(*) FROM ticket WHERE ticket.flight_id = flight.id AND ticket.class = 'Business'),
+                            premium_sold_seats = (SELECT COUNT(*) FROM ticket WHERE ticket.flight_id = flight.id AND ticket.class = 'Premium'),
+                            economy_sold_seats = (SELECT COUNT(*) FROM ticket WHERE ticket.flight_id = flight.id AND ticket.class = 'Economy')
+                        """);
+                statement.execute("ANALYZE");
+            }
+
+            connection.commit();
+        }
+    }
+
+    private void copy(Connection connection, String table) throws SQLException, IOException {
+        Path file = dataDir.resolve(table + ".csv");
+
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            // Columns of the files are not in the order of the tables, e.g. customer id is the last one
+            String columns = Arrays
+                    .stream(reader.readLine().split(","))
+                    .map(column -> "\"" + column.trim() + "\"")
+                    .collect(Collectors.joining(", "));
+
+            long rows = connection
+                    .unwrap(PGConnection.class)
+                    .getCopyAPI()
+                    .copyIn("COPY %s (%s) FROM STDIN WITH (FORMAT csv)".formatted(table, columns), reader);
+
+            System.out.printf("Loaded %d rows into %s%n", rows, table);
+        }
+    }
+}
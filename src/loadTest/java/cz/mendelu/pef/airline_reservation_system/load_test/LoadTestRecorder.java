@@ -0,0 +1,100 @@
+package cz.mendelu.pef.airline_reservation_system.load_test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects latencies of one scenario run per request and summarizes them.
+ */
+public class LoadTestRecorder {
+
+    private final Map<LoadTestRequest, Samples> samples = new LinkedHashMap<>();
+
+    public LoadTestRecorder(List<LoadTestRequest> requests) {
+        requests.forEach(request -> samples.put(request, new Samples()));
+    }
+
+    public void record(LoadTestRequest request, long latencyNanos, boolean error) {
+        samples.get(request).add(latencyNanos, error);
+    }
+
+    public List<EndpointResult> getResults(long durationNanos) {
+        double durationSeconds = durationNanos / 1e9;
+
+        return samples
+                .entrySet()
+                .stream()
+                .map(entry -> entry.getValue().toResult(entry.getKey(), durationSeconds))
+                .toList();
+    }
+
+    public record EndpointResult(
+            String name,
+            String method,
+            String path,
+            int samples,
+            int errors,
+            double p50Ms,
+            double p99Ms,
+            double meanMs,
+            double maxMs,
+            double throughputPerSecond
+    ) {
+    }
+
+    private static class Samples {
+
+        private long[] latencies = new long[1024];
+
+        private int size = 0;
+
+        private int errors = 0;
+
+        synchronized void add(long latencyNanos, boolean error) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+
+            latencies[size++] = latencyNanos;
+
+            if (error) {
+                errors++;
+            }
+        }
+
+        synchronized EndpointResult toResult(LoadTestRequest request, double durationSeconds) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+
+            return new EndpointResult(
+                    request.name(),
+                    request.method(),
+                    request.path(),
+                    size,
+                    errors,
+                    toMillis(percentile(sorted, 0.50)),
+                    toMillis(percentile(sorted, 0.99)),
+                    size == 0 ? 0.0 : toMillis(Arrays.stream(sorted).sum() / size),
+                    size == 0 ? 0.0 : toMillis(sorted[size - 1]),
+                    durationSeconds > 0 ? size / durationSeconds : 0.0
+            );
+        }
+
+        // Nearest-rank percentile
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+
+            int rank = (int) Math.ceil(percentile * sorted.length);
+
+            return sorted[Math.max(rank, 1) - 1];
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+}
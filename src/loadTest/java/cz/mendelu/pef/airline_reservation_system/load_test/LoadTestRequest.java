@@ -0,0 +1,19 @@
+package cz.mendelu.pef.airline_reservation_system.load_test;
+
+/**
+ * One sampler of a scenario, path contains the query string.
+ */
+public record LoadTestRequest(String name, String method, String path, String body) {
+
+    public static LoadTestRequest get(String name, String path) {
+        return new LoadTestRequest(name, "GET", path, null);
+    }
+
+    public static LoadTestRequest post(String name, String path, String body) {
+        return new LoadTestRequest(name, "POST", path, body);
+    }
+
+    public static LoadTestRequest put(String name, String path, String body) {
+        return new LoadTestRequest(name, "PUT", path, body);
+    }
+}
@@ -0,0 +1,98 @@
+package cz.mendelu.pef.airline_reservation_system.load_test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread group of a JMeter plan, every thread runs all requests in order, loops times.
+ */
+public record LoadTestScenario(String name, int threads, Duration rampUp, int loops, List<LoadTestRequest> requests) {
+
+    private static final String CUSTOMER_ID = "35645ea7-2b38-430d-aab8-f72302cdc2c8";
+
+    /**
+     * Same endpoint mix, thread counts and loops as `performance_tests/*.jmx`.
+     */
+    public static final Map<String, LoadTestScenario> SCENARIOS = Map.of(
+            "Tickets", new LoadTestScenario("Tickets", 250, Duration.ofSeconds(5), 5, List.of(
+                    LoadTestRequest.get("Get All", "/tickets"),
+                    LoadTestRequest.get("Get By Id", "/tickets/5295"),
+                    LoadTestRequest.post("Create Ticket", "/tickets", """
+                            {
+                              "number": "0008386672215",
+                              "class": "Economy",
+                              "passenger_full_name": "Paul Smith",
+                              "flightId": 99991,
+                              "customerId": "%s"
+                            }
+                            """.formatted(CUSTOMER_ID)),
+                    LoadTestRequest.put("Change Seat Number", "/tickets/5295/change_seat_number?seat_number=13A", null),
+                    LoadTestRequest.put("Upgrade TicketClass", "/tickets/5295/upgrade_ticket_class?new_ticket_class=Premium", null),
+                    LoadTestRequest.put("Transfer Ticket To Other Flight", "/tickets/5295/transfer?flight_id=99991", null)
+            )),
+            "Flights", new LoadTestScenario("Flights", 10, Duration.ofSeconds(10), 20, List.of(
+                    LoadTestRequest.get("Get All", "/flights"),
+                    LoadTestRequest.get("Get Flight By Id", "/flights/44"),
+                    LoadTestRequest.get("Get Available Seat Numbers By Id", "/flights/9999/seat_numbers"),
+                    LoadTestRequest.post("Create Flight", "/flights", """
+                            {
+                              "number": "FFFFFF",
+                              "departure": "2017-07-16T09:35:00Z",
+                              "arrival": "2017-07-16T10:30:00Z",
+                              "status": "Scheduled",
+                              "delay": null,
+                              "aircraft_id": 1,
+                              "airport_departure_id": 1,
+                              "airport_arrival_id": 2,
+                              "fare_tariff_id": 1
+                            }
+                            """),
+                    LoadTestRequest.put("Update Flight By Id", "/flights/99991", """
+                            {
+                              "number": "BB0718",
+                              "departure": "2017-07-16T09:35:00Z",
+                              "arrival": "2017-07-16T10:30:00Z",
+                              "status": "Delayed",
+                              "delay": 10,
+                              "aircraft_id": 105,
+                              "airport_departure_id": 1,
+                              "airport_arrival_id": 2,
+                              "fare_tariff_id": 1
+                            }
+                            """),
+                    LoadTestRequest.put("Cancel Flight By Id", "/flights/cancel/9999?ticket_discount_percentage=0", null)
+            )),
+            "Reports", new LoadTestScenario("Reports", 10, Duration.ofSeconds(5), 50, List.of(
+                    LoadTestRequest.get("Get Reports", "/reports?startDate=2017-07-01&endDate=2017-09-30")
+            )),
+            "Airports", new LoadTestScenario("Airports", 1000, Duration.ofSeconds(5), 20, List.of(
+                    LoadTestRequest.get("Get All", "/airports"),
+                    LoadTestRequest.get("Get By Id", "/airports/1"),
+                    LoadTestRequest.post("Create Airport", "/airports", """
+                            {
+                              "code": "ARN",
+                              "name": "Stockholm-Arlanda",
+                              "municipality": "Sigtuna Municipality",
+                              "country_code": "SE",
+                              "region_code": "SE-ARN",
+                              "gps_code": "ESSA",
+                              "latitude": 59.649436,
+                              "longitude": 17.934262
+                            }
+                            """),
+                    LoadTestRequest.put("Update Airport By Id", "/airports/1001", """
+                            {
+                              "code": "ARN",
+                              "name": "Stockholm-Arlanda",
+                              "municipality": "Sigtuna Municipality, Stockholm County",
+                              "country_code": "SE",
+                              "region_code": "SE-ARN",
+                              "gps_code": "ESSA",
+                              "latitude": 59.649436,
+                              "longitude": 17.934262
+                            }
+                            """)
+            ))
+    );
+}
@@ -0,0 +1,176 @@
+package cz.mendelu.pef.airline_reservation_system.load_test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.mendelu.pef.airline_reservation_system.domain.customer.CustomerRepository;
+import cz.mendelu.pef.airline_reservation_system.domain.ticket.TicketRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Counts database transactions, flushes and JDBC statements of every ticket operation by Hibernate statistics:
+ * books economy tickets on flight 99991 over HTTP, then changes their seats, upgrades them to premium
+ * and transfers them to the flight of ticket 5295, one request at a time.
+ * <p>
+ * Run by `./gradlew ticketTransactionBenchmark`, options are passed as system properties:
+ * <ul>
+ *     <li>`ticketTransactionBenchmark.bookings` - booked tickets, 100 by default</li>
+ *     <li>`loadTest.dataDir` - directory with the CSV files, `db_data` by default</li>
+ * </ul>
+ */
+public class TicketTransactionBenchmark {
+
+    private static final UUID CUSTOMER_ID = UUID.fromString("35645ea7-2b38-430d-aab8-f72302cdc2c8");
+
+    private static final long FLIGHT_ID = 99991L;
+
+    private static final long TRANSFER_TICKET_ID = 5295L;
+
+    private final HttpClient httpClient = HttpClient
+            .newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, OperationStatistics> operations = new LinkedHashMap<>();
+
+    private final Statistics statistics;
+
+    private final String baseUrl;
+
+    public TicketTransactionBenchmark(ConfigurableApplicationContext context) {
+        this.statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        this.baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int bookings = Integer.getInteger("ticketTransactionBenchmark.bookings", 100);
+        Path dataDir = Path.of(System.getProperty("loadTest.dataDir", "db_data"));
+
+        try (
+                EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+                ConfigurableApplicationContext context = LoadTestApplication.startApplication(
+                        postgres,
+                        "--spring.jpa.properties.hibernate.generate_statistics=true"
+                )
+        ) {
+            new LoadTestDataLoader(context.getBean(DataSource.class), dataDir).load();
+
+            // Enough credit for all bookings and upgrades, so no operation is refused for the price
+            context.getBean(CustomerRepository.class).setCredit(CUSTOMER_ID, 1e9);
+            Long transferFlightId = context
+                    .getBean(TicketRepository.class)
+                    .findById(TRANSFER_TICKET_ID)
+                    .orElseThrow()
+                    .getFlight()
+                    .getId();
+
+            new TicketTransactionBenchmark(context).run(bookings, transferFlightId);
+        }
+    }
+
+    private void run(int bookings, Long transferFlightId) throws Exception {
+        for (int i = 0; i < bookings; i++) {
+            JsonNode ticket = send("Create ticket", "POST", "/tickets", """
+                    {
+                      "number": "%013d",
+                      "class": "Economy",
+                      "passenger_full_name": "Benchmark Passenger %d",
+                      "flightId": %d,
+                      "customerId": "%s"
+                    }
+                    """.formatted(i, i, FLIGHT_ID, CUSTOMER_ID));
+
+            if (ticket == null) {
+                continue;
+            }
+
+            long id = ticket.get("content").get("id").asLong();
+
+            send("Change seat number", "PUT", "/tickets/%d/change_seat_number?seat_number=%s".formatted(id, findFreeSeat()), null);
+            send("Upgrade ticket class", "PUT", "/tickets/%d/upgrade_ticket_class?new_ticket_class=Premium".formatted(id), null);
+            send("Transfer ticket", "PUT", "/tickets/%d/transfer?flight_id=%d".formatted(id, transferFlightId), null);
+        }
+
+        operations.forEach((name, operation) -> System.out.printf(
+                "%-22s %5d requests (%5d failed)  %6.2f transactions  %6.2f flushes  %7.2f JDBC statements per request%n",
+                name,
+                operation.requests,
+                operation.failed,
+                (double) operation.transactions / operation.requests,
+                (double) operation.flushes / operation.requests,
+                (double) operation.statements / operation.requests
+        ));
+    }
+
+    /**
+     * Sends the request and adds the statistics of its handling to the operation.
+     * @return body of the response or null, if the request failed
+     */
+    private JsonNode send(String name, String method, String path, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest
+                .newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody());
+
+        statistics.clear();
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+
+        OperationStatistics operation = operations.computeIfAbsent(name, key -> new OperationStatistics());
+        operation.requests++;
+        operation.transactions += statistics.getTransactionCount();
+        operation.flushes += statistics.getFlushCount();
+        operation.statements += statistics.getPrepareStatementCount();
+
+        if (response.statusCode() >= 300) {
+            operation.failed++;
+            return null;
+        }
+
+        return objectMapper.readTree(response.body());
+    }
+
+    /**
+     * Economy seat, which is not sold yet, read outside the measured requests.
+     */
+    private String findFreeSeat() throws Exception {
+        HttpRequest request = HttpRequest
+                .newBuilder(URI.create(baseUrl + "/flights/" + FLIGHT_ID + "/seat_numbers"))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        JsonNode seats = objectMapper.readTree(httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body());
+
+        return seats.get("Economy").get(0).asText();
+    }
+
+    private static class OperationStatistics {
+
+        int requests;
+
+        int failed;
+
+        long transactions;
+
+        long flushes;
+
+        long statements;
+    }
+}
@@ -1,6 +1,7 @@
 package cz.mendelu.pef.airline_reservation_system.domain.aircraft;
 
 import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
+import cz.mendelu.pef.airline_reservation_system.domain.reports.ReportsStoreListener;
 import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
@@ -16,10 +17,12 @@ import java.util.Set;
 @Data
 @NoArgsConstructor
 @Table(name = "aircraft")
+@EntityListeners(ReportsStoreListener.class)
 public class Aircraft {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "aircraft_id_seq")
+    @SequenceGenerator(name = "aircraft_id_seq", sequenceName = "aircraft_id_seq", allocationSize = 50)
     private Long id;
 
     @NotEmpty
@@ -97,7 +97,7 @@ public class AircraftController {
             @RequestBody @Valid AircraftRequest request
     ) {
         Aircraft aircraft = aircraftService
-                .getAircraftById(id)
+                .getAircraftByIdForUpdate(id)
                 .orElseThrow(NotFoundException::new);
         request.toAircraft(aircraft);
 
@@ -1,5 +1,6 @@
 package cz.mendelu.pef.airline_reservation_system.domain.aircraft;
 
+import cz.mendelu.pef.airline_reservation_system.utils.cache.ReferenceDataCache;
 import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
 import org.springframework.stereotype.Service;
 
@@ -12,69 +13,81 @@ public class AircraftService {
 
     private AircraftRepository aircraftRepository;
 
+    // There are only about a hundred aircrafts and they change rarely
+    private final ReferenceDataCache<Aircraft> aircraftCache;
+
     public AircraftService(AircraftRepository aircraftRepository) {
         this.aircraftRepository = aircraftRepository;
+        this.aircraftCache = new ReferenceDataCache<>(this::loadAllAircrafts, Aircraft::getId);
     }
 
+    /**
+     * @return cached aircrafts, the list is read-only
+     */
     public List<Aircraft> getAllAircrafts() {
-        List<Aircraft> aircrafts = new ArrayList<>();
-        aircraftRepository.findAll().forEach(aircrafts::add);
-
-        return aircrafts;
+        return aircraftCache.getAll();
     }
 
+    /**
+     * @return cached aircraft, shared by all requests, so it must not be changed
+     */
     public Optional<Aircraft> getAircraftById(Long id) {
-        if (id == null) {
-            return Optional.empty();
-        }
+        return aircraftCache.get(id);
+    }
 
+    /**
+     * @return aircraft read from the database, not the cached instance, so it can be changed and then updated
+     * by {@link #updateAircraft(Long, Aircraft)}
+     */
+    public Optional<Aircraft> getAircraftByIdForUpdate(Long id) {
         return aircraftRepository.findById(id);
     }
 
     public Aircraft createAircraft(Aircraft aircraft) {
-        return aircraftRepository.save(aircraft);
+        try {
+            return aircraftRepository.save(aircraft);
+        } finally {
+            aircraftCache.invalidate();
+        }
     }
 
     public Aircraft updateAircraft(Long id, Aircraft aircraft) {
         aircraft.setId(id);
-        return aircraftRepository.save(aircraft);
+
+        try {
+            return aircraftRepository.save(aircraft);
+        } finally {
+            aircraftCache.invalidate();
+        }
     }
 
     public void deleteAircraftById(Long id) {
-        aircraftRepository.deleteById(id);
+        try {
+            aircraftRepository.deleteById(id);
+        } finally {
+            aircraftCache.invalidate();
+        }
+    }
+
+    public ReferenceDataCache<Aircraft> getAircraftCache() {
+        return aircraftCache;
+    }
+
+    private List<Aircraft> loadAllAircrafts() {
+        List<Aircraft> aircrafts = new ArrayList<>();
+        aircraftRepository.findAll().forEach(aircrafts::add);
+
+        return aircrafts;
     }
 
     /**
      * Calculates start and end seat row numbers for a passed aircraft and ticket class.
+     * Seat operations use {@link CabinLayout} directly, which is computed only once per aircraft type.
      * @return array containing start (first element) and end (second element) seat row numbers
      */
     public int[] getStartAndEndSeatRowNumbers(Aircraft aircraft, TicketClass ticketClass, int allowedSeatLettersSize) {
-        var ticketClassSeatRowNumberStart = 0;
-        var ticketClassSeatRowNumberEnd = 0;
-
-        switch (ticketClass) {
-            case Business:
-                ticketClassSeatRowNumberStart = 1;
-                ticketClassSeatRowNumberEnd = aircraft.getTotalNumberOfSeatRows(TicketClass.Business, allowedSeatLettersSize);
-
-                break;
-            case Premium:
-                var premiumEnd = aircraft.getTotalNumberOfSeatRows(TicketClass.Premium, allowedSeatLettersSize);
-
-                ticketClassSeatRowNumberStart = 1 + aircraft.getTotalNumberOfSeatRows(TicketClass.Business, allowedSeatLettersSize);
-                ticketClassSeatRowNumberEnd = ticketClassSeatRowNumberStart + (premiumEnd - 1);
-
-                break;
-            case Economy:
-                var economyEnd = aircraft.getTotalNumberOfSeatRows(TicketClass.Economy, allowedSeatLettersSize);
-
-                ticketClassSeatRowNumberStart = 1 + aircraft.getTotalNumberOfSeatRows(TicketClass.Premium, allowedSeatLettersSize)
-                        + aircraft.getTotalNumberOfSeatRows(TicketClass.Business, allowedSeatLettersSize);
-                ticketClassSeatRowNumberEnd = ticketClassSeatRowNumberStart + (economyEnd - 1);
-
-                break;
-        }
+        CabinLayout layout = CabinLayout.of(aircraft, allowedSeatLettersSize);
 
-        return new int[]{ ticketClassSeatRowNumberStart, ticketClassSeatRowNumberEnd };
+        return new int[]{ layout.getStartRow(ticketClass), layout.getEndRow(ticketClass) };
     }
 }
@@ -0,0 +1,162 @@
+package cz.mendelu.pef.airline_reservation_system.domain.aircraft;
+
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seat rows of every ticket class (cabin) of an aircraft. Every cabin starts on a new row in the order
+ * of {@link TicketClass}, so the last row of a cabin may be only partially filled with seats.
+ * <p>
+ * Layouts with {@link SeatCodec#SEATS_PER_ROW} seats per row are shared by all aircrafts of the same capacities,
+ * so they are computed only once per aircraft type instead of on every seat operation.
+ */
+public final class CabinLayout {
+
+    private static final int NUMBER_OF_TICKET_CLASSES = TicketClass.values().length;
+
+    // Capacities are packed into one key, there are only a few distinct aircraft types
+    private static final int CAPACITY_BITS = 21;
+
+    private static final int MAX_CACHED_LAYOUTS = 4096;
+
+    private static final ConcurrentHashMap<Long, CabinLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+    private final int[] capacities = new int[NUMBER_OF_TICKET_CLASSES];
+
+    private final int[] startRows = new int[NUMBER_OF_TICKET_CLASSES];
+
+    private final int[] endRows = new int[NUMBER_OF_TICKET_CLASSES];
+
+    private final int[] firstSeatPositions = new int[NUMBER_OF_TICKET_CLASSES];
+
+    private final int seatPositionCount;
+
+    private CabinLayout(int businessCapacity, int premiumCapacity, int economyCapacity, int seatsPerRow) {
+        capacities[TicketClass.Business.ordinal()] = businessCapacity;
+        capacities[TicketClass.Premium.ordinal()] = premiumCapacity;
+        capacities[TicketClass.Economy.ordinal()] = economyCapacity;
+
+        int nextRow = 1;
+
+        for (TicketClass ticketClass : TicketClass.values()) {
+            int i = ticketClass.ordinal();
+            int rows = seatsPerRow > 0 ? (capacities[i] + seatsPerRow - 1) / seatsPerRow : 0;
+
+            startRows[i] = nextRow;
+            endRows[i] = nextRow + rows - 1;
+            firstSeatPositions[i] = (nextRow - 1) * seatsPerRow;
+            nextRow += rows;
+        }
+
+        int lastSeatPosition = 0;
+
+        for (int i = 0; i < NUMBER_OF_TICKET_CLASSES; i++) {
+            lastSeatPosition = Math.max(lastSeatPosition, firstSeatPositions[i] + capacities[i]);
+        }
+
+        seatPositionCount = lastSeatPosition;
+    }
+
+    /**
+     * @return layout with {@link SeatCodec#SEATS_PER_ROW} seats per row, missing capacities count as 0
+     */
+    public static CabinLayout of(Aircraft aircraft) {
+        return of(
+                getCapacity(aircraft, TicketClass.Business),
+                getCapacity(aircraft, TicketClass.Premium),
+                getCapacity(aircraft, TicketClass.Economy)
+        );
+    }
+
+    public static CabinLayout of(int businessCapacity, int premiumCapacity, int economyCapacity) {
+        if (!isCacheable(businessCapacity) || !isCacheable(premiumCapacity) || !isCacheable(economyCapacity)) {
+            return new CabinLayout(
+                    Math.max(businessCapacity, 0),
+                    Math.max(premiumCapacity, 0),
+                    Math.max(economyCapacity, 0),
+                    SeatCodec.SEATS_PER_ROW
+            );
+        }
+
+        long key = ((long) businessCapacity << (2 * CAPACITY_BITS)) | ((long) premiumCapacity << CAPACITY_BITS) | economyCapacity;
+        CabinLayout layout = LAYOUTS.get(key);
+
+        if (layout == null) {
+            layout = new CabinLayout(businessCapacity, premiumCapacity, economyCapacity, SeatCodec.SEATS_PER_ROW);
+
+            if (LAYOUTS.size() < MAX_CACHED_LAYOUTS) {
+                LAYOUTS.putIfAbsent(key, layout);
+            }
+        }
+
+        return layout;
+    }
+
+    /**
+     * Layout with any number of seats per row, it's not cached.
+     */
+    public static CabinLayout of(Aircraft aircraft, int seatsPerRow) {
+        if (seatsPerRow == SeatCodec.SEATS_PER_ROW) {
+            return of(aircraft);
+        }
+
+        return new CabinLayout(
+                getCapacity(aircraft, TicketClass.Business),
+                getCapacity(aircraft, TicketClass.Premium),
+                getCapacity(aircraft, TicketClass.Economy),
+                seatsPerRow
+        );
+    }
+
+    public int getCapacity(TicketClass ticketClass) {
+        return capacities[ticketClass.ordinal()];
+    }
+
+    public int getStartRow(TicketClass ticketClass) {
+        return startRows[ticketClass.ordinal()];
+    }
+
+    /**
+     * @return last row of the cabin, i.e. row before the start row, if the cabin has no seats
+     */
+    public int getEndRow(TicketClass ticketClass) {
+        return endRows[ticketClass.ordinal()];
+    }
+
+    public int getFirstSeatPosition(TicketClass ticketClass) {
+        return firstSeatPositions[ticketClass.ordinal()];
+    }
+
+    /**
+     * @return number of seat positions from the first seat of the aircraft to the last one
+     */
+    public int getSeatPositionCount() {
+        return seatPositionCount;
+    }
+
+    /**
+     * @return ticket class of the seat or null, if the seat position is not in any cabin
+     */
+    public TicketClass getTicketClass(int seatPosition) {
+        for (TicketClass ticketClass : TicketClass.values()) {
+            int seatIndex = seatPosition - firstSeatPositions[ticketClass.ordinal()];
+
+            if (seatIndex >= 0 && seatIndex < capacities[ticketClass.ordinal()]) {
+                return ticketClass;
+            }
+        }
+
+        return null;
+    }
+
+    private static int getCapacity(Aircraft aircraft, TicketClass ticketClass) {
+        Integer capacity = aircraft.getCapacityByTicketClass(ticketClass);
+
+        return capacity != null ? Math.max(capacity, 0) : 0;
+    }
+
+    private static boolean isCacheable(int capacity) {
+        return capacity >= 0 && capacity < (1 << CAPACITY_BITS);
+    }
+}
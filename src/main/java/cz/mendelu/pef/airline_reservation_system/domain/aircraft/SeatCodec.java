@@ -0,0 +1,125 @@
+package cz.mendelu.pef.airline_reservation_system.domain.aircraft;
+
+/**
+ * Converts seat numbers like "12C" to seat positions and back without regular expressions or allocations.
+ * <p>
+ * Seat position is the aircraft-wide index of a seat, {@code (row - 1) * SEATS_PER_ROW + letterIndex},
+ * so seats of one cabin occupy a continuous range of positions. Seat numbers of the first {@link #CACHED_ROWS} rows
+ * (more than any aircraft has) are created once, so converting positions to seat numbers returns shared strings.
+ */
+public final class SeatCodec {
+
+    public static final String SEAT_LETTERS = "ABCDEF";
+
+    public static final int SEATS_PER_ROW = SEAT_LETTERS.length();
+
+    public static final int NO_SEAT = -1;
+
+    public static final int CACHED_ROWS = 128;
+
+    // No aircraft has so many rows, it also protects parsing from overflow
+    private static final int MAX_ROW = 100_000;
+
+    private static final String[] SEAT_NUMBERS = new String[CACHED_ROWS * SEATS_PER_ROW];
+
+    static {
+        for (int seatPosition = 0; seatPosition < SEAT_NUMBERS.length; seatPosition++) {
+            SEAT_NUMBERS[seatPosition] = createSeatNumber(seatPosition);
+        }
+    }
+
+    private SeatCodec() {
+    }
+
+    /**
+     * Parses seat number like "12C", surrounding whitespace is ignored.
+     * @return seat position or {@link #NO_SEAT}, if the seat number is malformed
+     */
+    public static int encode(String seatNumber) {
+        if (seatNumber == null) {
+            return NO_SEAT;
+        }
+
+        int start = 0;
+        int end = seatNumber.length();
+
+        // Same as `trim()`
+        while (start < end && seatNumber.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && seatNumber.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        // At least one digit and exactly one letter
+        if (end - start < 2) {
+            return NO_SEAT;
+        }
+
+        int letterIndex = toLetterIndex(seatNumber.charAt(end - 1));
+        if (letterIndex < 0) {
+            return NO_SEAT;
+        }
+
+        int row = 0;
+        for (int i = start; i < end - 1; i++) {
+            char c = seatNumber.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return NO_SEAT;
+            }
+
+            row = row * 10 + (c - '0');
+
+            if (row > MAX_ROW) {
+                return NO_SEAT;
+            }
+        }
+
+        if (row < 1) {
+            return NO_SEAT;
+        }
+
+        return encode(row, letterIndex);
+    }
+
+    public static int encode(int row, int letterIndex) {
+        return (row - 1) * SEATS_PER_ROW + letterIndex;
+    }
+
+    /**
+     * @return seat number of the position, e.g. "12C"
+     */
+    public static String decode(int seatPosition) {
+        if (seatPosition < 0) {
+            throw new IllegalArgumentException("Invalid seat position " + seatPosition);
+        }
+
+        return seatPosition < SEAT_NUMBERS.length ? SEAT_NUMBERS[seatPosition] : createSeatNumber(seatPosition);
+    }
+
+    /**
+     * @return seat number in the canonical form (e.g. " 012C" is "12C") or null, if it's malformed
+     */
+    public static String normalize(String seatNumber) {
+        int seatPosition = encode(seatNumber);
+
+        return seatPosition != NO_SEAT ? decode(seatPosition) : null;
+    }
+
+    public static int getRow(int seatPosition) {
+        return seatPosition / SEATS_PER_ROW + 1;
+    }
+
+    public static int getLetterIndex(int seatPosition) {
+        return seatPosition % SEATS_PER_ROW;
+    }
+
+    private static int toLetterIndex(char letter) {
+        return letter >= 'A' && letter < 'A' + SEATS_PER_ROW ? letter - 'A' : -1;
+    }
+
+    private static String createSeatNumber(int seatPosition) {
+        return Integer.toString(getRow(seatPosition)).concat(String.valueOf(SEAT_LETTERS.charAt(getLetterIndex(seatPosition))));
+    }
+}
@@ -1,6 +1,9 @@
 package cz.mendelu.pef.airline_reservation_system.domain.airport;
 
 import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRouteGraphListener;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.ScheduledFlightIndexListener;
+import cz.mendelu.pef.airline_reservation_system.domain.reports.ReportsStoreListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -15,10 +18,12 @@ import java.util.Set;
 @Entity
 @Data
 @NoArgsConstructor
+@EntityListeners({ReportsStoreListener.class, ScheduledFlightIndexListener.class, FlightRouteGraphListener.class})
 public class Airport {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "airport_id_seq")
+    @SequenceGenerator(name = "airport_id_seq", sequenceName = "airport_id_seq", allocationSize = 50)
     private Long id;
 
     @NotEmpty
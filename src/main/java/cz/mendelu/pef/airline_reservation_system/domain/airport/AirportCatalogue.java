@@ -0,0 +1,212 @@
+package cz.mendelu.pef.airline_reservation_system.domain.airport;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of all located airports with a k-d tree for nearest-airport and radius queries,
+ * so queries visit only a few dozen airports instead of computing the distance to all of them.
+ * <p>
+ * Airports are indexed as points on the unit sphere (x, y, z), so there are no special cases for the poles
+ * or the antimeridian, and the straight (chord) distance of two points grows with their great-circle distance.
+ */
+public class AirportCatalogue {
+
+    public static final double EARTH_RADIUS_IN_KM = 6371;
+
+    private static final int DIMENSIONS = 3;
+
+    // Airports in the order of the implicit tree: the root of every range is its middle element
+    private final AirportLocation[] airports;
+
+    private final double[] points;
+
+    private final Map<Long, AirportLocation> airportsById;
+
+    public AirportCatalogue(Collection<AirportLocation> locations) {
+        AirportLocation[] sortedAirports = locations.toArray(new AirportLocation[0]);
+        build(sortedAirports, 0, sortedAirports.length, 0);
+
+        this.airports = sortedAirports;
+        this.points = new double[airports.length * DIMENSIONS];
+        this.airportsById = new HashMap<>(airports.length * 2);
+
+        for (int i = 0; i < airports.length; i++) {
+            toPoint(airports[i].latitude(), airports[i].longitude(), points, i * DIMENSIONS);
+            airportsById.put(airports[i].id(), airports[i]);
+        }
+    }
+
+    public int size() {
+        return airports.length;
+    }
+
+    public Optional<AirportLocation> getAirport(Long id) {
+        return Optional.ofNullable(airportsById.get(id));
+    }
+
+    /**
+     * @return airports not further than the radius from the point, nearest first
+     */
+    public List<NearbyAirport> getAirportsWithinRadius(double latitude, double longitude, double radiusInKm, int limit) {
+        double[] target = toPoint(latitude, longitude, new double[DIMENSIONS], 0);
+        double maxChord = toChord(radiusInKm);
+        List<Candidate> candidates = new ArrayList<>();
+
+        collectWithinRadius(target, maxChord * maxChord, 0, airports.length, 0, candidates);
+        candidates.sort(Comparator.comparingDouble(Candidate::squaredChord));
+
+        return toNearbyAirports(candidates.subList(0, Math.min(limit, candidates.size())));
+    }
+
+    /**
+     * @return airports nearest to the airport, the airport itself excluded, nearest first
+     */
+    public List<NearbyAirport> getNearestAirports(AirportLocation airport, int count) {
+        double[] target = toPoint(airport.latitude(), airport.longitude(), new double[DIMENSIONS], 0);
+
+        // Furthest candidate on top, so it's replaced, when a nearer airport is found
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>(
+                count + 1,
+                Comparator.comparingDouble(Candidate::squaredChord).reversed()
+        );
+
+        collectNearest(target, airport.id(), count, 0, airports.length, 0, nearest);
+
+        List<Candidate> candidates = new ArrayList<>(nearest);
+        candidates.sort(Comparator.comparingDouble(Candidate::squaredChord));
+
+        return toNearbyAirports(candidates);
+    }
+
+    private void collectWithinRadius(double[] target, double maxSquaredChord, int from, int to, int depth, List<Candidate> result) {
+        if (from >= to) {
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        int axis = depth % DIMENSIONS;
+        double squaredChord = squaredChord(target, middle);
+
+        if (squaredChord <= maxSquaredChord) {
+            result.add(new Candidate(middle, squaredChord));
+        }
+
+        double axisDistance = target[axis] - points[middle * DIMENSIONS + axis];
+
+        if (axisDistance <= 0 || axisDistance * axisDistance <= maxSquaredChord) {
+            collectWithinRadius(target, maxSquaredChord, from, middle, depth + 1, result);
+        }
+
+        if (axisDistance >= 0 || axisDistance * axisDistance <= maxSquaredChord) {
+            collectWithinRadius(target, maxSquaredChord, middle + 1, to, depth + 1, result);
+        }
+    }
+
+    private void collectNearest(double[] target, Long excludedId, int count, int from, int to, int depth, PriorityQueue<Candidate> nearest) {
+        if (from >= to || count <= 0) {
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        int axis = depth % DIMENSIONS;
+
+        if (!airports[middle].id().equals(excludedId)) {
+            double squaredChord = squaredChord(target, middle);
+
+            if (nearest.size() < count) {
+                nearest.add(new Candidate(middle, squaredChord));
+            } else if (squaredChord < nearest.peek().squaredChord()) {
+                nearest.poll();
+                nearest.add(new Candidate(middle, squaredChord));
+            }
+        }
+
+        double axisDistance = target[axis] - points[middle * DIMENSIONS + axis];
+        boolean leftFirst = axisDistance <= 0;
+
+        // Side of the splitting plane with the target first, the other side only if it can contain a nearer airport
+        collectNearestSide(target, excludedId, count, from, middle, to, depth, nearest, leftFirst);
+
+        if (nearest.size() < count || axisDistance * axisDistance < nearest.peek().squaredChord()) {
+            collectNearestSide(target, excludedId, count, from, middle, to, depth, nearest, !leftFirst);
+        }
+    }
+
+    private void collectNearestSide(
+            double[] target,
+            Long excludedId,
+            int count,
+            int from,
+            int middle,
+            int to,
+            int depth,
+            PriorityQueue<Candidate> nearest,
+            boolean left
+    ) {
+        if (left) {
+            collectNearest(target, excludedId, count, from, middle, depth + 1, nearest);
+        } else {
+            collectNearest(target, excludedId, count, middle + 1, to, depth + 1, nearest);
+        }
+    }
+
+    private double squaredChord(double[] target, int airport) {
+        int offset = airport * DIMENSIONS;
+        double dx = target[0] - points[offset];
+        double dy = target[1] - points[offset + 1];
+        double dz = target[2] - points[offset + 2];
+
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private List<NearbyAirport> toNearbyAirports(List<Candidate> candidates) {
+        return candidates
+                .stream()
+                .map(candidate -> new NearbyAirport(airports[candidate.airport()], toDistanceInKm(candidate.squaredChord())))
+                .toList();
+    }
+
+    /**
+     * Sorts the airports into an implicit k-d tree: the middle airport of the range splits it by the axis of the depth.
+     */
+    private static void build(AirportLocation[] airports, int from, int to, int depth) {
+        if (to - from <= 1) {
+            return;
+        }
+
+        int axis = depth % DIMENSIONS;
+        double[] point = new double[DIMENSIONS];
+
+        Arrays.sort(airports, from, to, Comparator.comparingDouble(airport ->
+                toPoint(airport.latitude(), airport.longitude(), point, 0)[axis]
+        ));
+
+        int middle = (from + to) >>> 1;
+        build(airports, from, middle, depth + 1);
+        build(airports, middle + 1, to, depth + 1);
+    }
+
+    private static double[] toPoint(double latitude, double longitude, double[] point, int offset) {
+        double latitudeInRadians = Math.toRadians(latitude);
+        double longitudeInRadians = Math.toRadians(longitude);
+
+        point[offset] = Math.cos(latitudeInRadians) * Math.cos(longitudeInRadians);
+        point[offset + 1] = Math.cos(latitudeInRadians) * Math.sin(longitudeInRadians);
+        point[offset + 2] = Math.sin(latitudeInRadians);
+
+        return point;
+    }
+
+    private static double toChord(double distanceInKm) {
+        double angle = Math.min(Math.max(distanceInKm, 0) / EARTH_RADIUS_IN_KM, Math.PI);
+
+        return 2 * Math.sin(angle / 2);
+    }
+
+    private static double toDistanceInKm(double squaredChord) {
+        return 2 * EARTH_RADIUS_IN_KM * Math.asin(Math.min(Math.sqrt(squaredChord) / 2, 1.0));
+    }
+
+    private record Candidate(int airport, double squaredChord) {
+    }
+}
@@ -1,11 +1,13 @@
 package cz.mendelu.pef.airline_reservation_system.domain.airport;
 
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.AirportInUseException;
+import cz.mendelu.pef.airline_reservation_system.utils.exceptions.BadRequestException;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.NotFoundException;
 import cz.mendelu.pef.airline_reservation_system.utils.helpers.ApiErrorDetails;
 import cz.mendelu.pef.airline_reservation_system.utils.response.ArrayResponse;
 import cz.mendelu.pef.airline_reservation_system.utils.response.ObjectResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -23,6 +25,8 @@ import org.springframework.web.bind.annotation.*;
 @Validated
 public class AirportController {
 
+    private static final int MAX_NEARBY_AIRPORTS = 100;
+
     private AirportService airportService;
 
     @Autowired
@@ -35,18 +39,79 @@ public class AirportController {
     @Valid
     public ArrayResponse<AirportResponse> getAirports(
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer limit
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Id of the last airport of the previous page; if it's set, page is ignored")
+            @RequestParam(required = false) Long after
     ) {
-        int pageNumber = page != null && page >= 0 ? page : 0;
+        int pageNumber = page != null && page >= 0 && after == null ? page : 0;
         int pageSize = limit != null && limit > 0 ? limit : 100;
         Pageable pageRequest = PageRequest.of(pageNumber, pageSize);
 
         return ArrayResponse.of(
-                airportService.getAllAirports(pageRequest),
-                AirportResponse::new
+                airportService.getAllAirports(after, pageRequest),
+                AirportResponse::new,
+                Airport::getId
+        );
+    }
+
+    @Operation(summary = "Get airports within the radius of the point, nearest first")
+    @GetMapping(value = "/nearby", produces = "application/json")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid coordinates or radius",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorDetails.class)
+                    )
+            )
+    })
+    @Valid
+    public ArrayResponse<NearbyAirportResponse> getNearbyAirports(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @Parameter(description = "Radius in kilometers")
+            @RequestParam(name = "radius_km") double radiusInKm,
+            @Parameter(description = "Maximum number of airports, at most " + MAX_NEARBY_AIRPORTS)
+            @RequestParam(required = false) Integer limit
+    ) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180) || !(radiusInKm > 0)) {
+            throw new BadRequestException();
+        }
+
+        return ArrayResponse.of(
+                airportService.getAirportsWithinRadius(latitude, longitude, radiusInKm, getNearbyAirportsLimit(limit)),
+                NearbyAirportResponse::new
         );
     }
 
+    @Operation(summary = "Get airports nearest to one airport by id, nearest first")
+    @GetMapping(value = "/{id}/nearest", produces = "application/json")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Id not found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorDetails.class)
+                    )
+            )
+    })
+    @Valid
+    public ArrayResponse<NearbyAirportResponse> getNearestAirports(
+            @PathVariable Long id,
+            @Parameter(description = "Number of airports, at most " + MAX_NEARBY_AIRPORTS)
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ArrayResponse.of(
+                airportService
+                        .getNearestAirports(id, getNearbyAirportsLimit(limit))
+                        .orElseThrow(NotFoundException::new),
+                NearbyAirportResponse::new
+        );
+    }
 
     @Operation(summary = "Get one airport by id")
     @GetMapping(value = "/{id}", produces = "application/json")
@@ -132,4 +197,8 @@ public class AirportController {
 
         airportService.deleteAirportById(id);
     }
+
+    private static int getNearbyAirportsLimit(Integer limit) {
+        return limit != null && limit > 0 ? Math.min(limit, MAX_NEARBY_AIRPORTS) : 10;
+    }
 }
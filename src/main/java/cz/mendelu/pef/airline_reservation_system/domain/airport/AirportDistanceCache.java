@@ -0,0 +1,182 @@
+package cz.mendelu.pef.airline_reservation_system.domain.airport;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Distances between pairs of airports, so the haversine formula is computed only once for every route.
+ * <p>
+ * Pair of airport ids is packed into one {@code long} key and stored in an open addressing hash table
+ * of primitive arrays, so lookups neither box the key nor allocate.
+ * <p>
+ * Lookups take no lock, they read the table optimistically and retry under the read lock only, if a write interleaved.
+ * Distance is stored only, if the cache was not cleared since {@link #getGeneration()} was read before computing it,
+ * so a distance computed from an old location of an airport is never stored after the change.
+ */
+public class AirportDistanceCache {
+
+    public static final double MISSING = Double.NaN;
+
+    private static final long EMPTY_KEY = 0L;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Keys and distances are replaced together by a resize, so a lookup never pairs arrays of different tables
+    private Table table = new Table(new long[INITIAL_CAPACITY], new double[INITIAL_CAPACITY]);
+
+    private int size = 0;
+
+    // Incremented by every clear, so a distance computed before a change is never stored after it
+    private long generation = 0;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * @return true, if distance between the airports can be cached, i.e. both ids are positive 32-bit integers
+     */
+    public static boolean isCacheable(Long originId, Long destinationId) {
+        return originId != null && destinationId != null
+                && originId > 0 && originId <= Integer.MAX_VALUE
+                && destinationId > 0 && destinationId <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return cached distance or {@link #MISSING}
+     */
+    public double get(long originId, long destinationId) {
+        long key = toKey(originId, destinationId);
+        long stamp = lock.tryOptimisticRead();
+
+        if (stamp != 0L) {
+            // Table is at most half full even in the middle of a write, so the probe always ends
+            double distance = table.find(key);
+
+            if (lock.validate(stamp)) {
+                return distance;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return table.find(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return generation to pass to {@link #put(long, long, double, long)}, read it before computing the distance
+     */
+    public long getGeneration() {
+        long stamp = lock.readLock();
+        try {
+            return generation;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Stores the distance, unless the cache was cleared since the generation was read.
+     */
+    public void put(long originId, long destinationId, double distance, long computedGeneration) {
+        long stamp = lock.writeLock();
+        try {
+            if (generation != computedGeneration) {
+                return;
+            }
+
+            // Keep the table at most half full, so probe sequences stay short
+            if ((size + 1) * 2 > table.keys().length) {
+                resize(table.keys().length * 2);
+            }
+
+            if (table.insert(toKey(originId, destinationId), distance)) {
+                size++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Forgets all distances, e.g. when location of an airport changes.
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            generation++;
+            Arrays.fill(table.keys(), EMPTY_KEY);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void resize(int capacity) {
+        Table newTable = new Table(new long[capacity], new double[capacity]);
+        long[] keys = table.keys();
+        double[] distances = table.distances();
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY_KEY) {
+                newTable.insert(keys[i], distances[i]);
+            }
+        }
+
+        table = newTable;
+    }
+
+    // Route is directed, ids are positive, so the key is never EMPTY_KEY
+    private static long toKey(long originId, long destinationId) {
+        return (originId << 32) | destinationId;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private record Table(long[] keys, double[] distances) {
+
+        double find(long key) {
+            int mask = keys.length - 1;
+
+            for (int i = hash(key) & mask; keys[i] != EMPTY_KEY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return distances[i];
+                }
+            }
+
+            return MISSING;
+        }
+
+        /**
+         * @return true, if the key was not in the table yet
+         */
+        boolean insert(long key, double distance) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+
+            while (keys[i] != EMPTY_KEY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+
+            boolean added = keys[i] == EMPTY_KEY;
+            keys[i] = key;
+            distances[i] = distance;
+
+            return added;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package cz.mendelu.pef.airline_reservation_system.domain.airport;
+
+/**
+ * Immutable copy of the airport fields needed by {@link AirportCatalogue}.
+ */
+public record AirportLocation(
+        Long id,
+        String code,
+        String name,
+        String countryCode,
+        Double latitude,
+        Double longitude
+) {
+}
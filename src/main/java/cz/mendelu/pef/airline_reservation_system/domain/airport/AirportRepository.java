@@ -1,6 +1,33 @@
 package cz.mendelu.pef.airline_reservation_system.domain.airport;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface AirportRepository extends JpaRepository<Airport, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Airports following the id, unlike {@link #findAll(Pageable)} without counting all airports.
+     * Airports are read-only, so Hibernate keeps no snapshots of them for dirty checking.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Slice<Airport> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Locations of all airports for {@link AirportCatalogue}, without loading the entities.
+     */
+    @Query("""
+            SELECT new cz.mendelu.pef.airline_reservation_system.domain.airport.AirportLocation(
+                a.id, a.code, a.name, a.countryCode, a.latitude, a.longitude
+            )
+            FROM Airport AS a
+            WHERE a.latitude IS NOT NULL AND a.longitude IS NOT NULL
+            """)
+    List<AirportLocation> getAllAirportLocations();
+}
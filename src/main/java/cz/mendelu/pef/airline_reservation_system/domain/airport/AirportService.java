@@ -1,24 +1,39 @@
 package cz.mendelu.pef.airline_reservation_system.domain.airport;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class AirportService {
 
     private AirportRepository airportRepository;
 
+    private final AirportDistanceCache distanceCache = new AirportDistanceCache();
+
+    // Immutable, so queries read it without locking; writes drop it and the next query builds a new one
+    private volatile AirportCatalogue catalogue;
+
+    // Not `synchronized`, as a virtual thread querying the database inside it would block its carrier thread
+    private final ReentrantLock catalogueLock = new ReentrantLock();
+
     public AirportService(AirportRepository airportRepository) {
         this.airportRepository = airportRepository;
     }
 
-    public List<Airport> getAllAirports(Pageable pageRequest) {
-        return airportRepository
-                .findAll(pageRequest)
-                .getContent();
+    /**
+     * @param afterId id of the last airport of the previous page or null for the first page
+     * @return airports sorted by id
+     */
+    @Transactional(readOnly = true)
+    public Slice<Airport> getAllAirports(Long afterId, Pageable pageRequest) {
+        // Ids are positive, so 0 precedes the first airport
+        return airportRepository.findAllByIdGreaterThanOrderByIdAsc(afterId != null ? afterId : 0L, pageRequest);
     }
 
     public Optional<Airport> getAirportById(Long id) {
@@ -26,16 +41,95 @@ public class AirportService {
     }
 
     public Airport createAirport(Airport airport) {
-        return airportRepository.save(airport);
+        try {
+            return airportRepository.save(airport);
+        } finally {
+            invalidateAirportCatalogue();
+        }
     }
 
     public Airport updateAirport(Long id, Airport airport) {
         airport.setId(id);
-        return airportRepository.save(airport);
+        Airport updatedAirport;
+
+        try {
+            updatedAirport = airportRepository.save(airport);
+        } finally {
+            invalidateAirportCatalogue();
+        }
+
+        // Latitude or longitude may have changed, airports are updated rarely, so it's simpler to drop all distances
+        distanceCache.clear();
+
+        return updatedAirport;
     }
 
     public void deleteAirportById(Long id) {
-        airportRepository.deleteById(id);
+        try {
+            airportRepository.deleteById(id);
+        } finally {
+            invalidateAirportCatalogue();
+        }
+
+        distanceCache.clear();
+    }
+
+    /**
+     * @return airports not further than the radius from the point, nearest first
+     */
+    public List<NearbyAirport> getAirportsWithinRadius(double latitude, double longitude, double radiusInKm, int limit) {
+        return getAirportCatalogue().getAirportsWithinRadius(latitude, longitude, radiusInKm, limit);
+    }
+
+    /**
+     * @return airports nearest to the airport, nearest first, or empty, if there is no airport with the id
+     */
+    public Optional<List<NearbyAirport>> getNearestAirports(Long airportId, int count) {
+        AirportCatalogue currentCatalogue = getAirportCatalogue();
+
+        return currentCatalogue
+                .getAirport(airportId)
+                .map(airport -> currentCatalogue.getNearestAirports(airport, count));
+    }
+
+    public AirportCatalogue getAirportCatalogue() {
+        AirportCatalogue currentCatalogue = catalogue;
+
+        if (currentCatalogue != null) {
+            return currentCatalogue;
+        }
+
+        catalogueLock.lock();
+        try {
+            if (catalogue == null) {
+                catalogue = new AirportCatalogue(airportRepository.getAllAirportLocations());
+            }
+
+            return catalogue;
+        } finally {
+            catalogueLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the catalogue, it's built again from the database on the next query.
+     * Use it after changes of airports that bypass this service, e.g. imports.
+     */
+    public void invalidateAirportCatalogue() {
+        catalogueLock.lock();
+        try {
+            catalogue = null;
+        } finally {
+            catalogueLock.unlock();
+        }
+    }
+
+    /**
+     * Forgets all cached distances between airports.
+     * Use it after changes of airport locations that bypass this service, e.g. imports.
+     */
+    public void invalidateDistanceCache() {
+        distanceCache.clear();
     }
 
     public double calculateDistanceBetweenAirports(Airport origin, Airport destination) {
@@ -43,11 +137,45 @@ public class AirportService {
             return 0.0;
         }
 
-        double originLat = origin.getLatitude();
-        double originLong = origin.getLongitude();
-        double destinationLat = destination.getLatitude();
-        double destinationLong = destination.getLongitude();
+        return calculateDistanceBetweenAirports(
+                origin.getId(),
+                origin.getLatitude(),
+                origin.getLongitude(),
+                destination.getId(),
+                destination.getLatitude(),
+                destination.getLongitude()
+        );
+    }
+
+    /**
+     * Same as {@link #calculateDistanceBetweenAirports(Airport, Airport)} for airports read by a projection,
+     * the distance is cached by the airport ids.
+     */
+    public double calculateDistanceBetweenAirports(
+            Long originId,
+            double originLat,
+            double originLong,
+            Long destinationId,
+            double destinationLat,
+            double destinationLong
+    ) {
+        if (!AirportDistanceCache.isCacheable(originId, destinationId)) {
+            return calculateDistance(originLat, originLong, destinationLat, destinationLong);
+        }
+
+        double distance = distanceCache.get(originId, destinationId);
+
+        if (Double.isNaN(distance)) {
+            // Read before computing, so the distance isn't stored, if an airport is changed in the meantime
+            long generation = distanceCache.getGeneration();
+            distance = calculateDistance(originLat, originLong, destinationLat, destinationLong);
+            distanceCache.put(originId, destinationId, distance, generation);
+        }
+
+        return distance;
+    }
 
+    public double calculateDistance(double originLat, double originLong, double destinationLat, double destinationLong) {
         final int EARTH_RADIUS_IN_KM = 6371;
 
         // Haversine formula
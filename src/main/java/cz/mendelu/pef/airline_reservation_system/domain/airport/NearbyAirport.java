@@ -0,0 +1,4 @@
+package cz.mendelu.pef.airline_reservation_system.domain.airport;
+
+public record NearbyAirport(AirportLocation airport, double distanceInKm) {
+}
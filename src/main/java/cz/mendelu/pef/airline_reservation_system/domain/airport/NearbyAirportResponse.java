@@ -0,0 +1,51 @@
+package cz.mendelu.pef.airline_reservation_system.domain.airport;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class NearbyAirportResponse {
+
+    private Long id;
+
+    @Schema(example = "BQK")
+    @NotEmpty
+    private String code;
+
+    @Schema(example = "Brunswick Golden Isles Airport")
+    @NotEmpty
+    private String name;
+
+    @Schema(example = "US")
+    @JsonProperty("country_code")
+    @NotEmpty
+    private String countryCode;
+
+    @Schema(example = "11.980569")
+    @NotNull
+    private Double latitude;
+
+    @Schema(example = "-86.311052")
+    @NotNull
+    private Double longitude;
+
+    @Schema(example = "42.7")
+    @JsonProperty("distance_km")
+    @NotNull
+    private Double distanceInKm;
+
+    NearbyAirportResponse(NearbyAirport nearbyAirport) {
+        AirportLocation airport = nearbyAirport.airport();
+
+        this.id = airport.id();
+        this.code = airport.code();
+        this.name = airport.name();
+        this.countryCode = airport.countryCode();
+        this.latitude = airport.latitude();
+        this.longitude = airport.longitude();
+        this.distanceInKm = nearbyAirport.distanceInKm();
+    }
+}
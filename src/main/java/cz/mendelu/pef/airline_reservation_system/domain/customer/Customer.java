@@ -31,6 +31,9 @@ public class Customer {
     @NotEmpty
     private String lastName;
 
+    // Changed only by the atomic updates of `CustomerRepository`, so saving a customer read before
+    // a concurrent purchase cannot overwrite its charge
+    @Column(updatable = false)
     @NotNull
     @Min(0)
     private Double credit;
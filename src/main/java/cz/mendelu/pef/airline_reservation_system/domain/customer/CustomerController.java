@@ -2,11 +2,15 @@ package cz.mendelu.pef.airline_reservation_system.domain.customer;
 
 import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
 import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightResponse;
+import cz.mendelu.pef.airline_reservation_system.utils.exceptions.NotEnoughCreditException;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.NotFoundException;
+import cz.mendelu.pef.airline_reservation_system.utils.export.ExportFormat;
+import cz.mendelu.pef.airline_reservation_system.utils.export.ResponseExporter;
 import cz.mendelu.pef.airline_reservation_system.utils.helpers.ApiErrorDetails;
 import cz.mendelu.pef.airline_reservation_system.utils.response.ArrayResponse;
 import cz.mendelu.pef.airline_reservation_system.utils.response.ObjectResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,9 +19,13 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -29,9 +37,12 @@ public class CustomerController {
 
     private CustomerService customerService;
 
+    private ResponseExporter responseExporter;
+
     @Autowired
-    CustomerController(CustomerService customerService) {
+    CustomerController(CustomerService customerService, ResponseExporter responseExporter) {
         this.customerService = customerService;
+        this.responseExporter = responseExporter;
     }
 
     @Operation(summary = "Get all customers")
@@ -39,15 +50,44 @@ public class CustomerController {
     @Valid
     public ArrayResponse<CustomerResponse> getCustomers(
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer limit
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Id of the last customer of the previous page; if it's set, customers are sorted by id and page is ignored. "
+                    + "Use 00000000-0000-0000-0000-000000000000 to get the first page")
+            @RequestParam(required = false) UUID after
     ) {
-        int pageNumber = page != null && page >= 0 ? page : 0;
+        int pageNumber = page != null && page >= 0 && after == null ? page : 0;
         int pageSize = limit != null && limit > 0 ? limit : 100;
         Pageable pageRequest = PageRequest.of(pageNumber, pageSize);
 
+        Slice<Customer> customers = customerService.getAllCustomers(after, pageRequest);
+
+        // Pages without a cursor are in the order of the table, so the last id is not a cursor
+        if (after == null) {
+            return ArrayResponse.of(customers.getContent(), CustomerResponse::new);
+        }
+
         return ArrayResponse.of(
-                customerService.getAllCustomers(pageRequest),
-                CustomerResponse::new
+                customers,
+                CustomerResponse::new,
+                Customer::getId
+        );
+    }
+
+    @Operation(summary = "Export all customers sorted by id")
+    @GetMapping(value = "/export")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @Parameter(description = "Format of the export, `ndjson` (one customer per line) or `csv`")
+            @RequestParam(required = false, defaultValue = "ndjson") String format
+    ) {
+        return responseExporter.export(
+                "customers",
+                ExportFormat.of(format),
+                CustomerResponse.class,
+                customerService::streamAllCustomerResponses
         );
     }
 
@@ -90,12 +130,20 @@ public class CustomerController {
                     )
             )
     })
-    public ArrayResponse<FlightResponse> getFlightRecommendationsForCustomerById(@PathVariable UUID id) {
+    public ArrayResponse<FlightResponse> getFlightRecommendationsForCustomerById(
+            @PathVariable UUID id,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer limit
+    ) {
         Customer customer = customerService
                 .getCustomerById(id)
                 .orElseThrow(NotFoundException::new);
 
-        List<Flight> recommendations = customerService.generateFlightRecommendations(customer);
+        int pageNumber = page != null && page >= 0 ? page : 0;
+        int pageSize = limit != null && limit > 0 ? limit : 100;
+        Pageable pageRequest = PageRequest.of(pageNumber, pageSize);
+
+        List<Flight> recommendations = customerService.generateFlightRecommendations(customer, pageRequest);
 
         return ArrayResponse.of(
                 recommendations,
@@ -130,6 +178,14 @@ public class CustomerController {
                             mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorDetails.class)
                     )
+            ),
+            @ApiResponse(
+                    responseCode = "422",
+                    description = "Customer spent more than the new credit in the meantime",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorDetails.class)
+                    )
             )
     })
     @Valid
@@ -142,7 +198,11 @@ public class CustomerController {
                 .orElseThrow(NotFoundException::new);
         request.toCustomer(customer);
 
-        customerService.updateCustomer(id, customer);
+        try {
+            customerService.updateCustomer(id, customer);
+        } catch (NotEnoughCreditException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Customer has not enough credit", e);
+        }
 
         return ObjectResponse.of(
                 customer,
@@ -1,8 +1,90 @@
 package cz.mendelu.pef.airline_reservation_system.domain.customer;
 
+import cz.mendelu.pef.airline_reservation_system.utils.export.ResponseExporter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+
+    /**
+     * Page of customers in the order of the table, unlike {@link #findAll(Pageable)} without counting all customers.
+     * Customers of the pages are read-only, so Hibernate keeps no snapshots of them for dirty checking.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Slice<Customer> findAllBy(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Slice<Customer> findAllByIdGreaterThanOrderByIdAsc(UUID id, Pageable pageable);
+
+    /**
+     * All customers sorted by id read from a database cursor straight into responses, so no entities are loaded.
+     * Stream must be consumed in a transaction and closed.
+     */
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.customer.CustomerResponse(
+            c.id, c.firstName, c.lastName, c.credit, c.phone, c.email, c.password
+        )
+        FROM Customer AS c
+        ORDER BY c.id
+    """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ResponseExporter.FETCH_SIZE))
+    Stream<CustomerResponse> streamAllCustomerResponses();
+
+    /**
+     * Atomically adds to the credit of the customer, unless the credit would get below zero,
+     * so concurrent purchases can neither overdraw the credit nor overwrite each other's charges.
+     * @param amount amount to add, negative to charge
+     * @return 1, if the credit was changed, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE customer SET credit = credit + CAST(:amount AS numeric)
+        WHERE id = :id AND credit + CAST(:amount AS numeric) >= 0
+    """, nativeQuery = true)
+    int addCredit(UUID id, double amount);
+
+    /**
+     * @return credit persisted for the customer, changes of the managed customer are not flushed before the query
+     */
+    @Query("SELECT c.credit FROM Customer AS c WHERE c.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    Optional<Double> getPersistedCredit(UUID id);
+
+    /**
+     * Removes seats of all tickets of the customer from the sold seat counters of their flights.
+     * Call it right before the customer is deleted, the tickets are deleted by the cascade, which bypasses the counters.
+     * @return number of changed flights
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE flight AS f SET
+            business_sold_seats = f.business_sold_seats - t.business_seats,
+            premium_sold_seats = f.premium_sold_seats - t.premium_seats,
+            economy_sold_seats = f.economy_sold_seats - t.economy_seats
+        FROM (
+            SELECT
+                flight_id,
+                COUNT(*) FILTER (WHERE class = 'Business') AS business_seats,
+                COUNT(*) FILTER (WHERE class = 'Premium') AS premium_seats,
+                COUNT(*) FILTER (WHERE class = 'Economy') AS economy_seats
+            FROM ticket
+            WHERE customer_id = :id
+            GROUP BY flight_id
+        ) AS t
+        WHERE f.id = t.flight_id
+    """, nativeQuery = true)
+    int removeSoldSeatsOfTickets(UUID id);
 }
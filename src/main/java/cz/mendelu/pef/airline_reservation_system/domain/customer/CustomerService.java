@@ -1,31 +1,50 @@
 package cz.mendelu.pef.airline_reservation_system.domain.customer;
 
 import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
-import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRepository;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.ScheduledFlightIndex;
 import cz.mendelu.pef.airline_reservation_system.domain.ticket.Ticket;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.NotEnoughCreditException;
+import cz.mendelu.pef.airline_reservation_system.utils.metrics.MetricNames;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CustomerService {
 
     private CustomerRepository customerRepository;
 
-    private FlightRepository flightRepository;
+    private ScheduledFlightIndex scheduledFlightIndex;
 
-    public CustomerService(CustomerRepository customerRepository, FlightRepository flightRepository) {
+    public CustomerService(CustomerRepository customerRepository, ScheduledFlightIndex scheduledFlightIndex) {
         this.customerRepository = customerRepository;
-        this.flightRepository = flightRepository;
+        this.scheduledFlightIndex = scheduledFlightIndex;
     }
 
-    public List<Customer> getAllCustomers(Pageable pageRequest) {
-        return customerRepository
-                .findAll(pageRequest)
-                .getContent();
+    /**
+     * @param afterId id of the last customer of the previous page or null to page in the order of the table
+     * @return customers sorted by id, if the id is set
+     */
+    @Transactional(readOnly = true)
+    public Slice<Customer> getAllCustomers(UUID afterId, Pageable pageRequest) {
+        if (afterId == null) {
+            return customerRepository.findAllBy(pageRequest);
+        }
+
+        return customerRepository.findAllByIdGreaterThanOrderByIdAsc(afterId, pageRequest);
+    }
+
+    /**
+     * @return all customers sorted by id, the stream must be consumed in a transaction and closed
+     */
+    public Stream<CustomerResponse> streamAllCustomerResponses() {
+        return customerRepository.streamAllCustomerResponses();
     }
 
     public Optional<Customer> getCustomerById(UUID id) {
@@ -36,12 +55,32 @@ public class CustomerService {
         return customerRepository.save(customer);
     }
 
+    /**
+     * Credit is not updated by saving the customer, it's changed by the difference to the persisted credit,
+     * so purchases of the customer made in the meantime are still charged.
+     * @throws NotEnoughCreditException if purchases made in the meantime spent more than the credit left after the change
+     */
+    @Transactional
     public Customer updateCustomer(UUID id, Customer customer) {
         customer.setId(id);
-        return customerRepository.save(customer);
+        Optional<Double> persistedCredit = customerRepository.getPersistedCredit(id);
+        Customer updatedCustomer = customerRepository.save(customer);
+
+        if (persistedCredit.isPresent() && customer.getCredit() != null) {
+            double creditChange = customer.getCredit() - persistedCredit.get();
+
+            if (creditChange != 0 && customerRepository.addCredit(id, creditChange) == 0) {
+                throw new NotEnoughCreditException();
+            }
+        }
+
+        return updatedCustomer;
     }
 
+    @Transactional
     public void deleteCustomerById(UUID id) {
+        // Tickets are deleted by the cascade, their seats must not stay sold
+        customerRepository.removeSoldSeatsOfTickets(id);
         customerRepository.deleteById(id);
     }
 
@@ -49,15 +88,26 @@ public class CustomerService {
         return customer.getCredit() >= amountOfMoney;
     }
 
+    /**
+     * Charges the credit by one atomic update, so concurrent purchases of one customer are all charged
+     * and cannot overdraw the credit. Customer doesn't have to be saved afterwards.
+     * @throws NotEnoughCreditException if the customer doesn't have enough credit, also because of a concurrent purchase
+     */
+    @Timed(value = MetricNames.BOOKING_CREDIT_CHARGE, description = "Charge of customer credit for bookings and upgrades", histogram = true)
     public void chargeCustomerCredit(Customer customer, Double amountOfMoney) {
         if (!isCustomerHasEnoughCredit(customer, amountOfMoney)) {
             throw new NotEnoughCreditException();
         }
 
+        // Customer without id is not persisted, there is nothing to update
+        if (customer.getId() != null && customerRepository.addCredit(customer.getId(), -amountOfMoney) == 0) {
+            throw new NotEnoughCreditException();
+        }
+
         customer.setCredit(customer.getCredit() - amountOfMoney);
     }
 
-    public List<Flight> generateFlightRecommendations(Customer customer) {
+    public List<Flight> generateFlightRecommendations(Customer customer, Pageable pageRequest) {
         List<Flight> flights = customer.getPurchasedTickets()
                 .stream()
                 .map(Ticket::getFlight)
@@ -77,12 +127,10 @@ public class CustomerService {
                 .map(Map.Entry::getKey)
                 .toList();
 
-        return flightRepository
-                .findAll()
-                .stream()
-                .filter(flight -> flight.getStatus().trim().equalsIgnoreCase("Scheduled")
-                        && favoriteDestinations.contains(flight.getAirportArrival().getCode()))
-                .sorted(Comparator.comparing(Flight::getDeparture))
-                .toList();
+        return scheduledFlightIndex.getFlightsByArrivalCodes(
+                favoriteDestinations,
+                pageRequest.getOffset(),
+                pageRequest.getPageSize()
+        );
     }
 }
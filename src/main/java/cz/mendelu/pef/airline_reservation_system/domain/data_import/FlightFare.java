@@ -0,0 +1,25 @@
+package cz.mendelu.pef.airline_reservation_system.domain.data_import;
+
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Flight data copied into its imported tickets.
+ */
+record FlightFare(
+        OffsetDateTime departure,
+        OffsetDateTime arrival,
+        Double businessPrice,
+        Double premiumPrice,
+        Double economyPrice
+) {
+
+    Double getPriceByTicketClass(TicketClass ticketClass) {
+        return switch (ticketClass) {
+            case Business -> businessPrice;
+            case Premium -> premiumPrice;
+            case Economy -> economyPrice;
+        };
+    }
+}
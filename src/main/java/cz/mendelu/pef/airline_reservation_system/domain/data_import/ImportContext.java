@@ -0,0 +1,73 @@
+package cz.mendelu.pef.airline_reservation_system.domain.data_import;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * State of one import shared by its rows.
+ */
+class ImportContext {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Tickets of one flight are usually together, so every flight is read once
+    private final Map<Long, Optional<FlightFare>> flightFares = new HashMap<>();
+
+    private final Set<Long> ticketFlightIds = new HashSet<>();
+
+    ImportContext(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @throws InvalidRowException if the flight doesn't exist
+     */
+    FlightFare getFlightFare(Long flightId) {
+        if (flightId == null) {
+            throw new InvalidRowException("flightId: must not be null");
+        }
+
+        FlightFare flightFare = flightFares
+                .computeIfAbsent(flightId, this::findFlightFare)
+                .orElseThrow(() -> new InvalidRowException("Flight " + flightId + " not found"));
+
+        ticketFlightIds.add(flightId);
+
+        return flightFare;
+    }
+
+    /**
+     * @return flights of the imported tickets, including the tickets that failed to insert
+     */
+    Set<Long> getTicketFlightIds() {
+        return ticketFlightIds;
+    }
+
+    private Optional<FlightFare> findFlightFare(Long flightId) {
+        List<FlightFare> flightFare = jdbcTemplate.query(
+                """
+                SELECT f.departure, f.arrival, ft.business_price, ft.premium_price, ft.economy_price
+                FROM flight AS f
+                JOIN fare_tariff AS ft ON ft.id = f.fare_tariff_id
+                WHERE f.id = ?
+                """,
+                (resultSet, rowNumber) -> new FlightFare(
+                        resultSet.getObject("departure", OffsetDateTime.class),
+                        resultSet.getObject("arrival", OffsetDateTime.class),
+                        resultSet.getObject("business_price", Double.class),
+                        resultSet.getObject("premium_price", Double.class),
+                        resultSet.getObject("economy_price", Double.class)
+                ),
+                flightId
+        );
+
+        return flightFare.stream().findFirst();
+    }
+}
@@ -0,0 +1,61 @@
+package cz.mendelu.pef.airline_reservation_system.domain.data_import;
+
+import cz.mendelu.pef.airline_reservation_system.utils.response.ObjectResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * CSV files have a header with the names of the columns, the same as files in `db_data`.
+ * Invalid rows are skipped and reported in the result, the rest of the file is imported.
+ */
+@RestController
+@RequestMapping("imports")
+public class ImportController {
+
+    private ImportService importService;
+
+    @Autowired
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @Operation(summary = "Import aircrafts from CSV")
+    @PostMapping(value = "/aircrafts", consumes = "text/csv", produces = "application/json")
+    public ObjectResponse<ImportResult> importAircrafts(InputStream csv) throws IOException {
+        return new ObjectResponse<>(importService.importCsv(ImportTable.AIRCRAFTS, csv));
+    }
+
+    @Operation(summary = "Import airports from CSV")
+    @PostMapping(value = "/airports", consumes = "text/csv", produces = "application/json")
+    public ObjectResponse<ImportResult> importAirports(InputStream csv) throws IOException {
+        return new ObjectResponse<>(importService.importCsv(ImportTable.AIRPORTS, csv));
+    }
+
+    @Operation(summary = "Import fare tariffs from CSV")
+    @PostMapping(value = "/fare_tariffs", consumes = "text/csv", produces = "application/json")
+    public ObjectResponse<ImportResult> importFareTariffs(InputStream csv) throws IOException {
+        return new ObjectResponse<>(importService.importCsv(ImportTable.FARE_TARIFFS, csv));
+    }
+
+    @Operation(summary = "Import customers from CSV")
+    @PostMapping(value = "/customers", consumes = "text/csv", produces = "application/json")
+    public ObjectResponse<ImportResult> importCustomers(InputStream csv) throws IOException {
+        return new ObjectResponse<>(importService.importCsv(ImportTable.CUSTOMERS, csv));
+    }
+
+    @Operation(summary = "Import flights from CSV")
+    @PostMapping(value = "/flights", consumes = "text/csv", produces = "application/json")
+    public ObjectResponse<ImportResult> importFlights(InputStream csv) throws IOException {
+        return new ObjectResponse<>(importService.importCsv(ImportTable.FLIGHTS, csv));
+    }
+
+    @Operation(summary = "Import tickets from CSV")
+    @PostMapping(value = "/tickets", consumes = "text/csv", produces = "application/json")
+    public ObjectResponse<ImportResult> importTickets(InputStream csv) throws IOException {
+        return new ObjectResponse<>(importService.importCsv(ImportTable.TICKETS, csv));
+    }
+}
@@ -0,0 +1,7 @@
+package cz.mendelu.pef.airline_reservation_system.domain.data_import;
+
+/**
+ * @param row number of the CSV row, the first row after the header is 1
+ */
+public record ImportError(long row, String message) {
+}
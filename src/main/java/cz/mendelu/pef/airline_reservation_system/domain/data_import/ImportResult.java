@@ -0,0 +1,16 @@
+package cz.mendelu.pef.airline_reservation_system.domain.data_import;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * @param errors errors of the first failed rows, see {@link ImportService#MAX_REPORTED_ERRORS}
+ */
+public record ImportResult(
+        String table,
+        @JsonProperty("imported_rows") long importedRows,
+        @JsonProperty("failed_rows") long failedRows,
+        List<ImportError> errors
+) {
+}
@@ -0,0 +1,74 @@
+package cz.mendelu.pef.airline_reservation_system.domain.data_import;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Imports CSV files from the directory set by the property `import.dir` and exits the application,
+ * e.g. `./gradlew bootRun --args='--import.dir=db_data'`.
+ * <p>
+ * File of a table is named by the table, e.g. `flight.csv`, missing files are skipped.
+ * Tables are imported in the order of their foreign keys.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("import.dir")
+public class ImportRunner implements ApplicationRunner {
+
+    private final ImportService importService;
+
+    private final ApplicationContext applicationContext;
+
+    private final Path importDir;
+
+    public ImportRunner(ImportService importService, ApplicationContext applicationContext, Environment environment) {
+        this.importService = importService;
+        this.applicationContext = applicationContext;
+        this.importDir = Path.of(environment.getRequiredProperty("import.dir"));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        long failedRows = 0;
+
+        for (ImportTable<?> table : ImportTable.ALL) {
+            Path file = importDir.resolve(table.table() + ".csv");
+
+            if (!Files.isRegularFile(file)) {
+                log.info("Skipping table {}, file {} does not exist", table.table(), file);
+                continue;
+            }
+
+            long start = System.nanoTime();
+            ImportResult result;
+
+            try (InputStream csv = Files.newInputStream(file)) {
+                result = importService.importCsv(table, csv);
+            }
+
+            log.info(
+                    "Imported {} rows into table {} in {} ms, {} rows failed",
+                    result.importedRows(),
+                    table.table(),
+                    (System.nanoTime() - start) / 1_000_000,
+                    result.failedRows()
+            );
+            result.errors().forEach(error -> log.warn("{}.csv row {}: {}", table.table(), error.row(), error.message()));
+            failedRows += result.failedRows();
+        }
+
+        int exitCode = failedRows > 0 ? 1 : 0;
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+}
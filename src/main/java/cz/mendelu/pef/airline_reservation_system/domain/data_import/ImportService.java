@@ -0,0 +1,339 @@
+package cz.mendelu.pef.airline_reservation_system.domain.data_import;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftService;
+import cz.mendelu.pef.airline_reservation_system.domain.airport.AirportService;
+import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariffService;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRouteGraph;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.ScheduledFlightIndex;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.SeatReservations;
+import cz.mendelu.pef.airline_reservation_system.domain.reports.ReportsStore;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Imports CSV files row by row: every row is validated by the constraints of the request of the table
+ * and valid rows are inserted in JDBC batches, so the file is never loaded whole and rows skip the persistence context.
+ * <p>
+ * Invalid rows are reported and skipped, they don't stop the import. Imported rows bypass JPA entity listeners,
+ * so the stores derived from flights and tickets are invalidated afterwards.
+ */
+@Service
+public class ImportService {
+
+    public static final int BATCH_SIZE = 1000;
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Format of `COPY ... TO` of Postgres used by `db_data`, e.g. `2017-08-16 09:25:00.000000 +00:00`
+    private static final DateTimeFormatter POSTGRES_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss[.SSSSSS] xxx");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    private final ReportsStore reportsStore;
+
+    private final ScheduledFlightIndex scheduledFlightIndex;
+
+    private final FlightRouteGraph flightRouteGraph;
+
+    private final AircraftService aircraftService;
+
+    private final AirportService airportService;
+
+    private final FareTariffService fareTariffService;
+
+    private final SeatReservations seatReservations;
+
+    public ImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            Validator validator,
+            ObjectMapper objectMapper,
+            ReportsStore reportsStore,
+            ScheduledFlightIndex scheduledFlightIndex,
+            FlightRouteGraph flightRouteGraph,
+            AircraftService aircraftService,
+            AirportService airportService,
+            FareTariffService fareTariffService,
+            SeatReservations seatReservations
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper
+                .copy()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .registerModule(new SimpleModule().addDeserializer(OffsetDateTime.class, new TimestampDeserializer()));
+        this.reportsStore = reportsStore;
+        this.scheduledFlightIndex = scheduledFlightIndex;
+        this.flightRouteGraph = flightRouteGraph;
+        this.aircraftService = aircraftService;
+        this.airportService = airportService;
+        this.fareTariffService = fareTariffService;
+        this.seatReservations = seatReservations;
+    }
+
+    public <R> ImportResult importCsv(ImportTable<R> table, InputStream csv) throws IOException {
+        ImportContext context = new ImportContext(jdbcTemplate);
+        Progress progress = new Progress();
+        List<ImportRow> batch = new ArrayList<>(BATCH_SIZE);
+        String insertSql = null;
+        boolean withId = false;
+        long rowNumber = 0;
+
+        try (MappingIterator<Map<String, String>> rows = csvMapper
+                .readerForMapOf(String.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(csv)) {
+            while (rows.hasNext()) {
+                rowNumber++;
+                Map<String, String> row;
+
+                try {
+                    row = rows.next();
+                } catch (RuntimeException e) {
+                    // Rest of a malformed file cannot be trusted
+                    progress.fail(rowNumber, "Malformed CSV: " + e.getMessage());
+                    break;
+                }
+
+                // All rows have the same columns, so the header decides, whether ids are imported
+                if (insertSql == null) {
+                    withId = row.containsKey("id") || !table.serialId();
+                    insertSql = getInsertSql(table, withId);
+                }
+
+                try {
+                    batch.add(new ImportRow(rowNumber, toValues(table, row, context)));
+                } catch (InvalidRowException e) {
+                    progress.fail(rowNumber, e.getMessage());
+                }
+
+                if (batch.size() == BATCH_SIZE) {
+                    insert(insertSql, withId, batch, progress);
+                    batch.clear();
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            insert(insertSql, withId, batch, progress);
+        }
+
+        afterImport(table, context, withId);
+
+        return new ImportResult(table.table(), progress.importedRows, progress.failedRows, progress.errors);
+    }
+
+    private <R> Object[] toValues(ImportTable<R> table, Map<String, String> csvRow, ImportContext context) {
+        Map<String, String> row = new HashMap<>();
+
+        // Empty values are nulls, otherwise e.g. empty strings would pass as missing numbers
+        csvRow.forEach((column, value) -> {
+            if (value != null && !value.isBlank()) {
+                row.put(column, value);
+            }
+        });
+
+        Map<String, String> properties = new HashMap<>(row);
+        table.columnAliases().forEach((column, property) -> {
+            if (row.containsKey(column)) {
+                properties.put(property, row.get(column));
+            }
+        });
+
+        R request;
+
+        try {
+            request = objectMapper.convertValue(properties, table.requestType());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRowException("Invalid value: " + e.getMessage().lines().findFirst().orElse(""));
+        }
+
+        Set<ConstraintViolation<R>> violations = validator.validate(request);
+
+        if (!violations.isEmpty()) {
+            throw new InvalidRowException(violations
+                    .stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+
+        Object[] values = table.values().get(request, row, context);
+        Object[] valuesWithId = new Object[values.length + 1];
+        System.arraycopy(values, 0, valuesWithId, 1, values.length);
+        valuesWithId[0] = parseId(table, row.get("id"));
+
+        return valuesWithId;
+    }
+
+    private static Object parseId(ImportTable<?> table, String id) {
+        try {
+            if (table.serialId()) {
+                return id != null ? Long.valueOf(id) : null;
+            }
+
+            return id != null ? UUID.fromString(id) : UUID.randomUUID();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRowException("id: invalid value " + id);
+        }
+    }
+
+    private static String getInsertSql(ImportTable<?> table, boolean withId) {
+        List<String> columns = new ArrayList<>();
+
+        if (withId) {
+            columns.add("id");
+        }
+
+        columns.addAll(table.columns());
+
+        return "INSERT INTO %s (%s) VALUES (%s)".formatted(
+                table.table(),
+                columns.stream().map(column -> column.equals("class") ? "\"class\"" : column).collect(Collectors.joining(", ")),
+                columns.stream().map(column -> "?").collect(Collectors.joining(", "))
+        );
+    }
+
+    private void insert(String insertSql, boolean withId, List<ImportRow> batch, Progress progress) {
+        List<Object[]> batchValues = batch
+                .stream()
+                .map(row -> withId ? row.values() : dropId(row.values()))
+                .toList();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(insertSql, batchValues));
+            progress.importedRows += batch.size();
+        } catch (DataAccessException e) {
+            // One invalid row (duplicate id, missing referenced row, ...) rolls back the whole batch,
+            // so the rows are inserted one by one to import the valid ones and report the invalid ones
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    jdbcTemplate.update(insertSql, batchValues.get(i));
+                    progress.importedRows++;
+                } catch (DataAccessException rowException) {
+                    String message = rowException.getMostSpecificCause().getMessage();
+                    progress.fail(batch.get(i).rowNumber(), message.lines().findFirst().orElse(message));
+                }
+            }
+        }
+    }
+
+    private static Object[] dropId(Object[] values) {
+        Object[] valuesWithoutId = new Object[values.length - 1];
+        System.arraycopy(values, 1, valuesWithoutId, 0, valuesWithoutId.length);
+
+        return valuesWithoutId;
+    }
+
+    private void afterImport(ImportTable<?> table, ImportContext context, boolean idsImported) {
+        if (idsImported && table.serialId()) {
+            // Continue the sequence after the imported ids, otherwise next inserts of the app would fail
+            jdbcTemplate.execute(
+                    "SELECT setval(pg_get_serial_sequence('%1$s', 'id'), (SELECT MAX(id) FROM %1$s))".formatted(table.table())
+            );
+        }
+
+        if (!context.getTicketFlightIds().isEmpty()) {
+            // Sold seat counters are maintained by the app, the import bypasses it
+            jdbcTemplate.batchUpdate(
+                    """
+                    UPDATE flight SET
+                        business_sold_seats = (SELECT COUNT(*) FROM ticket WHERE ticket.flight_id = flight.id AND ticket.class = 'Business'),
+                        premium_sold_seats = (SELECT COUNT(*) FROM ticket WHERE ticket.flight_id = flight.id AND ticket.class = 'Premium'),
+                        economy_sold_seats = (SELECT COUNT(*) FROM ticket WHERE ticket.flight_id = flight.id AND ticket.class = 'Economy')
+                    WHERE id = ?
+                    """,
+                    context.getTicketFlightIds().stream().map(id -> new Object[]{id}).toList()
+            );
+        }
+
+        // Imported rows bypass entity listeners, which keep the stores up to date
+        reportsStore.invalidate();
+        scheduledFlightIndex.invalidate();
+        flightRouteGraph.invalidate();
+
+        if (table == ImportTable.AIRCRAFTS) {
+            aircraftService.getAircraftCache().invalidate();
+        } else if (table == ImportTable.AIRPORTS) {
+            airportService.invalidateAirportCatalogue();
+            airportService.invalidateDistanceCache();
+        } else if (table == ImportTable.FARE_TARIFFS) {
+            fareTariffService.getFareTariffCache().invalidate();
+        } else if (table == ImportTable.TICKETS) {
+            seatReservations.evictAll();
+        }
+    }
+
+    private record ImportRow(long rowNumber, Object[] values) {
+    }
+
+    private static class Progress {
+
+        long importedRows;
+
+        long failedRows;
+
+        final List<ImportError> errors = new ArrayList<>();
+
+        void fail(long rowNumber, String message) {
+            failedRows++;
+
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportError(rowNumber, message));
+            }
+        }
+    }
+
+    /**
+     * Reads ISO timestamps of the API as well as timestamps exported by Postgres.
+     */
+    private static class TimestampDeserializer extends JsonDeserializer<OffsetDateTime> {
+
+        @Override
+        public OffsetDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String text = parser.getValueAsString().trim();
+
+            try {
+                return OffsetDateTime.parse(text);
+            } catch (DateTimeParseException e) {
+                return OffsetDateTime.parse(text, POSTGRES_TIMESTAMP);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package cz.mendelu.pef.airline_reservation_system.domain.data_import;
+
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftRequest;
+import cz.mendelu.pef.airline_reservation_system.domain.airport.AirportRequest;
+import cz.mendelu.pef.airline_reservation_system.domain.customer.CustomerRequest;
+import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariffRequest;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRequest;
+import cz.mendelu.pef.airline_reservation_system.domain.ticket.TicketRequest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Import of one table: request, whose constraints every CSV row must satisfy, and columns inserted from a valid row.
+ * <p>
+ * CSV files have a header with the names of the columns, e.g. files in `db_data`. Column `id` is optional,
+ * if it's missing, ids are generated.
+ *
+ * @param table name of the table, files in `db_data` are named by it
+ * @param requestType request of the API, CSV columns are its JSON properties
+ * @param columnAliases CSV columns named differently than the JSON properties of the request
+ * @param columns inserted columns except `id`
+ * @param serialId true, if ids are numbers generated by the database, UUIDs otherwise
+ * @param values values of the columns of a valid row
+ */
+public record ImportTable<R>(
+        String table,
+        Class<R> requestType,
+        Map<String, String> columnAliases,
+        List<String> columns,
+        boolean serialId,
+        RowValues<R> values
+) {
+
+    public static final ImportTable<AircraftRequest> AIRCRAFTS = new ImportTable<>(
+            "aircraft",
+            AircraftRequest.class,
+            Map.of(),
+            List.of("code", "model", "business_capacity", "premium_capacity", "economy_capacity"),
+            true,
+            (request, row, context) -> new Object[]{
+                    request.getCode(),
+                    request.getModel(),
+                    request.getBusinessCapacity(),
+                    request.getPremiumCapacity(),
+                    request.getEconomyCapacity()
+            }
+    );
+
+    public static final ImportTable<AirportRequest> AIRPORTS = new ImportTable<>(
+            "airport",
+            AirportRequest.class,
+            Map.of(),
+            List.of("code", "name", "country_code", "region_code", "municipality", "gps_code", "latitude", "longitude"),
+            true,
+            (request, row, context) -> new Object[]{
+                    request.getCode(),
+                    request.getName(),
+                    request.getCountryCode(),
+                    request.getRegionCode(),
+                    request.getMunicipality(),
+                    request.getGpsCode(),
+                    request.getLatitude(),
+                    request.getLongitude()
+            }
+    );
+
+    public static final ImportTable<FareTariffRequest> FARE_TARIFFS = new ImportTable<>(
+            "fare_tariff",
+            FareTariffRequest.class,
+            Map.of(),
+            List.of("code", "business_price", "premium_price", "economy_price"),
+            true,
+            (request, row, context) -> new Object[]{
+                    request.getCode(),
+                    request.getBusinessPrice(),
+                    request.getPremiumPrice(),
+                    request.getEconomyPrice()
+            }
+    );
+
+    public static final ImportTable<CustomerRequest> CUSTOMERS = new ImportTable<>(
+            "customer",
+            CustomerRequest.class,
+            Map.of(),
+            List.of("first_name", "last_name", "credit", "phone", "email", "password"),
+            false,
+            (request, row, context) -> new Object[]{
+                    request.getFirstName(),
+                    request.getLastName(),
+                    request.getCredit(),
+                    request.getPhone(),
+                    request.getEmail(),
+                    request.getPassword()
+            }
+    );
+
+    // Existence of the aircraft, airports and fare tariff is checked by foreign keys
+    public static final ImportTable<FlightRequest> FLIGHTS = new ImportTable<>(
+            "flight",
+            FlightRequest.class,
+            Map.of(),
+            List.of(
+                    "number", "departure", "arrival", "status", "delay",
+                    "aircraft_id", "airport_departure_id", "airport_arrival_id", "fare_tariff_id"
+            ),
+            true,
+            (request, row, context) -> new Object[]{
+                    request.getNumber(),
+                    request.getDeparture(),
+                    request.getArrival(),
+                    request.getStatus(),
+                    request.getDelay(),
+                    request.getAircraftId(),
+                    request.getAirportDepartureId(),
+                    request.getAirportArrivalId(),
+                    request.getFareTariffId()
+            }
+    );
+
+    // Like `TicketRequest.toTicket`, price is taken from the fare tariff of the flight, unless it's in the file,
+    // departure and arrival are always copied from the flight
+    public static final ImportTable<TicketRequest> TICKETS = new ImportTable<>(
+            "ticket",
+            TicketRequest.class,
+            Map.of("flight_id", "flightId", "customer_id", "customerId"),
+            List.of(
+                    "number", "class", "price", "discount", "price_after_discount", "seat_number",
+                    "passenger_full_name", "departure", "arrival", "flight_id", "customer_id"
+            ),
+            true,
+            (request, row, context) -> {
+                FlightFare flightFare = context.getFlightFare(request.getFlightId());
+                Double price = parseDouble(row, "price", flightFare.getPriceByTicketClass(request.getTicketClass()));
+                Double discount = parseDouble(row, "discount", 0.0);
+
+                return new Object[]{
+                        request.getNumber(),
+                        request.getTicketClass().name(),
+                        price,
+                        discount,
+                        parseDouble(row, "price_after_discount", price - discount),
+                        request.getSeatNumber(),
+                        request.getPassengerFullName(),
+                        flightFare.departure(),
+                        flightFare.arrival(),
+                        request.getFlightId(),
+                        request.getCustomerId()
+                };
+            }
+    );
+
+    /**
+     * All tables, referenced tables go first.
+     */
+    public static final List<ImportTable<?>> ALL = List.of(AIRCRAFTS, AIRPORTS, FARE_TARIFFS, CUSTOMERS, FLIGHTS, TICKETS);
+
+    @FunctionalInterface
+    public interface RowValues<R> {
+
+        /**
+         * @param row values of the CSV row by column, empty values are null
+         * @throws InvalidRowException if the row cannot be imported
+         */
+        Object[] get(R request, Map<String, String> row, ImportContext context);
+    }
+
+    private static Double parseDouble(Map<String, String> row, String column, Double defaultValue) {
+        String value = row.get(column);
+
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRowException(column + ": must be a number");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package cz.mendelu.pef.airline_reservation_system.domain.data_import;
+
+/**
+ * Row cannot be imported, the message is reported as the error of the row.
+ */
+class InvalidRowException extends RuntimeException {
+
+    InvalidRowException(String message) {
+        super(message);
+    }
+}
@@ -20,7 +20,8 @@ import static cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass.
 public class FareTariff {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fare_tariff_id_seq")
+    @SequenceGenerator(name = "fare_tariff_id_seq", sequenceName = "fare_tariff_id_seq", allocationSize = 50)
     private Long id;
 
     @NotEmpty
@@ -1,6 +1,5 @@
 package cz.mendelu.pef.airline_reservation_system.domain.fare_tariff;
 
-import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
 import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightService;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.MissingFareTariffReplacementException;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.NotFoundException;
@@ -19,8 +18,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("fare_tariffs")
 @Validated
@@ -105,7 +102,7 @@ public class FareTariffController {
             @RequestBody @Valid FareTariffRequest request
     ) {
         FareTariff fareTariff = fareTariffService
-                .getFareTariffById(id)
+                .getFareTariffByIdForUpdate(id)
                 .orElseThrow(NotFoundException::new);
         request.toFareTariff(fareTariff);
 
@@ -137,20 +134,18 @@ public class FareTariffController {
                     description = "Fare tariff replacement id must be provided, if fare tariff is used by at least one flight")
             @RequestParam(required = false) Long replacementId
     ) {
-        List<Flight> flights = flightService.getAllFlightsByFareTariffId(id);
+        FareTariff fareTariffReplacement = null;
 
-        if (!flights.isEmpty()) {
+        if (flightService.isFareTariffUsed(id)) {
             if (replacementId == null) {
                 throw new MissingFareTariffReplacementException();
             }
 
-            FareTariff fareTariffReplacement = fareTariffService
+            fareTariffReplacement = fareTariffService
                     .getFareTariffById(replacementId)
                     .orElseThrow(NotFoundException::new);
-
-            flightService.setFareTariff(fareTariffReplacement, flights);
         }
 
-        fareTariffService.deleteFareTariffById(id);
+        fareTariffService.deleteFareTariffById(id, fareTariffReplacement);
     }
 }
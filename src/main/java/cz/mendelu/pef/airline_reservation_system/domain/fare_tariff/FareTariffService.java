@@ -1,6 +1,10 @@
 package cz.mendelu.pef.airline_reservation_system.domain.fare_tariff;
 
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightService;
+import cz.mendelu.pef.airline_reservation_system.utils.cache.ReferenceDataCache;
+import cz.mendelu.pef.airline_reservation_system.utils.transaction.TransactionCallbacks;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,31 +15,95 @@ public class FareTariffService {
 
     private FareTariffRepository fareTariffRepository;
 
-    FareTariffService(FareTariffRepository fareTariffRepository) {
+    private FlightService flightService;
+
+    // There are only a few dozen fare tariffs and they change rarely
+    private final ReferenceDataCache<FareTariff> fareTariffCache;
+
+    FareTariffService(FareTariffRepository fareTariffRepository, FlightService flightService) {
         this.fareTariffRepository = fareTariffRepository;
+        this.flightService = flightService;
+        this.fareTariffCache = new ReferenceDataCache<>(this::loadAllFareTariffs, FareTariff::getId);
     }
 
+    /**
+     * @return cached fare tariffs, the list is read-only
+     */
     public List<FareTariff> getAllFareTariffs() {
-        List<FareTariff> fareTariffs = new ArrayList<>();
-        fareTariffRepository.findAll().forEach(fareTariffs::add);
-
-        return fareTariffs;
+        return fareTariffCache.getAll();
     }
 
+    /**
+     * @return cached fare tariff, shared by all requests, so it must not be changed
+     */
     public Optional<FareTariff> getFareTariffById(Long id) {
+        return fareTariffCache.get(id);
+    }
+
+    /**
+     * @return fare tariff read from the database, not the cached instance, so it can be changed and then updated
+     * by {@link #updateFareTariff(Long, FareTariff)}
+     */
+    public Optional<FareTariff> getFareTariffByIdForUpdate(Long id) {
         return fareTariffRepository.findById(id);
     }
 
     public FareTariff createFareTariff(FareTariff fareTariff) {
-        return fareTariffRepository.save(fareTariff);
+        try {
+            return fareTariffRepository.save(fareTariff);
+        } finally {
+            invalidateFareTariffCache();
+        }
     }
 
     public FareTariff updateFareTariff(Long id, FareTariff fareTariff) {
         fareTariff.setId(id);
-        return fareTariffRepository.save(fareTariff);
+
+        try {
+            return fareTariffRepository.save(fareTariff);
+        } finally {
+            invalidateFareTariffCache();
+        }
     }
 
     public void deleteFareTariffById(Long id) {
-        fareTariffRepository.deleteById(id);
+        try {
+            fareTariffRepository.deleteById(id);
+        } finally {
+            invalidateFareTariffCache();
+        }
+    }
+
+    /**
+     * Moves all flights of the fare tariff to the replacement and deletes the fare tariff in one transaction,
+     * so the flights are never left reassigned to the replacement, if the deletion fails.
+     * @param replacement new fare tariff of the flights or null, if the fare tariff is not used by any flight
+     */
+    @Transactional
+    public void deleteFareTariffById(Long id, FareTariff replacement) {
+        if (replacement != null) {
+            flightService.reassignFareTariff(id, replacement);
+        }
+
+        deleteFareTariffById(id);
+    }
+
+    public ReferenceDataCache<FareTariff> getFareTariffCache() {
+        return fareTariffCache;
+    }
+
+    /**
+     * Inside a transaction the cache is invalidated only after the commit, otherwise a concurrent read could load
+     * the fare tariffs before the commit and cache them again.
+     */
+    private void invalidateFareTariffCache() {
+        TransactionCallbacks.afterCommit(fareTariffCache::invalidate);
+    }
+
+    private List<FareTariff> loadAllFareTariffs() {
+        List<FareTariff> fareTariffs = new ArrayList<>();
+        fareTariffRepository.findAll().forEach(fareTariffs::add);
+
+        return fareTariffs;
     }
 }
@@ -3,7 +3,9 @@ package cz.mendelu.pef.airline_reservation_system.domain.flight;
 import cz.mendelu.pef.airline_reservation_system.domain.aircraft.Aircraft;
 import cz.mendelu.pef.airline_reservation_system.domain.airport.Airport;
 import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariff;
+import cz.mendelu.pef.airline_reservation_system.domain.reports.ReportsStoreListener;
 import cz.mendelu.pef.airline_reservation_system.domain.ticket.Ticket;
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -19,10 +21,12 @@ import java.util.Set;
 @Entity
 @Data
 @NoArgsConstructor
+@EntityListeners({ReportsStoreListener.class, ScheduledFlightIndexListener.class, FlightRouteGraphListener.class})
 public class Flight {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "flight_id_seq")
+    @SequenceGenerator(name = "flight_id_seq", sequenceName = "flight_id_seq", allocationSize = 50)
     private Long id;
 
     @NotEmpty
@@ -62,6 +66,33 @@ public class Flight {
     @ManyToOne
     private FareTariff fareTariff;
 
+    // Sold seat counters are changed only by conditional updates in `FlightRepository`, never by saving the flight.
+    // They are null, if the flight was not loaded from the database.
+    @Column(name = "business_sold_seats", insertable = false, updatable = false)
+    private Integer businessSoldSeats;
+
+    @Column(name = "premium_sold_seats", insertable = false, updatable = false)
+    private Integer premiumSoldSeats;
+
+    @Column(name = "economy_sold_seats", insertable = false, updatable = false)
+    private Integer economySoldSeats;
+
+    public Integer getSoldSeatsByTicketClass(TicketClass ticketClass) {
+        return switch (ticketClass) {
+            case Business -> this.businessSoldSeats;
+            case Premium -> this.premiumSoldSeats;
+            case Economy -> this.economySoldSeats;
+        };
+    }
+
+    public void setSoldSeatsByTicketClass(TicketClass ticketClass, Integer soldSeats) {
+        switch (ticketClass) {
+            case Business -> this.businessSoldSeats = soldSeats;
+            case Premium -> this.premiumSoldSeats = soldSeats;
+            case Economy -> this.economySoldSeats = soldSeats;
+        }
+    }
+
     @PreRemove
     public void detachAll() {
         if (aircraft != null) {
@@ -3,8 +3,12 @@ package cz.mendelu.pef.airline_reservation_system.domain.flight;
 import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftService;
 import cz.mendelu.pef.airline_reservation_system.domain.airport.AirportService;
 import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariffService;
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+import cz.mendelu.pef.airline_reservation_system.utils.exceptions.BadRequestException;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.InvalidFlightException;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.NotFoundException;
+import cz.mendelu.pef.airline_reservation_system.utils.export.ExportFormat;
+import cz.mendelu.pef.airline_reservation_system.utils.export.ResponseExporter;
 import cz.mendelu.pef.airline_reservation_system.utils.helpers.ApiErrorDetails;
 import cz.mendelu.pef.airline_reservation_system.utils.response.ArrayResponse;
 import cz.mendelu.pef.airline_reservation_system.utils.response.ObjectResponse;
@@ -19,10 +23,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -32,21 +39,27 @@ import java.util.Map;
 public class FlightController {
 
     private FlightService flightService;
+    private FlightSearchService flightSearchService;
     private AircraftService aircraftService;
     private AirportService airportService;
     private FareTariffService fareTariffService;
+    private ResponseExporter responseExporter;
 
     @Autowired
     FlightController(
             FlightService flightService,
+            FlightSearchService flightSearchService,
             AircraftService aircraftService,
             AirportService airportService,
-            FareTariffService fareTariffService
+            FareTariffService fareTariffService,
+            ResponseExporter responseExporter
     ) {
         this.flightService = flightService;
+        this.flightSearchService = flightSearchService;
         this.aircraftService = aircraftService;
         this.airportService = airportService;
         this.fareTariffService = fareTariffService;
+        this.responseExporter = responseExporter;
     }
 
     @Operation(summary = "Get all flights")
@@ -54,15 +67,77 @@ public class FlightController {
     @Valid
     public ArrayResponse<FlightResponse> getFlights(
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer limit
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Id of the last flight of the previous page; if it's set, page is ignored")
+            @RequestParam(required = false) Long after
     ) {
-        int pageNumber = page != null && page >= 0 ? page : 0;
+        int pageNumber = page != null && page >= 0 && after == null ? page : 0;
         int pageSize = limit != null && limit > 0 ? limit : 100;
         Pageable pageRequest = PageRequest.of(pageNumber, pageSize);
 
         return ArrayResponse.of(
-                flightService.getAllFlights(pageRequest),
-                FlightResponse::new
+                flightService.getAllFlights(after, pageRequest),
+                FlightResponse::new,
+                Flight::getId
+        );
+    }
+
+    @Operation(summary = "Export all flights sorted by id")
+    @GetMapping(value = "/export")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportFlights(
+            @Parameter(description = "Format of the export, `ndjson` (one flight per line) or `csv`")
+            @RequestParam(required = false, defaultValue = "ndjson") String format
+    ) {
+        return responseExporter.export(
+                "flights",
+                ExportFormat.of(format),
+                FlightResponse.class,
+                flightService::streamAllFlightResponses
+        );
+    }
+
+    @Operation(summary = "Search direct and connecting itineraries between two airports")
+    @GetMapping(value = "/search", produces = "application/json")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid search parameters",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorDetails.class)
+                    )
+            )
+    })
+    @Valid
+    public ArrayResponse<ItineraryResponse> searchFlights(
+            @Parameter(description = "Code of the departure airport", example = "BQK")
+            @RequestParam String from,
+            @Parameter(description = "Code of the arrival airport", example = "TKD")
+            @RequestParam String to,
+            @Parameter(description = "Departure day (UTC) of the first flight")
+            @RequestParam LocalDate date,
+            @Parameter(description = "Maximum number of connections, 0 - " + FlightRouteGraph.MAX_STOPS)
+            @RequestParam(required = false, defaultValue = "1") Integer maxStops,
+            @Parameter(description = "Class with available seats on every flight; if it's not set, any class is enough")
+            @RequestParam(required = false) TicketClass ticketClass,
+            @RequestParam(required = false, defaultValue = "1") Integer passengers,
+            @RequestParam(required = false) Integer limit
+    ) {
+        if (from.isBlank() || to.isBlank() || from.equals(to)
+                || maxStops < 0 || maxStops > FlightRouteGraph.MAX_STOPS || passengers < 1) {
+            throw new BadRequestException();
+        }
+
+        int itineraryLimit = limit != null && limit > 0 ? Math.min(limit, 100) : 20;
+
+        return ArrayResponse.of(
+                flightSearchService.searchItineraries(from, to, date, maxStops, ticketClass, passengers, itineraryLimit),
+                ItineraryResponse::new
         );
     }
 
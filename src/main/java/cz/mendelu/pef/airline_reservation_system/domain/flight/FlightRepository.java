@@ -1,27 +1,112 @@
 package cz.mendelu.pef.airline_reservation_system.domain.flight;
 
-import lombok.NonNull;
-import org.springframework.data.domain.Page;
+import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariff;
+import cz.mendelu.pef.airline_reservation_system.domain.reports.FlightReportEntry;
+import cz.mendelu.pef.airline_reservation_system.domain.reports.FlightStatusCount;
+import cz.mendelu.pef.airline_reservation_system.domain.reports.PassengerLoad;
+import cz.mendelu.pef.airline_reservation_system.domain.reports.TicketClassSales;
+import cz.mendelu.pef.airline_reservation_system.utils.export.ResponseExporter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface FlightRepository extends JpaRepository<Flight, Long> {
 
-    @Override
-    @EntityGraph(attributePaths = {"tickets"})
-    @NonNull
-    Page<Flight> findAll(@NonNull Pageable pageable);
+    /**
+     * Flights following the id with at least one unsold seat, decided by the sold seat counters, so no tickets are loaded.
+     * Flights are read-only, so Hibernate keeps no snapshots of them for dirty checking.
+     */
+    @Query("""
+        SELECT f FROM Flight AS f
+        JOIN f.aircraft AS a
+        WHERE f.id > :afterId
+            AND f.businessSoldSeats + f.premiumSoldSeats + f.economySoldSeats
+                < a.businessCapacity + a.premiumCapacity + a.economyCapacity
+        ORDER BY f.id
+    """)
+    @EntityGraph(attributePaths = {"aircraft", "airportDeparture", "airportArrival", "fareTariff"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Slice<Flight> getAvailableFlights(Long afterId, Pageable pageable);
+
+    boolean existsByFareTariff_Id(Long fareTariffId);
+
+    /**
+     * Seat numbers of all tickets of the flight read from the ticket seat number index, so no tickets are loaded.
+     */
+    @Query("SELECT t.seatNumber FROM Ticket AS t WHERE t.flight.id = :flightId AND t.seatNumber IS NOT NULL")
+    List<String> getSeatNumbers(Long flightId);
 
-    Iterable<Flight> getFlightsByFareTariff_IdEquals(Long id);
+    /**
+     * @return id of the aircraft persisted for the flight, changes of the managed flight are not flushed before the query
+     */
+    @Query("SELECT a.id FROM Flight AS f JOIN f.aircraft AS a WHERE f.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    Optional<Long> getPersistedAircraftId(Long id);
+
+    /**
+     * Moves all flights of the fare tariff to the replacement by one UPDATE, so no flights are loaded.
+     * Neither the reports nor the scheduled flight index depend on fare tariffs, so they don't need to be invalidated.
+     * @return number of changed flights
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Flight AS f SET f.fareTariff = :replacement WHERE f.fareTariff.id = :fareTariffId")
+    int reassignFareTariff(Long fareTariffId, FareTariff replacement);
+
+    /**
+     * All flights sorted by id read from a database cursor straight into responses, so no entities are loaded.
+     * Stream must be consumed in a transaction and closed.
+     */
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.flight.FlightResponse(
+            f.id, f.number, f.departure, f.arrival, f.status, f.delay,
+            a.id, departureAirport.id, arrivalAirport.id, ft.id
+        )
+        FROM Flight AS f
+        LEFT JOIN f.aircraft AS a
+        LEFT JOIN f.airportDeparture AS departureAirport
+        LEFT JOIN f.airportArrival AS arrivalAirport
+        LEFT JOIN f.fareTariff AS ft
+        ORDER BY f.id
+    """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ResponseExporter.FETCH_SIZE))
+    Stream<FlightResponse> streamAllFlightResponses();
 
-    @EntityGraph(attributePaths = {"tickets"})
-    @NonNull
-    List<Flight> getFlightsByDepartureGreaterThanEqualAndArrivalLessThan(OffsetDateTime startDate, OffsetDateTime endDate);
+    /**
+     * Atomically adds to the sold seat counter of the ticket class, unless the counter would get
+     * below zero or above the capacity of the class, so no class can be oversold by concurrent bookings.
+     * @param ticketClass name of {@link cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass}
+     * @param seats number of seats to add, negative to remove
+     * @return 1, if the counter was changed, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE flight AS f SET
+            business_sold_seats = f.business_sold_seats + CASE WHEN :ticketClass = 'Business' THEN :seats ELSE 0 END,
+            premium_sold_seats = f.premium_sold_seats + CASE WHEN :ticketClass = 'Premium' THEN :seats ELSE 0 END,
+            economy_sold_seats = f.economy_sold_seats + CASE WHEN :ticketClass = 'Economy' THEN :seats ELSE 0 END
+        FROM aircraft AS a
+        WHERE f.id = :id AND a.id = f.aircraft_id AND (
+            (:ticketClass = 'Business' AND f.business_sold_seats + :seats BETWEEN 0 AND a.business_capacity)
+            OR (:ticketClass = 'Premium' AND f.premium_sold_seats + :seats BETWEEN 0 AND a.premium_capacity)
+            OR (:ticketClass = 'Economy' AND f.economy_sold_seats + :seats BETWEEN 0 AND a.economy_capacity)
+        )
+    """, nativeQuery = true)
+    int addSoldSeats(Long id, String ticketClass, int seats);
 
     @Query("""
         SELECT subquery.flight_id FROM (
@@ -34,4 +119,91 @@ public interface FlightRepository extends JpaRepository<Flight, Long> {
         ) AS subquery
     """)
     List<Long> getTop5FlightIdsByTicketSales(OffsetDateTime startDate, OffsetDateTime endDate);
+
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.reports.TicketClassSales(
+            t.ticketClass, COUNT(t), SUM(t.priceAfterDiscount)
+        )
+        FROM Ticket AS t
+        WHERE t.flight.departure >= :startDate AND t.flight.arrival < :endDate
+        GROUP BY t.ticketClass
+    """)
+    List<TicketClassSales> getTicketClassSales(OffsetDateTime startDate, OffsetDateTime endDate);
+
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.reports.FlightStatusCount(
+            LOWER(f.status), COUNT(f)
+        )
+        FROM Flight AS f
+        WHERE f.departure >= :startDate AND f.arrival < :endDate
+        GROUP BY LOWER(f.status)
+    """)
+    List<FlightStatusCount> getFlightStatusCounts(OffsetDateTime startDate, OffsetDateTime endDate);
+
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.reports.PassengerLoad(
+            COUNT(t.seatNumber),
+            COALESCE(a.businessCapacity + a.premiumCapacity + a.economyCapacity, 0),
+            ad.id, ad.latitude, ad.longitude, aa.id, aa.latitude, aa.longitude
+        )
+        FROM Ticket AS t
+        JOIN t.flight AS f
+        JOIN f.airportDeparture AS ad
+        JOIN f.airportArrival AS aa
+        LEFT JOIN f.aircraft AS a
+        WHERE f.departure >= :startDate AND f.arrival < :endDate
+        GROUP BY f.id, ad.id, ad.latitude, ad.longitude, aa.id, aa.latitude, aa.longitude,
+            a.businessCapacity, a.premiumCapacity, a.economyCapacity
+    """)
+    List<PassengerLoad> getPassengerLoads(OffsetDateTime startDate, OffsetDateTime endDate);
+
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.reports.FlightReportEntry(
+            f.id, f.departure, f.arrival, f.status,
+            COALESCE(a.businessCapacity + a.premiumCapacity + a.economyCapacity, 0),
+            ad.id, ad.latitude, ad.longitude, aa.id, aa.latitude, aa.longitude
+        )
+        FROM Flight AS f
+        LEFT JOIN f.aircraft AS a
+        LEFT JOIN f.airportDeparture AS ad
+        LEFT JOIN f.airportArrival AS aa
+    """)
+    List<FlightReportEntry> getAllFlightReportEntries();
+
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.flight.ScheduledFlightEntry(
+            f.id, f.departure, aa.code, f.status
+        )
+        FROM Flight AS f
+        JOIN f.airportArrival AS aa
+        WHERE LOWER(TRIM(f.status)) = 'scheduled'
+    """)
+    List<ScheduledFlightEntry> getAllScheduledFlightEntries();
+
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRouteEntry(
+            f.id, f.number, ad.code, aa.code, f.departure, f.arrival, f.delay
+        )
+        FROM Flight AS f
+        JOIN f.airportDeparture AS ad
+        JOIN f.airportArrival AS aa
+        WHERE LOWER(TRIM(f.status)) <> 'cancelled'
+    """)
+    List<FlightRouteEntry> getAllFlightRouteEntries();
+
+    /**
+     * Unsold seats of the flights, flights without an aircraft are missing, because they have no seats.
+     */
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.flight.FlightSeatAvailability(
+            f.id,
+            a.businessCapacity - f.businessSoldSeats,
+            a.premiumCapacity - f.premiumSoldSeats,
+            a.economyCapacity - f.economySoldSeats
+        )
+        FROM Flight AS f
+        JOIN f.aircraft AS a
+        WHERE f.id IN :ids
+    """)
+    List<FlightSeatAvailability> getFlightSeatAvailabilities(Collection<Long> ids);
 }
@@ -0,0 +1,58 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+/**
+ * Flight attributes needed by {@link FlightRouteGraph}, departure and arrival already shifted by the delay.
+ */
+public record FlightRouteEntry(
+        Long id,
+        String number,
+        String departureAirportCode,
+        String arrivalAirportCode,
+        Instant departure,
+        Instant arrival
+) {
+
+    public FlightRouteEntry(
+            Long id,
+            String number,
+            String departureAirportCode,
+            String arrivalAirportCode,
+            OffsetDateTime departure,
+            OffsetDateTime arrival,
+            Integer delay
+    ) {
+        this(
+                id,
+                number,
+                departureAirportCode,
+                arrivalAirportCode,
+                departure.toInstant().plusSeconds(delay != null ? delay * 60L : 0),
+                arrival.toInstant().plusSeconds(delay != null ? delay * 60L : 0)
+        );
+    }
+
+    /**
+     * @return entry of the flight or null, if the flight can't be a part of any itinerary,
+     * because it's cancelled or misses its airports or times
+     */
+    public static FlightRouteEntry of(Flight flight) {
+        if (flight.getId() == null || flight.getDeparture() == null || flight.getArrival() == null
+                || flight.getAirportDeparture() == null || flight.getAirportArrival() == null
+                || (flight.getStatus() != null && flight.getStatus().trim().equalsIgnoreCase("Cancelled"))) {
+            return null;
+        }
+
+        return new FlightRouteEntry(
+                flight.getId(),
+                flight.getNumber(),
+                flight.getAirportDeparture().getCode(),
+                flight.getAirportArrival().getCode(),
+                flight.getDeparture(),
+                flight.getArrival(),
+                flight.getDelay()
+        );
+    }
+}
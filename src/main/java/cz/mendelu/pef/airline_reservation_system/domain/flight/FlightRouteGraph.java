@@ -0,0 +1,301 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Time-dependent route graph of all flights, which are not cancelled: airports are the nodes
+ * and every flight is an edge usable only at its departure time.
+ * <p>
+ * Flights are kept sorted by departure per departure airport and per route (pair of airports), so searching
+ * connections reads only the flights departing within the connection window, and the last flight
+ * of an itinerary is looked up directly by its route instead of scanning all departures of the transfer airport.
+ * <p>
+ * Graph is loaded from the database on the first search and then kept up to date by {@link FlightRouteGraphListener}
+ * on every committed change of a flight.
+ */
+@Component
+public class FlightRouteGraph {
+
+    public static final Duration MIN_CONNECTION_TIME = Duration.ofMinutes(45);
+
+    public static final Duration MAX_CONNECTION_TIME = Duration.ofHours(24);
+
+    public static final int MAX_STOPS = 2;
+
+    private static final Comparator<FlightRouteEntry> BY_DEPARTURE = Comparator
+            .comparing(FlightRouteEntry::departure)
+            .thenComparing(FlightRouteEntry::id);
+
+    private static final Comparator<List<FlightRouteEntry>> BY_ARRIVAL = Comparator
+            .comparing((List<FlightRouteEntry> itinerary) -> itinerary.get(itinerary.size() - 1).arrival())
+            .thenComparing(List::size)
+            .thenComparing(itinerary -> itinerary.get(0).departure(), Comparator.reverseOrder());
+
+    private final FlightRepository flightRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, NavigableSet<FlightRouteEntry>> flightsByDepartureCode = new HashMap<>();
+
+    private final Map<Route, NavigableSet<FlightRouteEntry>> flightsByRoute = new HashMap<>();
+
+    private final Map<Long, FlightRouteEntry> flights = new HashMap<>();
+
+    private volatile boolean loaded = false;
+
+    public FlightRouteGraph(FlightRepository flightRepository) {
+        this.flightRepository = flightRepository;
+    }
+
+    /**
+     * Finds itineraries with first flight departing in the time range, connections at the same airport
+     * between {@link #MIN_CONNECTION_TIME} and {@link #MAX_CONNECTION_TIME}, and no airport visited twice.
+     * @param departureFrom earliest departure of the first flight (inclusive)
+     * @param departureTo latest departure of the first flight (exclusive)
+     * @param maxStops 0 for direct flights only, at most {@link #MAX_STOPS}
+     * @param maxItineraries only this many itineraries, which arrive first, are returned
+     * @return flights of the itineraries sorted by arrival, then by number of stops and then by the latest departure
+     */
+    public List<List<FlightRouteEntry>> findItineraries(
+            String departureCode,
+            String arrivalCode,
+            Instant departureFrom,
+            Instant departureTo,
+            int maxStops,
+            int maxItineraries
+    ) {
+        ensureLoaded();
+
+        BestItineraries itineraries = new BestItineraries(maxItineraries);
+
+        lock.readLock().lock();
+        try {
+            for (FlightRouteEntry first : getDepartures(departureCode, departureFrom, departureTo)) {
+                // Flights are sorted by departure, so all following itineraries arrive later
+                if (itineraries.isWorse(first.departure())) {
+                    break;
+                }
+
+                String firstStop = first.arrivalAirportCode();
+
+                if (firstStop.equals(arrivalCode)) {
+                    itineraries.offer(List.of(first));
+                    continue;
+                }
+
+                if (maxStops < 1 || firstStop.equals(departureCode)) {
+                    continue;
+                }
+
+                for (FlightRouteEntry second : getConnections(first, null)) {
+                    if (itineraries.isWorse(second.departure())) {
+                        break;
+                    }
+
+                    String secondStop = second.arrivalAirportCode();
+
+                    if (secondStop.equals(arrivalCode)) {
+                        itineraries.offer(List.of(first, second));
+                    } else if (maxStops >= 2 && !secondStop.equals(departureCode) && !secondStop.equals(firstStop)) {
+                        for (FlightRouteEntry third : getConnections(second, arrivalCode)) {
+                            if (itineraries.isWorse(third.departure())) {
+                                break;
+                            }
+
+                            itineraries.offer(List.of(first, second, third));
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return itineraries.toSortedList();
+    }
+
+    /**
+     * Adds the flight or moves it to the right place, if its airports or times changed.
+     */
+    public void put(FlightRouteEntry flight) {
+        update(() -> {
+            removeEntry(flight.id());
+            addEntry(flight);
+        });
+    }
+
+    public void remove(Long flightId) {
+        update(() -> removeEntry(flightId));
+    }
+
+    /**
+     * Drops the graph, it's loaded again from the database on the next search.
+     * Use it after changes that bypass JPA entity listeners or change airport codes.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            flights.clear();
+            flightsByDepartureCode.clear();
+            flightsByRoute.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private NavigableSet<FlightRouteEntry> getDepartures(String departureCode, Instant from, Instant to) {
+        NavigableSet<FlightRouteEntry> departures = flightsByDepartureCode.get(departureCode);
+
+        return subSet(departures, from, to);
+    }
+
+    /**
+     * @param arrivalCode arrival airport of the connections or null for any airport
+     */
+    private NavigableSet<FlightRouteEntry> getConnections(FlightRouteEntry flight, String arrivalCode) {
+        NavigableSet<FlightRouteEntry> departures = arrivalCode != null
+                ? flightsByRoute.get(new Route(flight.arrivalAirportCode(), arrivalCode))
+                : flightsByDepartureCode.get(flight.arrivalAirportCode());
+
+        return subSet(
+                departures,
+                flight.arrival().plus(MIN_CONNECTION_TIME),
+                flight.arrival().plus(MAX_CONNECTION_TIME).plusNanos(1)
+        );
+    }
+
+    private static NavigableSet<FlightRouteEntry> subSet(NavigableSet<FlightRouteEntry> flights, Instant from, Instant to) {
+        if (flights == null || !from.isBefore(to)) {
+            return Collections.emptyNavigableSet();
+        }
+
+        // Ids are positive, so the bounds precede all flights departing at the same time
+        return flights.subSet(bound(from), true, bound(to), false);
+    }
+
+    private static FlightRouteEntry bound(Instant departure) {
+        return new FlightRouteEntry(0L, null, null, null, departure, departure);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+
+            for (FlightRouteEntry flight : flightRepository.getAllFlightRouteEntries()) {
+                addEntry(flight);
+            }
+
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void update(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addEntry(FlightRouteEntry flight) {
+        flights.put(flight.id(), flight);
+        flightsByDepartureCode
+                .computeIfAbsent(flight.departureAirportCode(), code -> new TreeSet<>(BY_DEPARTURE))
+                .add(flight);
+        flightsByRoute
+                .computeIfAbsent(Route.of(flight), route -> new TreeSet<>(BY_DEPARTURE))
+                .add(flight);
+    }
+
+    private void removeEntry(Long flightId) {
+        FlightRouteEntry previous = flights.remove(flightId);
+
+        if (previous == null) {
+            return;
+        }
+
+        removeFromGroup(flightsByDepartureCode, previous.departureAirportCode(), previous);
+        removeFromGroup(flightsByRoute, Route.of(previous), previous);
+    }
+
+    private static <K> void removeFromGroup(Map<K, NavigableSet<FlightRouteEntry>> groups, K key, FlightRouteEntry flight) {
+        NavigableSet<FlightRouteEntry> group = groups.get(key);
+        group.remove(flight);
+
+        if (group.isEmpty()) {
+            groups.remove(key);
+        }
+    }
+
+    /**
+     * Itineraries, which arrive first, the worst kept itinerary is on the top of the heap, so it's replaced first.
+     */
+    private static class BestItineraries {
+
+        private final int limit;
+
+        private final PriorityQueue<List<FlightRouteEntry>> heap;
+
+        BestItineraries(int limit) {
+            this.limit = Math.max(limit, 0);
+            this.heap = new PriorityQueue<>(Math.max(this.limit, 1), BY_ARRIVAL.reversed());
+        }
+
+        void offer(List<FlightRouteEntry> itinerary) {
+            if (heap.size() < limit) {
+                heap.add(itinerary);
+            } else if (limit > 0 && BY_ARRIVAL.compare(itinerary, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(itinerary);
+            }
+        }
+
+        /**
+         * @return true, if no itinerary continuing by a flight departing at the time can be kept,
+         *         because it would arrive after all kept itineraries
+         */
+        boolean isWorse(Instant departure) {
+            if (heap.size() < limit) {
+                return false;
+            }
+
+            return limit == 0 || departure.isAfter(arrivalOf(heap.peek()));
+        }
+
+        List<List<FlightRouteEntry>> toSortedList() {
+            List<List<FlightRouteEntry>> itineraries = new ArrayList<>(heap);
+            itineraries.sort(BY_ARRIVAL);
+
+            return itineraries;
+        }
+
+        private static Instant arrivalOf(List<FlightRouteEntry> itinerary) {
+            return itinerary.get(itinerary.size() - 1).arrival();
+        }
+    }
+
+    private record Route(String departureCode, String arrivalCode) {
+
+        static Route of(FlightRouteEntry flight) {
+            return new Route(flight.departureAirportCode(), flight.arrivalAirportCode());
+        }
+    }
+}
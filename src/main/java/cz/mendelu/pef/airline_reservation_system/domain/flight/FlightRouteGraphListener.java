@@ -0,0 +1,51 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import cz.mendelu.pef.airline_reservation_system.domain.airport.Airport;
+import cz.mendelu.pef.airline_reservation_system.utils.transaction.TransactionCallbacks;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link FlightRouteGraph} up to date with the persisted flights.
+ * Changes are applied only after the transaction is committed.
+ */
+@Component
+public class FlightRouteGraphListener {
+
+    private final ObjectProvider<FlightRouteGraph> flightRouteGraph;
+
+    public FlightRouteGraphListener(ObjectProvider<FlightRouteGraph> flightRouteGraph) {
+        this.flightRouteGraph = flightRouteGraph;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (entity instanceof Flight flight) {
+            Long flightId = flight.getId();
+            FlightRouteEntry entry = FlightRouteEntry.of(flight);
+
+            // Cancelled flight is removed from the graph
+            TransactionCallbacks.afterCommit(() -> {
+                if (entry != null) {
+                    flightRouteGraph.getObject().put(entry);
+                } else {
+                    flightRouteGraph.getObject().remove(flightId);
+                }
+            });
+        } else if (entity instanceof Airport) {
+            TransactionCallbacks.afterCommit(() -> flightRouteGraph.getObject().invalidate());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Flight flight) {
+            Long flightId = flight.getId();
+            TransactionCallbacks.afterCommit(() -> flightRouteGraph.getObject().remove(flightId));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+@Service
+public class FlightSearchService {
+
+    public static final int MAX_ITINERARIES = 1000;
+
+    // Seats are read for this many itineraries at once, until there are enough itineraries with available seats
+    private static final int SEAT_LOOKUP_BATCH_SIZE = 100;
+
+    private final FlightRouteGraph flightRouteGraph;
+
+    private final FlightRepository flightRepository;
+
+    public FlightSearchService(FlightRouteGraph flightRouteGraph, FlightRepository flightRepository) {
+        this.flightRouteGraph = flightRouteGraph;
+        this.flightRepository = flightRepository;
+    }
+
+    /**
+     * Finds itineraries from one airport to another with the first flight departing on the day (UTC)
+     * and enough available seats on every flight.
+     * @param ticketClass class of the passengers or null for any class
+     * @return itineraries sorted by arrival, then by number of stops and then by the latest departure
+     */
+    public List<Itinerary> searchItineraries(
+            String departureCode,
+            String arrivalCode,
+            LocalDate date,
+            int maxStops,
+            TicketClass ticketClass,
+            int passengers,
+            int limit
+    ) {
+        List<List<FlightRouteEntry>> candidates = flightRouteGraph.findItineraries(
+                departureCode,
+                arrivalCode,
+                date.atStartOfDay().toInstant(ZoneOffset.UTC),
+                date.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC),
+                Math.min(maxStops, FlightRouteGraph.MAX_STOPS),
+                MAX_ITINERARIES
+        );
+
+        List<Itinerary> itineraries = new ArrayList<>(Math.min(limit, candidates.size()));
+        Map<Long, FlightSeatAvailability> seats = new HashMap<>();
+
+        for (int from = 0; from < candidates.size() && itineraries.size() < limit; from += SEAT_LOOKUP_BATCH_SIZE) {
+            List<List<FlightRouteEntry>> batch = candidates.subList(from, Math.min(from + SEAT_LOOKUP_BATCH_SIZE, candidates.size()));
+            loadSeatAvailabilities(batch, seats);
+
+            for (List<FlightRouteEntry> candidate : batch) {
+                List<Itinerary.Leg> legs = new ArrayList<>(candidate.size());
+
+                for (FlightRouteEntry flight : candidate) {
+                    FlightSeatAvailability flightSeats = seats.get(flight.id());
+
+                    if (flightSeats == null || !flightSeats.hasAvailableSeats(ticketClass, passengers)) {
+                        break;
+                    }
+
+                    legs.add(new Itinerary.Leg(flight, flightSeats));
+                }
+
+                if (legs.size() == candidate.size()) {
+                    itineraries.add(new Itinerary(legs));
+
+                    if (itineraries.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        return itineraries;
+    }
+
+    /**
+     * Reads available seats of the flights, which are not read yet, by one query.
+     */
+    private void loadSeatAvailabilities(List<List<FlightRouteEntry>> itineraries, Map<Long, FlightSeatAvailability> seats) {
+        Set<Long> flightIds = new HashSet<>();
+
+        for (List<FlightRouteEntry> itinerary : itineraries) {
+            for (FlightRouteEntry flight : itinerary) {
+                if (!seats.containsKey(flight.id())) {
+                    flightIds.add(flight.id());
+                }
+            }
+        }
+
+        if (flightIds.isEmpty()) {
+            return;
+        }
+
+        for (FlightSeatAvailability flightSeats : flightRepository.getFlightSeatAvailabilities(flightIds)) {
+            seats.put(flightSeats.id(), flightSeats);
+        }
+
+        // Flights without an aircraft or deleted since the search have no seats
+        for (Long flightId : flightIds) {
+            seats.putIfAbsent(flightId, new FlightSeatAvailability(flightId, 0, 0, 0));
+        }
+    }
+}
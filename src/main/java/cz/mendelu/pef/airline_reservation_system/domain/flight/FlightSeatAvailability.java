@@ -0,0 +1,41 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+
+/**
+ * Unsold seats of a flight by ticket class, read from the sold seat counters.
+ */
+public record FlightSeatAvailability(
+        Long id,
+        Integer businessSeats,
+        Integer premiumSeats,
+        Integer economySeats
+) {
+
+    public int getAvailableSeats(TicketClass ticketClass) {
+        Integer seats = switch (ticketClass) {
+            case Business -> businessSeats;
+            case Premium -> premiumSeats;
+            case Economy -> economySeats;
+        };
+
+        return seats != null ? seats : 0;
+    }
+
+    /**
+     * @param ticketClass class of the passengers or null for any class
+     */
+    public boolean hasAvailableSeats(TicketClass ticketClass, int passengers) {
+        if (ticketClass != null) {
+            return getAvailableSeats(ticketClass) >= passengers;
+        }
+
+        for (TicketClass anyTicketClass : TicketClass.values()) {
+            if (getAvailableSeats(anyTicketClass) >= passengers) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
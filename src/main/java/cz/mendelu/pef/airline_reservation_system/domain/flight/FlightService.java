@@ -1,17 +1,23 @@
 package cz.mendelu.pef.airline_reservation_system.domain.flight;
 
-import cz.mendelu.pef.airline_reservation_system.domain.aircraft.Aircraft;
 import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftService;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.CabinLayout;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.SeatCodec;
 import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariff;
 import cz.mendelu.pef.airline_reservation_system.domain.ticket.Ticket;
 import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.InvalidFlightException;
+import cz.mendelu.pef.airline_reservation_system.utils.exceptions.SeatIsNotAvailableException;
+import cz.mendelu.pef.airline_reservation_system.utils.metrics.MetricNames;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-
-import static java.lang.Integer.parseInt;
+import java.util.stream.Stream;
 
 @Service
 public class FlightService {
@@ -20,42 +26,29 @@ public class FlightService {
 
     private AircraftService aircraftService;
 
-    public FlightService(FlightRepository flightRepository, AircraftService aircraftService) {
+    private SeatReservations seatReservations;
+
+    public FlightService(FlightRepository flightRepository, AircraftService aircraftService, SeatReservations seatReservations) {
         this.flightRepository = flightRepository;
         this.aircraftService = aircraftService;
+        this.seatReservations = seatReservations;
     }
 
-    public List<Flight> getAllFlights(Pageable pageRequest) {
-        var flights = flightRepository
-                .findAll(pageRequest)
-                .getContent();
-
-        return flights.stream().filter(fl -> {
-            Aircraft aircraft = fl.getAircraft();
-
-            if (aircraft == null) {
-                return false;
-            }
-
-            var ticketTotalNumber = fl.getTickets().size();
-            var aircraftTotalCapacityNumber = aircraft.getBusinessCapacity()
-                    + aircraft.getPremiumCapacity() + aircraft.getEconomyCapacity();
-
-            // Return only available flights
-            return ticketTotalNumber < aircraftTotalCapacityNumber;
-        }).toList();
+    /**
+     * @param afterId id of the last flight of the previous page or null for the first page
+     * @return available flights sorted by id
+     */
+    @Transactional(readOnly = true)
+    public Slice<Flight> getAllFlights(Long afterId, Pageable pageRequest) {
+        // Return only available flights, ids are positive, so 0 precedes the first flight
+        return flightRepository.getAvailableFlights(afterId != null ? afterId : 0L, pageRequest);
     }
 
     /**
-     *
-     * @param id - id of existing fare tariff
-     * @return list of all flights associating with the fare tariff. NOTE: it's not paginated.
+     * @return all flights sorted by id, including full ones, the stream must be consumed in a transaction and closed
      */
-    public List<Flight> getAllFlightsByFareTariffId(Long id) {
-        List<Flight> flights = new ArrayList<>();
-        flightRepository.getFlightsByFareTariff_IdEquals(id).forEach(flights::add);
-
-        return flights;
+    public Stream<FlightResponse> streamAllFlightResponses() {
+        return flightRepository.streamAllFlightResponses();
     }
 
     public Optional<Flight> getFlightById(Long id) {
@@ -67,17 +60,35 @@ public class FlightService {
     }
 
     public Flight updateFlight(Long id, Flight flight) {
+        Long persistedAircraftId = flightRepository.getPersistedAircraftId(id).orElse(null);
+        Long aircraftId = flight.getAircraft() != null ? flight.getAircraft().getId() : null;
+
         flight.setId(id);
-        return flightRepository.save(flight);
+        Flight updatedFlight = flightRepository.save(flight);
+
+        // Claims are kept, unless the aircraft (seat layout) was changed
+        if (!Objects.equals(persistedAircraftId, aircraftId)) {
+            seatReservations.evict(id);
+        }
+
+        return updatedFlight;
     }
 
     public void deleteFlightById(Long id) {
         flightRepository.deleteById(id);
+        seatReservations.evict(id);
+    }
+
+    public boolean isFareTariffUsed(Long fareTariffId) {
+        return flightRepository.existsByFareTariff_Id(fareTariffId);
     }
 
-    public void setFareTariff(FareTariff fareTariff, List<Flight> flights) {
-        flights.forEach(fl -> fl.setFareTariff(fareTariff));
-        flightRepository.saveAll(flights);
+    /**
+     * Replaces the fare tariff of all its flights by one statement, no matter how many flights use it.
+     * @return number of changed flights
+     */
+    public int reassignFareTariff(Long fareTariffId, FareTariff replacement) {
+        return flightRepository.reassignFareTariff(fareTariffId, replacement);
     }
 
     public Map<String, List<String>> getAllSeats(Flight flight) {
@@ -85,36 +96,19 @@ public class FlightService {
             throw new InvalidFlightException("Invalid flight or flight doesn't have an assigned aircraft");
         }
 
-        TicketClass[] allTicketClasses = TicketClass.values();
+        CabinLayout layout = CabinLayout.of(flight.getAircraft());
         Map<String, List<String>> ticketClassToSeatNumbers = new HashMap<>();
 
-        for (TicketClass ticketClass : allTicketClasses) {
-            ticketClassToSeatNumbers.put(ticketClass.name(), new ArrayList<>());
-        }
-
-        final Aircraft aircraft = flight.getAircraft();
-        final List<String> allowedSeatLetters = List.of("A", "B", "C", "D", "E", "F");
-
-        int seatRowNumber = 1;
-
-        for (TicketClass currentTicketClass : allTicketClasses) {
-            List<String> currentTicketClassSeatNumbers = ticketClassToSeatNumbers.get(currentTicketClass.name());
-            int currentTicketClassCapacity = aircraft.getCapacityByTicketClass(currentTicketClass);
+        for (TicketClass ticketClass : TicketClass.values()) {
+            int firstSeatPosition = layout.getFirstSeatPosition(ticketClass);
+            int capacity = layout.getCapacity(ticketClass);
+            List<String> seatNumbers = new ArrayList<>(capacity);
 
-            for (int j = 0; j < allowedSeatLetters.size(); j++) {
-                currentTicketClassSeatNumbers.add(seatRowNumber + allowedSeatLetters.get(j));
-
-                // Avoid creating seat numbers that not fit into ticket class capacity
-                if (currentTicketClassSeatNumbers.size() == currentTicketClassCapacity) {
-                    seatRowNumber++;
-                    break;
-                }
-
-                if (j == allowedSeatLetters.size() - 1) {
-                    j = -1;
-                    seatRowNumber++;
-                }
+            for (int seatPosition = firstSeatPosition; seatPosition < firstSeatPosition + capacity; seatPosition++) {
+                seatNumbers.add(SeatCodec.decode(seatPosition));
             }
+
+            ticketClassToSeatNumbers.put(ticketClass.name(), seatNumbers);
         }
 
         return ticketClassToSeatNumbers;
@@ -145,19 +139,51 @@ public class FlightService {
         return ticketClassToSeatNumbers;
     }
 
+    /**
+     * Builds occupancy of all flight seats from the seat claims, which are seeded from its persisted tickets
+     * on the first use. Seats of a flight, which is not persisted, are read from its tickets.
+     */
+    public SeatMap getSeatMap(Flight flight) {
+        if (flight == null || flight.getAircraft() == null) {
+            throw new InvalidFlightException("Invalid flight or flight doesn't have an assigned aircraft");
+        }
+
+        CabinLayout layout = CabinLayout.of(flight.getAircraft());
+
+        if (flight.getId() != null) {
+            return seatReservations.getSeatMap(flight.getId(), layout, () -> getPersistedSeatNumbers(flight));
+        }
+
+        SeatMap seatMap = new SeatMap(layout);
+        getPersistedSeatNumbers(flight).forEach(seatMap::occupy);
+
+        return seatMap;
+    }
+
+    private List<String> getPersistedSeatNumbers(Flight flight) {
+        // Tickets are not loaded just for their seat numbers
+        if (flight.getId() != null && !Hibernate.isInitialized(flight.getTickets())) {
+            return flightRepository.getSeatNumbers(flight.getId());
+        }
+
+        return flight
+                .getTickets()
+                .stream()
+                .filter(ticket -> ticket.getId() != null && ticket.getSeatNumber() != null)
+                .map(Ticket::getSeatNumber)
+                .toList();
+    }
+
+    @Timed(value = MetricNames.FLIGHT_SEATS_AVAILABLE, description = "Listing of available seats of a flight", histogram = true)
     public Map<String, List<String>> getAvailableSeats(Flight flight) {
-        Map<String, List<String>> allSeats = getAllSeats(flight);
-        Map<String, List<String>> occupiedSeats = getOccupiedSeats(flight);
+        SeatMap seatMap = getSeatMap(flight);
+        Map<String, List<String>> ticketClassToSeatNumbers = new HashMap<>();
 
-        allSeats.forEach((ticketClassName, seatNumbers) -> {
-            var availableSeats = seatNumbers
-                    .stream()
-                    .filter(sn -> !occupiedSeats.get(ticketClassName).contains(sn))
-                    .toList();
-            allSeats.put(ticketClassName, availableSeats);
-        });
+        for (TicketClass ticketClass : TicketClass.values()) {
+            ticketClassToSeatNumbers.put(ticketClass.name(), seatMap.getFreeSeats(ticketClass));
+        }
 
-        return allSeats;
+        return ticketClassToSeatNumbers;
     }
 
     public Optional<String> issueSeatNumber(Flight flight, TicketClass ticketClass) {
@@ -169,10 +195,154 @@ public class FlightService {
             return Optional.empty();
         }
 
-        return getAvailableSeats(flight)
-                .get(ticketClass.name())
-                .stream()
-                .findFirst();
+        return getSeatMap(flight).getFirstFreeSeat(ticketClass);
+    }
+
+    /**
+     * Atomically claims the first free seat of the ticket class, so no concurrent booking can get the same seat.
+     * The claim must be released by {@link #releaseSeatNumber(Flight, String)} or by a rollback, if the booking is not saved.
+     */
+    @Timed(value = MetricNames.BOOKING_SEAT_ALLOCATION, description = "Search and claim of seats of bookings", histogram = true)
+    public Optional<String> claimFirstAvailableSeatNumber(Flight flight, TicketClass ticketClass) {
+        if (flight == null || flight.getAircraft() == null) {
+            return Optional.empty();
+        }
+
+        SeatMap seatMap = getSeatMap(flight);
+
+        for (int seatPosition = seatMap.getNextFreeSeatPosition(ticketClass, seatMap.getFirstSeatPosition(ticketClass));
+             seatPosition != SeatCodec.NO_SEAT;
+             seatPosition = seatMap.getNextFreeSeatPosition(ticketClass, seatPosition + 1)) {
+            if (seatReservations.claim(flight.getId(), seatMap, seatPosition)) {
+                return Optional.of(SeatCodec.decode(seatPosition));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Claims seats of all tickets of a group booking over one seat map. Selected seats are validated against
+     * the ticket class, claimed first and stored in the canonical form ("12C"),
+     * tickets without a seat get the first free seats of their ticket class.
+     * If any seat cannot be claimed, the seats claimed so far are released (by the rollback inside a transaction)
+     * and no ticket is changed.
+     * @return true for the tickets, whose seat was selected by the customer, in the order of the tickets
+     */
+    @Timed(value = MetricNames.BOOKING_SEAT_ALLOCATION, description = "Search and claim of seats of bookings", histogram = true)
+    public boolean[] claimSeatNumbers(Flight flight, List<Ticket> tickets) {
+        if (flight == null || flight.getAircraft() == null) {
+            throw new InvalidFlightException("Invalid flight or flight doesn't have an assigned aircraft");
+        }
+
+        SeatMap seatMap = getSeatMap(flight);
+        int[] seatPositions = new int[tickets.size()];
+        boolean[] selectedSeats = new boolean[tickets.size()];
+        Arrays.fill(seatPositions, SeatCodec.NO_SEAT);
+
+        try {
+            for (int i = 0; i < tickets.size(); i++) {
+                Ticket ticket = tickets.get(i);
+
+                if (ticket.getSeatNumber() == null) {
+                    continue;
+                }
+
+                int seatPosition = SeatCodec.encode(ticket.getSeatNumber());
+
+                // Claiming fails also for a seat selected twice in the same booking
+                if (!seatMap.isSeatPositionValid(ticket.getTicketClass(), seatPosition)
+                        || !seatReservations.claim(flight.getId(), seatMap, seatPosition)) {
+                    throw new SeatIsNotAvailableException();
+                }
+
+                seatPositions[i] = seatPosition;
+                selectedSeats[i] = true;
+            }
+
+            // Search of every ticket class continues after the seat assigned to the previous ticket
+            int[] nextSeatPositions = new int[TicketClass.values().length];
+
+            for (TicketClass ticketClass : TicketClass.values()) {
+                nextSeatPositions[ticketClass.ordinal()] = seatMap.getFirstSeatPosition(ticketClass);
+            }
+
+            for (int i = 0; i < tickets.size(); i++) {
+                if (selectedSeats[i]) {
+                    continue;
+                }
+
+                TicketClass ticketClass = tickets.get(i).getTicketClass();
+                int seatPosition = seatMap.getNextFreeSeatPosition(ticketClass, nextSeatPositions[ticketClass.ordinal()]);
+
+                while (seatPosition != SeatCodec.NO_SEAT && !seatReservations.claim(flight.getId(), seatMap, seatPosition)) {
+                    seatPosition = seatMap.getNextFreeSeatPosition(ticketClass, seatPosition + 1);
+                }
+
+                if (seatPosition == SeatCodec.NO_SEAT) {
+                    throw new SeatIsNotAvailableException();
+                }
+
+                seatPositions[i] = seatPosition;
+                nextSeatPositions[ticketClass.ordinal()] = seatPosition + 1;
+            }
+        } catch (RuntimeException e) {
+            // Inside a transaction the rollback releases the seats claimed so far
+            for (int seatPosition : seatPositions) {
+                seatReservations.releaseClaim(flight.getId(), seatPosition);
+            }
+
+            throw e;
+        }
+
+        for (int i = 0; i < tickets.size(); i++) {
+            tickets.get(i).setSeatNumber(SeatCodec.decode(seatPositions[i]));
+        }
+
+        return selectedSeats;
+    }
+
+    /**
+     * Atomically claims the seat, so no concurrent booking can get the same seat.
+     * This method does not validate the seat number against the ticket class!
+     * @return true, if the seat was free and now it's claimed
+     */
+    @Timed(value = MetricNames.BOOKING_SEAT_ALLOCATION, description = "Search and claim of seats of bookings", histogram = true)
+    public boolean claimSeatNumber(Flight flight, String seatNumber) {
+        if (flight == null || flight.getAircraft() == null) {
+            return false;
+        }
+
+        return seatReservations.claim(flight.getId(), getSeatMap(flight), SeatCodec.encode(seatNumber));
+    }
+
+    /**
+     * Releases the seat claimed by a booking, which failed. Inside a transaction the seat is released
+     * by the rollback instead, see {@link SeatReservations#releaseClaim(Long, int)}.
+     */
+    public void releaseSeatNumber(Flight flight, String seatNumber) {
+        if (flight != null) {
+            seatReservations.releaseClaim(flight.getId(), SeatCodec.encode(seatNumber));
+        }
+    }
+
+    /**
+     * Releases the seat that is no longer used by a ticket, once the change is committed.
+     */
+    public void releaseSeatNumberAfterCommit(Flight flight, String seatNumber) {
+        if (flight != null) {
+            seatReservations.releaseAfterCommit(flight.getId(), SeatCodec.encode(seatNumber));
+        }
+    }
+
+    /**
+     * Seats of the flight were sold outside of this instance, e.g. by another instance, so its seat claims are seeded
+     * again from the persisted tickets once the current transaction is completed.
+     */
+    public void refreshSeatNumbersAfterCompletion(Flight flight) {
+        if (flight != null && flight.getId() != null) {
+            seatReservations.evictAfterCompletion(flight.getId());
+        }
     }
 
     public boolean isTicketClassSeatsAvailable(Flight flight, TicketClass ticketClass) {
@@ -185,43 +355,83 @@ public class FlightService {
             return false;
         }
 
-        var tickets = flight.getTickets()
-                .stream()
-                .filter(t -> t.getId() != null && Objects.equals(t.getTicketClass().name(), ticketClass.name()))
-                .toList();
+        Integer soldSeats = flight.getSoldSeatsByTicketClass(ticketClass);
+
+        // Flight was not loaded from the database, so its tickets have to be counted
+        if (soldSeats == null) {
+            soldSeats = (int) flight.getTickets()
+                    .stream()
+                    .filter(t -> t.getId() != null && Objects.equals(t.getTicketClass().name(), ticketClass.name()))
+                    .count();
+        }
 
-        return tickets.size() < aircraft.getCapacityByTicketClass(ticketClass);
+        return soldSeats < aircraft.getCapacityByTicketClass(ticketClass);
     }
 
-    public boolean isSeatNumberValid(Flight flight, TicketClass ticketClass, String seatNumber) {
-        if (seatNumber == null || flight == null || flight.getAircraft() == null) {
+    /**
+     * Atomically counts one more sold seat of the ticket class, unless the class is already sold out,
+     * so concurrent bookings cannot oversell it. Every reserved seat must be released
+     * by {@link #releaseTicketClassSeat(Flight, TicketClass)}, when the ticket is deleted or moved.
+     * @return true, if there was a free seat in the ticket class
+     */
+    public boolean reserveTicketClassSeat(Flight flight, TicketClass ticketClass) {
+        return reserveTicketClassSeats(flight, ticketClass, 1);
+    }
+
+    /**
+     * Same as {@link #reserveTicketClassSeat(Flight, TicketClass)}, but all or none of the seats are reserved.
+     */
+    public boolean reserveTicketClassSeats(Flight flight, TicketClass ticketClass, int seats) {
+        if (flight == null || flight.getAircraft() == null) {
             return false;
         }
 
-        var seatNumberAndLetter = seatNumber.trim().split("(?<=\\d)(?=[A-Z])");
+        Integer soldSeats = flight.getSoldSeatsByTicketClass(ticketClass);
+
+        // Flight without counters is not persisted, there is nothing to update
+        if (flight.getId() == null || soldSeats == null) {
+            return seats == 1 && isTicketClassSeatsAvailable(flight, ticketClass);
+        }
 
-        if (seatNumberAndLetter.length != 2) {
+        if (flightRepository.addSoldSeats(flight.getId(), ticketClass.name(), seats) == 0) {
             return false;
         }
 
-        int number = 0;
-        String letter = seatNumberAndLetter[1].toUpperCase();
-        final List<String> allowedSeatLetters = List.of("A", "B", "C", "D", "E", "F");
+        flight.setSoldSeatsByTicketClass(ticketClass, soldSeats + seats);
+        return true;
+    }
 
-        if (!allowedSeatLetters.contains(letter)) {
-            return false;
+    public void releaseTicketClassSeat(Flight flight, TicketClass ticketClass) {
+        releaseTicketClassSeats(flight, ticketClass, 1);
+    }
+
+    public void releaseTicketClassSeats(Flight flight, TicketClass ticketClass, int seats) {
+        if (flight == null || flight.getId() == null || ticketClass == null) {
+            return;
         }
 
-        try {
-            number = parseInt(seatNumberAndLetter[0]);
-        } catch (NumberFormatException e) {
+        Integer soldSeats = flight.getSoldSeatsByTicketClass(ticketClass);
+
+        if (soldSeats == null) {
+            return;
+        }
+
+        if (flightRepository.addSoldSeats(flight.getId(), ticketClass.name(), -seats) > 0) {
+            flight.setSoldSeatsByTicketClass(ticketClass, Math.max(soldSeats - seats, 0));
+        }
+    }
+
+    /**
+     * @return true, if the seat number exists in the cabin of the ticket class, no matter if it's occupied
+     */
+    public boolean isSeatNumberValid(Flight flight, TicketClass ticketClass, String seatNumber) {
+        if (seatNumber == null || flight == null || flight.getAircraft() == null) {
             return false;
         }
 
-        var startAndEndSeatRowNumbers = aircraftService
-                .getStartAndEndSeatRowNumbers(flight.getAircraft(), ticketClass, allowedSeatLetters.size());
+        int seatPosition = SeatCodec.encode(seatNumber);
 
-        return number >= startAndEndSeatRowNumbers[0] && number <= startAndEndSeatRowNumbers[1];
+        return seatPosition != SeatCodec.NO_SEAT && CabinLayout.of(flight.getAircraft()).getTicketClass(seatPosition) == ticketClass;
     }
 
     /**
@@ -232,12 +442,16 @@ public class FlightService {
             return true;
         }
 
-        var ticketWithSeatNumber = flight.getTickets()
-                .stream()
-                .filter(t -> t.getId() != null && Objects.equals(t.getSeatNumber(), seatNumber.trim()))
-                .findFirst();
+        if (flight.getAircraft() == null) {
+            // Without an aircraft there is no seat map, so compare seat positions directly
+            int seatPosition = SeatCodec.encode(seatNumber);
+
+            return seatPosition != SeatCodec.NO_SEAT && flight.getTickets()
+                    .stream()
+                    .anyMatch(t -> t.getId() != null && SeatCodec.encode(t.getSeatNumber()) == seatPosition);
+        }
 
-        return ticketWithSeatNumber.isPresent();
+        return getSeatMap(flight).isSeatPositionOccupied(SeatCodec.encode(seatNumber));
     }
 
     public void cancelFlight(Flight flight, Double ticketDiscountPercentage) {
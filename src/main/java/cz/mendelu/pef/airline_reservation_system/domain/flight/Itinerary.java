@@ -0,0 +1,16 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import java.util.List;
+
+/**
+ * Flights of one journey in the order they are flown, every flight departing from the arrival airport of the previous one.
+ */
+public record Itinerary(List<Leg> legs) {
+
+    public int stops() {
+        return legs.size() - 1;
+    }
+
+    public record Leg(FlightRouteEntry flight, FlightSeatAvailability seats) {
+    }
+}
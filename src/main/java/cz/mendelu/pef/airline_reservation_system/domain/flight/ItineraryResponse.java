@@ -0,0 +1,95 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class ItineraryResponse {
+
+    @Schema(example = "2017-08-16T09:25:00Z")
+    @NotNull
+    private OffsetDateTime departure;
+
+    @Schema(example = "2017-08-16T18:40:00Z")
+    @NotNull
+    private OffsetDateTime arrival;
+
+    @Schema(description = "Duration from the departure of the first flight to the arrival of the last one", example = "555")
+    @JsonProperty("duration_minutes")
+    @NotNull
+    private Long durationMinutes;
+
+    @Schema(example = "1")
+    @NotNull
+    private Integer stops;
+
+    @NotEmpty
+    private List<FlightLegResponse> flights;
+
+    ItineraryResponse(Itinerary itinerary) {
+        this.flights = itinerary.legs().stream().map(FlightLegResponse::new).toList();
+        this.departure = flights.get(0).getDeparture();
+        this.arrival = flights.get(flights.size() - 1).getArrival();
+        this.durationMinutes = Duration.between(departure, arrival).toMinutes();
+        this.stops = itinerary.stops();
+    }
+
+    @Data
+    public static class FlightLegResponse {
+
+        private Long id;
+
+        @Schema(example = "PG0405")
+        @NotEmpty
+        private String number;
+
+        @Schema(description = "Departure including the delay", example = "2017-08-16T09:25:00Z")
+        @NotNull
+        private OffsetDateTime departure;
+
+        @Schema(description = "Arrival including the delay", example = "2017-08-16T13:25:00Z")
+        @NotNull
+        private OffsetDateTime arrival;
+
+        @Schema(example = "BQK")
+        @JsonProperty("airport_departure_code")
+        @NotEmpty
+        private String airportDepartureCode;
+
+        @Schema(example = "TKD")
+        @JsonProperty("airport_arrival_code")
+        @NotEmpty
+        private String airportArrivalCode;
+
+        @Schema(example = "{ \"Business\": 3, \"Premium\": 15, \"Economy\": 124 }")
+        @JsonProperty("available_seats")
+        @NotNull
+        private Map<TicketClass, Integer> availableSeats = new EnumMap<>(TicketClass.class);
+
+        FlightLegResponse(Itinerary.Leg leg) {
+            FlightRouteEntry flight = leg.flight();
+
+            this.id = flight.id();
+            this.number = flight.number();
+            this.departure = flight.departure().atOffset(ZoneOffset.UTC);
+            this.arrival = flight.arrival().atOffset(ZoneOffset.UTC);
+            this.airportDepartureCode = flight.departureAirportCode();
+            this.airportArrivalCode = flight.arrivalAirportCode();
+
+            for (TicketClass ticketClass : TicketClass.values()) {
+                availableSeats.put(ticketClass, leg.seats().getAvailableSeats(ticketClass));
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Flight attributes needed by {@link ScheduledFlightIndex}.
+ */
+public record ScheduledFlightEntry(
+        Long id,
+        OffsetDateTime departure,
+        String arrivalAirportCode,
+        String status
+) {
+
+    public static ScheduledFlightEntry of(Flight flight) {
+        return new ScheduledFlightEntry(
+                flight.getId(),
+                flight.getDeparture(),
+                flight.getAirportArrival() != null ? flight.getAirportArrival().getCode() : null,
+                flight.getStatus()
+        );
+    }
+
+    public boolean isScheduled() {
+        return status != null && status.trim().equalsIgnoreCase("Scheduled");
+    }
+}
@@ -0,0 +1,200 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Scheduled flights grouped by the code of their arrival airport, every group sorted by departure.
+ * <p>
+ * Index is loaded from the database on the first lookup and then kept up to date by {@link ScheduledFlightIndexListener}
+ * on every committed change of a flight, so lookups only touch the flights they return.
+ */
+@Component
+public class ScheduledFlightIndex {
+
+    private static final Comparator<ScheduledFlightEntry> BY_DEPARTURE = Comparator
+            .comparing(ScheduledFlightEntry::departure)
+            .thenComparing(ScheduledFlightEntry::id);
+
+    private final FlightRepository flightRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, NavigableSet<ScheduledFlightEntry>> flightsByArrivalCode = new HashMap<>();
+
+    private final Map<Long, ScheduledFlightEntry> flights = new HashMap<>();
+
+    private volatile boolean loaded = false;
+
+    public ScheduledFlightIndex(FlightRepository flightRepository) {
+        this.flightRepository = flightRepository;
+    }
+
+    /**
+     * Merges flights arriving at any of the airports into one list sorted by departure and returns one page of it.
+     */
+    public List<Flight> getFlightsByArrivalCodes(Collection<String> arrivalCodes, long offset, int limit) {
+        List<Long> flightIds = getFlightIdsByArrivalCodes(arrivalCodes, offset, limit);
+
+        if (flightIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Flight> flightsById = flightRepository
+                .findAllById(flightIds)
+                .stream()
+                .collect(Collectors.toMap(Flight::getId, Function.identity()));
+
+        // Flight may be deleted since the ids were read
+        return flightIds
+                .stream()
+                .map(flightsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public List<Long> getFlightIdsByArrivalCodes(Collection<String> arrivalCodes, long offset, int limit) {
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            List<Iterator<ScheduledFlightEntry>> iterators = new ArrayList<>();
+            List<ScheduledFlightEntry> heads = new ArrayList<>();
+
+            for (String arrivalCode : new LinkedHashSet<>(arrivalCodes)) {
+                NavigableSet<ScheduledFlightEntry> arrivalFlights = flightsByArrivalCode.get(arrivalCode);
+
+                if (arrivalFlights != null && !arrivalFlights.isEmpty()) {
+                    Iterator<ScheduledFlightEntry> iterator = arrivalFlights.iterator();
+                    iterators.add(iterator);
+                    heads.add(iterator.next());
+                }
+            }
+
+            List<Long> flightIds = new ArrayList<>(Math.min(limit, 100));
+            long skipped = 0;
+
+            // There are only a few favourite destinations, so the smallest head is found by a linear scan
+            while (flightIds.size() < limit && !iterators.isEmpty()) {
+                int min = 0;
+
+                for (int i = 1; i < heads.size(); i++) {
+                    if (BY_DEPARTURE.compare(heads.get(i), heads.get(min)) < 0) {
+                        min = i;
+                    }
+                }
+
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    flightIds.add(heads.get(min).id());
+                }
+
+                if (iterators.get(min).hasNext()) {
+                    heads.set(min, iterators.get(min).next());
+                } else {
+                    iterators.remove(min);
+                    heads.remove(min);
+                }
+            }
+
+            return flightIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the flight, moves it to the right place, if its departure or arrival changed,
+     * or removes it, if it's not scheduled anymore.
+     */
+    public void put(ScheduledFlightEntry flight) {
+        if (flight.id() == null) {
+            return;
+        }
+
+        update(() -> {
+            removeEntry(flight.id());
+
+            if (flight.isScheduled() && flight.departure() != null && flight.arrivalAirportCode() != null) {
+                flights.put(flight.id(), flight);
+                flightsByArrivalCode
+                        .computeIfAbsent(flight.arrivalAirportCode(), code -> new TreeSet<>(BY_DEPARTURE))
+                        .add(flight);
+            }
+        });
+    }
+
+    public void remove(Long flightId) {
+        update(() -> removeEntry(flightId));
+    }
+
+    /**
+     * Drops the index, it's loaded again from the database on the next lookup.
+     * Use it after changes that bypass JPA entity listeners or change airport codes.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            flights.clear();
+            flightsByArrivalCode.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+
+            for (ScheduledFlightEntry flight : flightRepository.getAllScheduledFlightEntries()) {
+                flights.put(flight.id(), flight);
+                flightsByArrivalCode
+                        .computeIfAbsent(flight.arrivalAirportCode(), code -> new TreeSet<>(BY_DEPARTURE))
+                        .add(flight);
+            }
+
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void update(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeEntry(Long flightId) {
+        ScheduledFlightEntry previous = flights.remove(flightId);
+
+        if (previous == null) {
+            return;
+        }
+
+        NavigableSet<ScheduledFlightEntry> arrivalFlights = flightsByArrivalCode.get(previous.arrivalAirportCode());
+        arrivalFlights.remove(previous);
+
+        if (arrivalFlights.isEmpty()) {
+            flightsByArrivalCode.remove(previous.arrivalAirportCode());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import cz.mendelu.pef.airline_reservation_system.domain.airport.Airport;
+import cz.mendelu.pef.airline_reservation_system.utils.transaction.TransactionCallbacks;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link ScheduledFlightIndex} up to date with the persisted flights.
+ * Changes are applied only after the transaction is committed.
+ */
+@Component
+public class ScheduledFlightIndexListener {
+
+    private final ObjectProvider<ScheduledFlightIndex> scheduledFlightIndex;
+
+    public ScheduledFlightIndexListener(ObjectProvider<ScheduledFlightIndex> scheduledFlightIndex) {
+        this.scheduledFlightIndex = scheduledFlightIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (entity instanceof Flight flight) {
+            ScheduledFlightEntry entry = ScheduledFlightEntry.of(flight);
+            TransactionCallbacks.afterCommit(() -> scheduledFlightIndex.getObject().put(entry));
+        } else if (entity instanceof Airport) {
+            TransactionCallbacks.afterCommit(() -> scheduledFlightIndex.getObject().invalidate());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Flight flight) {
+            Long flightId = flight.getId();
+            TransactionCallbacks.afterCommit(() -> scheduledFlightIndex.getObject().remove(flightId));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.CabinLayout;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.SeatCodec;
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Occupancy of all seats of one flight. Every ticket class (cabin) is kept as a bitset,
+ * where bit {@code seatPosition - cabinFirstSeatPosition} is set when the seat is taken.
+ * Seat positions and cabins are described by {@link SeatCodec} and {@link CabinLayout}.
+ */
+public class SeatMap {
+
+    public static final int SEATS_PER_ROW = SeatCodec.SEATS_PER_ROW;
+
+    public static final int NO_SEAT = SeatCodec.NO_SEAT;
+
+    private final CabinLayout layout;
+
+    private final BitSet[] occupiedSeats = new BitSet[TicketClass.values().length];
+
+    public SeatMap(CabinLayout layout) {
+        this.layout = layout;
+
+        for (TicketClass ticketClass : TicketClass.values()) {
+            this.occupiedSeats[ticketClass.ordinal()] = new BitSet(layout.getCapacity(ticketClass));
+        }
+    }
+
+    public CabinLayout getLayout() {
+        return layout;
+    }
+
+    public int getCapacity(TicketClass ticketClass) {
+        return layout.getCapacity(ticketClass);
+    }
+
+    public int getOccupiedCount(TicketClass ticketClass) {
+        return occupiedSeats[ticketClass.ordinal()].cardinality();
+    }
+
+    public int getFirstSeatPosition(TicketClass ticketClass) {
+        return layout.getFirstSeatPosition(ticketClass);
+    }
+
+    /**
+     * @return number of seat positions from the first seat of the aircraft to the last one
+     */
+    public int getSeatPositionCount() {
+        return layout.getSeatPositionCount();
+    }
+
+    /**
+     * Marks the seat as occupied. Seat numbers that don't exist in any cabin are ignored.
+     */
+    public void occupy(String seatNumber) {
+        occupy(SeatCodec.encode(seatNumber));
+    }
+
+    /**
+     * Marks the seat as occupied. Seat positions that don't exist in any cabin are ignored.
+     */
+    public void occupy(int seatPosition) {
+        for (TicketClass ticketClass : TicketClass.values()) {
+            int seatIndex = getSeatIndex(ticketClass, seatPosition);
+
+            if (seatIndex != NO_SEAT) {
+                occupiedSeats[ticketClass.ordinal()].set(seatIndex);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true, if the seat number exists in the cabin of the passed ticket class
+     */
+    public boolean isSeatValid(TicketClass ticketClass, String seatNumber) {
+        return isSeatPositionValid(ticketClass, SeatCodec.encode(seatNumber));
+    }
+
+    public boolean isSeatPositionValid(TicketClass ticketClass, int seatPosition) {
+        return getSeatIndex(ticketClass, seatPosition) != NO_SEAT;
+    }
+
+    /**
+     * @return true, if the seat number exists in any cabin and is already taken
+     */
+    public boolean isSeatOccupied(String seatNumber) {
+        return isSeatPositionOccupied(SeatCodec.encode(seatNumber));
+    }
+
+    public boolean isSeatPositionOccupied(int seatPosition) {
+        for (TicketClass ticketClass : TicketClass.values()) {
+            int seatIndex = getSeatIndex(ticketClass, seatPosition);
+
+            if (seatIndex != NO_SEAT) {
+                return occupiedSeats[ticketClass.ordinal()].get(seatIndex);
+            }
+        }
+
+        return false;
+    }
+
+    public Optional<String> getFirstFreeSeat(TicketClass ticketClass) {
+        int seatPosition = getNextFreeSeatPosition(ticketClass, getFirstSeatPosition(ticketClass));
+
+        if (seatPosition == NO_SEAT) {
+            return Optional.empty();
+        }
+
+        return Optional.of(SeatCodec.decode(seatPosition));
+    }
+
+    /**
+     * @return first free seat position of the cabin starting at the passed position (inclusive) or {@link #NO_SEAT}
+     */
+    public int getNextFreeSeatPosition(TicketClass ticketClass, int fromSeatPosition) {
+        int firstSeatPosition = layout.getFirstSeatPosition(ticketClass);
+        int seatIndex = occupiedSeats[ticketClass.ordinal()].nextClearBit(Math.max(fromSeatPosition - firstSeatPosition, 0));
+
+        if (seatIndex >= layout.getCapacity(ticketClass)) {
+            return NO_SEAT;
+        }
+
+        return firstSeatPosition + seatIndex;
+    }
+
+    public List<String> getFreeSeats(TicketClass ticketClass) {
+        BitSet cabinSeats = occupiedSeats[ticketClass.ordinal()];
+        int firstSeatPosition = layout.getFirstSeatPosition(ticketClass);
+        int capacity = layout.getCapacity(ticketClass);
+        List<String> freeSeats = new ArrayList<>(capacity - cabinSeats.cardinality());
+
+        for (int seatIndex = cabinSeats.nextClearBit(0); seatIndex < capacity; seatIndex = cabinSeats.nextClearBit(seatIndex + 1)) {
+            freeSeats.add(SeatCodec.decode(firstSeatPosition + seatIndex));
+        }
+
+        return freeSeats;
+    }
+
+    /**
+     * @return index of the seat within the cabin bitset or {@link #NO_SEAT}
+     */
+    private int getSeatIndex(TicketClass ticketClass, int seatPosition) {
+        if (seatPosition == NO_SEAT) {
+            return NO_SEAT;
+        }
+
+        int seatIndex = seatPosition - layout.getFirstSeatPosition(ticketClass);
+
+        return seatIndex >= 0 && seatIndex < layout.getCapacity(ticketClass) ? seatIndex : NO_SEAT;
+    }
+}
@@ -0,0 +1,248 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.CabinLayout;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.SeatCodec;
+import cz.mendelu.pef.airline_reservation_system.utils.metrics.MetricNames;
+import cz.mendelu.pef.airline_reservation_system.utils.transaction.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Seats claimed by bookings of all flights, shared by all requests.
+ * <p>
+ * Every flight has its seat positions (see {@link SeatMap}) packed into 64-bit words and a seat is claimed
+ * by compare-and-set of its bit, so two concurrent bookings never get the same seat and bookings
+ * of different seats never wait for each other. Claims of a flight are seeded from seat numbers of its persisted tickets
+ * on the first booking and then stay set until the seat is released (ticket deleted, moved to another seat, etc.),
+ * so seat maps of later bookings are built from the claims without reading the tickets.
+ * <p>
+ * If a claim is made inside a transaction, it's released automatically when the transaction is rolled back.
+ * Claims are kept by one instance only, seats booked by other instances or imported are refused
+ * by the unique index of the ticket seat numbers.
+ * <p>
+ * Every claim is counted by its result, so seats lost to concurrent bookings show up as claims retried by the callers.
+ */
+@Component
+public class SeatReservations {
+
+    private static final int BITS_PER_WORD = Long.SIZE;
+
+    private final ConcurrentHashMap<Long, AtomicLongArray> flightSeats = new ConcurrentHashMap<>();
+
+    private final Counter claimedSeats;
+
+    private final Counter takenSeats;
+
+    @Autowired
+    public SeatReservations(MeterRegistry meterRegistry) {
+        claimedSeats = claimCounter(meterRegistry, "claimed");
+        takenSeats = claimCounter(meterRegistry, "taken");
+    }
+
+    /**
+     * Claims without a registry of meters, e.g. outside of the application context.
+     */
+    public SeatReservations() {
+        this(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Occupancy of all seats of the flight including the seats claimed by bookings in progress.
+     * @param persistedSeatNumbers seat numbers of the persisted tickets of the flight, read only if the flight has no claims yet
+     */
+    public SeatMap getSeatMap(Long flightId, CabinLayout layout, Supplier<? extends Collection<String>> persistedSeatNumbers) {
+        AtomicLongArray seats = flightSeats.get(flightId);
+
+        if (seats == null) {
+            SeatMap persistedSeatMap = new SeatMap(layout);
+            persistedSeatNumbers.get().forEach(persistedSeatMap::occupy);
+            seats = flightSeats.computeIfAbsent(flightId, id -> seed(persistedSeatMap, 0));
+        }
+
+        SeatMap seatMap = new SeatMap(layout);
+        int seatPositionCount = Math.min(layout.getSeatPositionCount(), seats.length() * BITS_PER_WORD);
+
+        for (int word = 0; word * BITS_PER_WORD < seatPositionCount; word++) {
+            for (long bits = seats.get(word); bits != 0; bits &= bits - 1) {
+                int seatPosition = word * BITS_PER_WORD + Long.numberOfTrailingZeros(bits);
+
+                if (seatPosition < seatPositionCount) {
+                    seatMap.occupy(seatPosition);
+                }
+            }
+        }
+
+        return seatMap;
+    }
+
+    /**
+     * Atomically claims the seat, unless it's already taken.
+     * @param flightId id of the flight, flights that are not persisted yet cannot be booked concurrently
+     * @param seatMap seat map of the flight, see {@link #getSeatMap(Long, CabinLayout, Supplier)}
+     * @return true, if the seat was free and now belongs to the caller
+     */
+    public boolean claim(Long flightId, SeatMap seatMap, int seatPosition) {
+        if (seatPosition == SeatCodec.NO_SEAT || seatMap.isSeatPositionOccupied(seatPosition)) {
+            takenSeats.increment();
+            return false;
+        }
+
+        if (flightId == null) {
+            claimedSeats.increment();
+            return true;
+        }
+
+        AtomicLongArray seats = getFlightSeats(flightId, seatMap, seatPosition);
+        int word = seatPosition / BITS_PER_WORD;
+        long mask = 1L << (seatPosition % BITS_PER_WORD);
+
+        while (true) {
+            long current = seats.get(word);
+
+            if ((current & mask) != 0) {
+                takenSeats.increment();
+                return false;
+            }
+
+            if (seats.compareAndSet(word, current, current | mask)) {
+                break;
+            }
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(flightId, seatPosition);
+                    }
+                }
+            });
+        }
+
+        claimedSeats.increment();
+        return true;
+    }
+
+    /**
+     * Makes the seat free again.
+     */
+    public void release(Long flightId, int seatPosition) {
+        if (flightId == null || seatPosition == SeatCodec.NO_SEAT) {
+            return;
+        }
+
+        AtomicLongArray seats = flightSeats.get(flightId);
+        int word = seatPosition / BITS_PER_WORD;
+
+        if (seats == null || word >= seats.length()) {
+            return;
+        }
+
+        long mask = 1L << (seatPosition % BITS_PER_WORD);
+
+        while (true) {
+            long current = seats.get(word);
+
+            if ((current & mask) == 0 || seats.compareAndSet(word, current, current & ~mask)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Releases the seat claimed by a booking, which failed. Inside a transaction the claim is left
+     * to the rollback, which releases it exactly once: released here as well, the seat could be claimed
+     * by a concurrent booking in the meantime and the rollback would then release that booking's claim.
+     * The transaction must be rolled back, otherwise the seat stays claimed.
+     */
+    public void releaseClaim(Long flightId, int seatPosition) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(flightId, seatPosition);
+        }
+    }
+
+    /**
+     * Makes the seat free again once the current transaction is committed, so the seat cannot be taken
+     * by somebody else while the change may still be rolled back. Without a transaction it's released immediately.
+     */
+    public void releaseAfterCommit(Long flightId, int seatPosition) {
+        TransactionCallbacks.afterCommit(() -> release(flightId, seatPosition));
+    }
+
+    /**
+     * Forgets all claims of the flight, they are seeded again from the persisted tickets on the next booking.
+     * Use it when the flight is deleted or its aircraft (seat layout) changes.
+     */
+    public void evict(Long flightId) {
+        if (flightId != null) {
+            flightSeats.remove(flightId);
+        }
+    }
+
+    /**
+     * Forgets all claims of the flight once the current transaction is completed, after its claims are released
+     * by the rollback. Use it when the claims turn out to be stale, e.g. a seat was sold by another instance.
+     */
+    public void evictAfterCompletion(Long flightId) {
+        TransactionCallbacks.afterCompletion(() -> evict(flightId));
+    }
+
+    /**
+     * Forgets claims of all flights. Use it when tickets are changed outside of the application, e.g. by an import.
+     */
+    public void evictAll() {
+        flightSeats.clear();
+    }
+
+    private static Counter claimCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(MetricNames.BOOKING_SEAT_ALLOCATION_ATTEMPTS)
+                .description("Claims of seats of bookings, including the retries after a seat was taken by a concurrent booking")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private AtomicLongArray getFlightSeats(Long flightId, SeatMap seatMap, int seatPosition) {
+        AtomicLongArray seats = flightSeats.computeIfAbsent(flightId, id -> seed(seatMap, seatPosition));
+
+        if (seatPosition / BITS_PER_WORD < seats.length()) {
+            return seats;
+        }
+
+        // Aircraft was changed to a bigger one, copy the existing claims into larger words
+        return flightSeats.compute(flightId, (id, current) -> {
+            AtomicLongArray grown = seed(seatMap, seatPosition);
+
+            if (current != null) {
+                for (int i = 0; i < current.length() && i < grown.length(); i++) {
+                    grown.set(i, grown.get(i) | current.get(i));
+                }
+            }
+
+            return grown;
+        });
+    }
+
+    private AtomicLongArray seed(SeatMap seatMap, int seatPosition) {
+        int seatPositionCount = Math.max(seatMap.getSeatPositionCount(), seatPosition + 1);
+        AtomicLongArray seats = new AtomicLongArray((seatPositionCount + BITS_PER_WORD - 1) / BITS_PER_WORD);
+
+        for (int i = 0; i < seatPositionCount; i++) {
+            if (seatMap.isSeatPositionOccupied(i)) {
+                seats.set(i / BITS_PER_WORD, seats.get(i / BITS_PER_WORD) | (1L << (i % BITS_PER_WORD)));
+            }
+        }
+
+        return seats;
+    }
+}
@@ -0,0 +1,27 @@
+package cz.mendelu.pef.airline_reservation_system.domain.flight;
+
+import cz.mendelu.pef.airline_reservation_system.domain.ticket.Ticket;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Releases the seats of removed tickets in the seat reservations of {@link FlightService}, however the ticket is removed
+ * (by the ticket service or by the cascade of a deleted customer). Seats are released only after the transaction is committed.
+ */
+@Component
+public class SeatReservationsListener {
+
+    private final ObjectProvider<FlightService> flightService;
+
+    public SeatReservationsListener(ObjectProvider<FlightService> flightService) {
+        this.flightService = flightService;
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Ticket ticket && ticket.getSeatNumber() != null) {
+            flightService.getObject().releaseSeatNumberAfterCommit(ticket.getFlight(), ticket.getSeatNumber());
+        }
+    }
+}
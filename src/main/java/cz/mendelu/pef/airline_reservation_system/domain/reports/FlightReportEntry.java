@@ -0,0 +1,43 @@
+package cz.mendelu.pef.airline_reservation_system.domain.reports;
+
+import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Flight attributes needed by {@link ReportsStore}.
+ */
+public record FlightReportEntry(
+        Long id,
+        OffsetDateTime departure,
+        OffsetDateTime arrival,
+        String status,
+        Integer seatCapacity,
+        Long departureAirportId,
+        Double departureLatitude,
+        Double departureLongitude,
+        Long arrivalAirportId,
+        Double arrivalLatitude,
+        Double arrivalLongitude
+) {
+
+    public static FlightReportEntry of(Flight flight) {
+        var aircraft = flight.getAircraft();
+        var airportDeparture = flight.getAirportDeparture();
+        var airportArrival = flight.getAirportArrival();
+
+        return new FlightReportEntry(
+                flight.getId(),
+                flight.getDeparture(),
+                flight.getArrival(),
+                flight.getStatus(),
+                aircraft != null ? aircraft.getTotalCapacity() : 0,
+                airportDeparture != null ? airportDeparture.getId() : null,
+                airportDeparture != null ? airportDeparture.getLatitude() : null,
+                airportDeparture != null ? airportDeparture.getLongitude() : null,
+                airportArrival != null ? airportArrival.getId() : null,
+                airportArrival != null ? airportArrival.getLatitude() : null,
+                airportArrival != null ? airportArrival.getLongitude() : null
+        );
+    }
+}
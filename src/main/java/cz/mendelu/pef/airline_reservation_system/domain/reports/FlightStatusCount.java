@@ -0,0 +1,10 @@
+package cz.mendelu.pef.airline_reservation_system.domain.reports;
+
+/**
+ * Number of flights with the same status (lower case), aggregated by the database.
+ */
+public record FlightStatusCount(
+        String status,
+        Long flightCount
+) {
+}
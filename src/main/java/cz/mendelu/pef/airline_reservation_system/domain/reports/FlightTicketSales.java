@@ -0,0 +1,15 @@
+package cz.mendelu.pef.airline_reservation_system.domain.reports;
+
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+
+/**
+ * Sold tickets of one ticket class of a flight, aggregated by the database for {@link ReportsStore}.
+ */
+public record FlightTicketSales(
+        Long flightId,
+        TicketClass ticketClass,
+        Long ticketCount,
+        Long seatedPassengers,
+        Double ticketSales
+) {
+}
@@ -0,0 +1,17 @@
+package cz.mendelu.pef.airline_reservation_system.domain.reports;
+
+/**
+ * Passengers and seats of a flight with sold tickets together with locations of its airports,
+ * the distance is computed by {@link ReportsService} from the cached distances between the airports.
+ */
+public record PassengerLoad(
+        Long passengers,
+        Integer seats,
+        Long departureAirportId,
+        Double departureLatitude,
+        Double departureLongitude,
+        Long arrivalAirportId,
+        Double arrivalLatitude,
+        Double arrivalLongitude
+) {
+}
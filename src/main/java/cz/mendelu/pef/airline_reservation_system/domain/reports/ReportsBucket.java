@@ -0,0 +1,75 @@
+package cz.mendelu.pef.airline_reservation_system.domain.reports;
+
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sums of report metrics over a group of flights, e.g. all flights departing and arriving on the same days.
+ */
+public class ReportsBucket {
+
+    // Prices have two decimal places, so they are summed in cents to avoid rounding errors of doubles
+    long ticketSalesInCents;
+
+    long ticketCount;
+
+    final long[] ticketClassCounts = new long[TicketClass.values().length];
+
+    long cancelledFlights;
+
+    long delayedFlights;
+
+    // Passenger load factor is the ratio of passenger-kilometers travelled to seat-kilometers available
+    double passengerKilometers;
+
+    double seatKilometers;
+
+    void add(ReportsBucket other) {
+        ticketSalesInCents += other.ticketSalesInCents;
+        ticketCount += other.ticketCount;
+        cancelledFlights += other.cancelledFlights;
+        delayedFlights += other.delayedFlights;
+        passengerKilometers += other.passengerKilometers;
+        seatKilometers += other.seatKilometers;
+
+        for (int i = 0; i < ticketClassCounts.length; i++) {
+            ticketClassCounts[i] += other.ticketClassCounts[i];
+        }
+    }
+
+    public double getTicketSales() {
+        return ticketSalesInCents / 100.0;
+    }
+
+    public Map<String, Long> getTicketClassDistribution() {
+        Map<String, Long> ticketClassDistribution = new HashMap<>();
+
+        for (TicketClass ticketClass : TicketClass.values()) {
+            ticketClassDistribution.put(ticketClass.name(), ticketClassCounts[ticketClass.ordinal()]);
+        }
+
+        return ticketClassDistribution;
+    }
+
+    public Map<String, Long> getCancelledAndDelayedFlights() {
+        Map<String, Long> cancelledAndDelayedFlights = new HashMap<>();
+        cancelledAndDelayedFlights.put("Cancelled", cancelledFlights);
+        cancelledAndDelayedFlights.put("Delayed", delayedFlights);
+
+        return cancelledAndDelayedFlights;
+    }
+
+    public double getPassengerLoadFactor() {
+        if (seatKilometers <= 0) {
+            return 0.0;
+        }
+
+        return passengerKilometers / seatKilometers * 100;
+    }
+
+    public double getRevenuePerPassenger() {
+        return ticketCount > 0 ? getTicketSales() / ticketCount : 0;
+    }
+}
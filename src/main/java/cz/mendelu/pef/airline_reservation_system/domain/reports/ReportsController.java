@@ -24,6 +24,10 @@ public class ReportsController {
         this.reportsService = reportsService;
     }
 
+    /**
+     * Days in UTC are answered by the in-memory {@link ReportsStore}, days in other time zones don't start at a UTC midnight,
+     * so they are aggregated by the database.
+     */
     @Operation(summary = "Get reports")
     @GetMapping(value = "", produces = "application/json")
     @Valid
@@ -37,11 +41,17 @@ public class ReportsController {
                     description = "End date for the report range (exclusive)",
                     example = "2017-07-31"
             )
-            @RequestParam @Valid LocalDate endDate
+            @RequestParam @Valid LocalDate endDate,
+            @Parameter(
+                    description = "UTC offset of the time zone, in which the days start, UTC by default",
+                    example = "+02:00"
+            )
+            @RequestParam(required = false) ZoneOffset offset
     ) {
+        ZoneOffset zoneOffset = offset != null ? offset : ZoneOffset.UTC;
         Reports reports = reportsService.getAllReports(
-                startDate.atTime(LocalTime.MIDNIGHT).atOffset(ZoneOffset.UTC),
-                endDate.atTime(LocalTime.MIDNIGHT).atOffset(ZoneOffset.UTC)
+                startDate.atTime(LocalTime.MIDNIGHT).atOffset(zoneOffset),
+                endDate.atTime(LocalTime.MIDNIGHT).atOffset(zoneOffset)
         );
 
         return new ObjectResponse<>(reports);
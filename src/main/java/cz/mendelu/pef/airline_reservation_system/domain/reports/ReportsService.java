@@ -6,11 +6,22 @@ import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRepository;
 import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightService;
 import cz.mendelu.pef.airline_reservation_system.domain.ticket.Ticket;
 import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+import cz.mendelu.pef.airline_reservation_system.utils.metrics.MetricNames;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 
+/**
+ * Reports of a period are computed by {@link #getAllReports(OffsetDateTime, OffsetDateTime)}.
+ * <p>
+ * Methods taking lists of tickets and flights aggregate already loaded entities in memory; the application doesn't call
+ * them, they are kept only as the reference implementation for unit tests and the benchmarks in `src/jmh`.
+ */
 @Service
 public class ReportsService {
 
@@ -20,14 +31,18 @@ public class ReportsService {
 
     private AirportService airportService;
 
+    private ReportsStore reportsStore;
+
     public ReportsService(
             FlightRepository flightRepository,
             FlightService flightService,
-            AirportService airportService
+            AirportService airportService,
+            ReportsStore reportsStore
     ) {
         this.flightRepository = flightRepository;
         this.flightService = flightService;
         this.airportService = airportService;
+        this.reportsStore = reportsStore;
     }
 
     public double getTicketSales(List<Ticket> tickets) {
@@ -111,25 +126,86 @@ public class ReportsService {
         return totalNumberOfSoldTickets > 0 ? totalRevenue / totalNumberOfSoldTickets : 0;
     }
 
+    @Timed(value = MetricNames.REPORTS_GENERATE, description = "Computation of all reports of a period", histogram = true)
     public Reports getAllReports(OffsetDateTime startDate, OffsetDateTime endDate) {
-        var flights = fetchFlightsOverDatePeriod(startDate, endDate);
-        var tickets = flights
-                .stream()
-                .map(Flight::getTickets)
-                .flatMap(Set::stream)
-                .toList();
+        // Store aggregates whole days, other ranges are aggregated by the database
+        if (isStartOfUtcDay(startDate) && isStartOfUtcDay(endDate)) {
+            var bucket = reportsStore.getReports(toUtcDate(startDate), toUtcDate(endDate));
+
+            return new Reports(
+                    bucket.getTicketSales(),
+                    bucket.getTicketClassDistribution(),
+                    flightRepository.getTop5FlightIdsByTicketSales(startDate, endDate),
+                    bucket.getCancelledAndDelayedFlights(),
+                    bucket.getPassengerLoadFactor(),
+                    bucket.getRevenuePerPassenger()
+            );
+        }
+
+        var ticketClassSales = flightRepository.getTicketClassSales(startDate, endDate);
+        var flightStatusCounts = flightRepository.getFlightStatusCounts(startDate, endDate);
+        var passengerLoads = flightRepository.getPassengerLoads(startDate, endDate);
+
+        double ticketSales = 0;
+        long ticketCount = 0;
+        Map<String, Long> ticketClassDistribution = new HashMap<>();
+
+        for (TicketClass ticketClass : TicketClass.values()) {
+            ticketClassDistribution.put(ticketClass.name(), 0L);
+        }
+
+        for (TicketClassSales sales : ticketClassSales) {
+            ticketSales += sales.ticketSales() != null ? sales.ticketSales() : 0;
+            ticketCount += sales.ticketCount();
+            ticketClassDistribution.put(sales.ticketClass().name(), sales.ticketCount());
+        }
+
+        Map<String, Long> cancelledAndDelayedFlights = new HashMap<>();
+
+        for (String status : List.of("Cancelled", "Delayed")) {
+            var numberWithThisStatus = flightStatusCounts
+                    .stream()
+                    .filter(c -> c.status().equalsIgnoreCase(status))
+                    .mapToLong(FlightStatusCount::flightCount)
+                    .sum();
+            cancelledAndDelayedFlights.put(status, numberWithThisStatus);
+        }
+
+        // Passenger load factor is the ratio of passenger-kilometers travelled to seat-kilometers available (Wikipedia)
+        double passengerKilometers = 0;
+        double seatKilometers = 0;
+
+        for (PassengerLoad passengerLoad : passengerLoads) {
+            var travelledDistance = airportService.calculateDistanceBetweenAirports(
+                    passengerLoad.departureAirportId(),
+                    passengerLoad.departureLatitude(),
+                    passengerLoad.departureLongitude(),
+                    passengerLoad.arrivalAirportId(),
+                    passengerLoad.arrivalLatitude(),
+                    passengerLoad.arrivalLongitude()
+            );
+
+            passengerKilometers += travelledDistance * passengerLoad.passengers();
+            seatKilometers += travelledDistance * passengerLoad.seats();
+        }
+
+        double passengerLoadFactor = seatKilometers > 0 ? passengerKilometers / seatKilometers * 100 : 0.0;
 
         return new Reports(
-                getTicketSales(tickets),
-                getTicketClassDistribution(tickets),
+                ticketSales,
+                ticketClassDistribution,
                 flightRepository.getTop5FlightIdsByTicketSales(startDate, endDate),
-                getCancelledAndDelayedFlights(flights),
-                calculatePassengerLoadFactor(flights),
-                calculateRevenuePerPassenger(tickets)
+                cancelledAndDelayedFlights,
+                passengerLoadFactor,
+                ticketCount > 0 ? ticketSales / ticketCount : 0
         );
     }
 
-    private List<Flight> fetchFlightsOverDatePeriod(OffsetDateTime startDate, OffsetDateTime endDate) {
-        return flightRepository.getFlightsByDepartureGreaterThanEqualAndArrivalLessThan(startDate, endDate);
+    private static boolean isStartOfUtcDay(OffsetDateTime dateTime) {
+        return dateTime.withOffsetSameInstant(ZoneOffset.UTC).toLocalTime().equals(LocalTime.MIDNIGHT);
+    }
+
+    private static LocalDate toUtcDate(OffsetDateTime dateTime) {
+        return dateTime.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate();
     }
 }
@@ -0,0 +1,273 @@
+package cz.mendelu.pef.airline_reservation_system.domain.reports;
+
+import cz.mendelu.pef.airline_reservation_system.domain.airport.AirportService;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRepository;
+import cz.mendelu.pef.airline_reservation_system.domain.ticket.TicketRepository;
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Report metrics pre-aggregated into buckets by departure and arrival day (UTC) of flights,
+ * so reports of any range of days are answered by summing a few buckets instead of loading all flights and tickets.
+ * <p>
+ * Store is loaded from the database on the first report and then kept up to date by {@link ReportsStoreListener}
+ * on every committed change of a flight or ticket. Tickets are held only as sums per flight, changed tickets
+ * replace the sums of their flights, so the store stays as small as the flight table.
+ */
+@Component
+public class ReportsStore {
+
+    private final FlightRepository flightRepository;
+
+    private final TicketRepository ticketRepository;
+
+    private final AirportService airportService;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, FlightStats> flights = new HashMap<>();
+
+    // Departure day -> arrival day -> sums of flights departing and arriving on these days
+    private final NavigableMap<LocalDate, Map<LocalDate, ReportsBucket>> buckets = new TreeMap<>();
+
+    private volatile boolean loaded = false;
+
+    public ReportsStore(
+            FlightRepository flightRepository,
+            TicketRepository ticketRepository,
+            AirportService airportService
+    ) {
+        this.flightRepository = flightRepository;
+        this.ticketRepository = ticketRepository;
+        this.airportService = airportService;
+    }
+
+    /**
+     * @param startDate first departure day of the flights (inclusive)
+     * @param endDate day, before which the flights must arrive (exclusive)
+     * @return sums of all flights departing on or after the start date and arriving before the end date
+     */
+    public ReportsBucket getReports(LocalDate startDate, LocalDate endDate) {
+        ensureLoaded();
+
+        ReportsBucket result = new ReportsBucket();
+
+        if (!startDate.isBefore(endDate)) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            for (Map<LocalDate, ReportsBucket> arrivalBuckets : buckets.subMap(startDate, true, endDate, false).values()) {
+                arrivalBuckets.forEach((arrivalDate, bucket) -> {
+                    if (arrivalDate.isBefore(endDate)) {
+                        result.add(bucket);
+                    }
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return result;
+    }
+
+    public void putFlight(FlightReportEntry flight) {
+        if (flight.id() == null) {
+            return;
+        }
+
+        update(() -> updateFlightStats(flight.id(), stats -> stats.flight = flight));
+    }
+
+    public void removeFlight(Long flightId) {
+        update(() -> {
+            FlightStats stats = flights.remove(flightId);
+
+            if (stats != null) {
+                addToBucket(stats, -1);
+            }
+        });
+    }
+
+    /**
+     * Replaces sums of the tickets of the flight by the ones read from the database, so refreshing the flight
+     * more than once, e.g. for every ticket of a batch, never counts a ticket twice.
+     */
+    public void refreshFlightTickets(Long flightId) {
+        if (flightId == null) {
+            return;
+        }
+
+        update(() -> {
+            List<FlightTicketSales> flightTicketSales = ticketRepository.getFlightTicketSales(flightId);
+            updateFlightStats(flightId, stats -> stats.setTicketSales(flightTicketSales));
+        });
+    }
+
+    /**
+     * Drops all aggregates, they are loaded again from the database on the next report.
+     * Use it after changes that bypass JPA entity listeners (bulk updates, imports) or change
+     * data that all flights depend on (aircraft capacities, airport locations).
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            flights.clear();
+            buckets.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+
+            for (FlightReportEntry flight : flightRepository.getAllFlightReportEntries()) {
+                flights.computeIfAbsent(flight.id(), id -> new FlightStats()).flight = flight;
+            }
+
+            for (FlightTicketSales sales : ticketRepository.getAllFlightTicketSales()) {
+                flights.computeIfAbsent(sales.flightId(), id -> new FlightStats()).add(sales);
+            }
+
+            flights.values().forEach(stats -> addToBucket(stats, 1));
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void update(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void updateFlightStats(Long flightId, Consumer<FlightStats> change) {
+        if (flightId == null) {
+            return;
+        }
+
+        FlightStats stats = flights.computeIfAbsent(flightId, id -> new FlightStats());
+
+        addToBucket(stats, -1);
+        change.accept(stats);
+        addToBucket(stats, 1);
+    }
+
+    private void addToBucket(FlightStats stats, int sign) {
+        FlightReportEntry flight = stats.flight;
+
+        if (flight == null || flight.departure() == null || flight.arrival() == null) {
+            return;
+        }
+
+        ReportsBucket bucket = buckets
+                .computeIfAbsent(toUtcDate(flight.departure()), date -> new HashMap<>())
+                .computeIfAbsent(toUtcDate(flight.arrival()), date -> new ReportsBucket());
+
+        bucket.ticketSalesInCents += sign * stats.ticketSalesInCents;
+        bucket.ticketCount += sign * stats.ticketCount;
+
+        for (int i = 0; i < stats.ticketClassCounts.length; i++) {
+            bucket.ticketClassCounts[i] += sign * stats.ticketClassCounts[i];
+        }
+
+        if ("Cancelled".equalsIgnoreCase(flight.status())) {
+            bucket.cancelledFlights += sign;
+        } else if ("Delayed".equalsIgnoreCase(flight.status())) {
+            bucket.delayedFlights += sign;
+        }
+
+        // Only flights with sold tickets count into the load factor
+        if (stats.ticketCount > 0) {
+            double travelledDistance = getTravelledDistance(flight);
+            int seatCapacity = flight.seatCapacity() != null ? flight.seatCapacity() : 0;
+
+            bucket.passengerKilometers += sign * travelledDistance * stats.seatedPassengers;
+            bucket.seatKilometers += sign * travelledDistance * seatCapacity;
+        }
+    }
+
+    private double getTravelledDistance(FlightReportEntry flight) {
+        if (flight.departureLatitude() == null || flight.departureLongitude() == null
+                || flight.arrivalLatitude() == null || flight.arrivalLongitude() == null) {
+            return 0.0;
+        }
+
+        return airportService.calculateDistanceBetweenAirports(
+                flight.departureAirportId(),
+                flight.departureLatitude(),
+                flight.departureLongitude(),
+                flight.arrivalAirportId(),
+                flight.arrivalLatitude(),
+                flight.arrivalLongitude()
+        );
+    }
+
+    private static LocalDate toUtcDate(OffsetDateTime dateTime) {
+        return dateTime.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate();
+    }
+
+    private static class FlightStats {
+
+        FlightReportEntry flight;
+
+        long ticketSalesInCents;
+
+        long ticketCount;
+
+        long seatedPassengers;
+
+        final long[] ticketClassCounts = new long[TicketClass.values().length];
+
+        void setTicketSales(List<FlightTicketSales> flightTicketSales) {
+            ticketSalesInCents = 0;
+            ticketCount = 0;
+            seatedPassengers = 0;
+            Arrays.fill(ticketClassCounts, 0);
+
+            flightTicketSales.forEach(this::add);
+        }
+
+        void add(FlightTicketSales sales) {
+            if (sales.ticketSales() != null) {
+                ticketSalesInCents += Math.round(sales.ticketSales() * 100);
+            }
+
+            if (sales.ticketClass() != null) {
+                ticketClassCounts[sales.ticketClass().ordinal()] += sales.ticketCount();
+            }
+
+            seatedPassengers += sales.seatedPassengers();
+            ticketCount += sales.ticketCount();
+        }
+    }
+}
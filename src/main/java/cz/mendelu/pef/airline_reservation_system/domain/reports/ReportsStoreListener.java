@@ -0,0 +1,114 @@
+package cz.mendelu.pef.airline_reservation_system.domain.reports;
+
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.Aircraft;
+import cz.mendelu.pef.airline_reservation_system.domain.airport.Airport;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
+import cz.mendelu.pef.airline_reservation_system.domain.ticket.Ticket;
+import cz.mendelu.pef.airline_reservation_system.utils.transaction.TransactionCallbacks;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps {@link ReportsStore} up to date with the persisted flights and tickets.
+ * <p>
+ * Entity state is copied when it's flushed, but applied to the store only after the transaction is committed,
+ * so reports never contain changes that are rolled back. Tickets refresh the sums of their flights once per transaction,
+ * no matter how many tickets of the flight were changed.
+ */
+@Component
+public class ReportsStoreListener {
+
+    private final ObjectProvider<ReportsStore> reportsStore;
+
+    public ReportsStoreListener(ObjectProvider<ReportsStore> reportsStore) {
+        this.reportsStore = reportsStore;
+    }
+
+    @PostLoad
+    public void onLoad(Object entity) {
+        if (entity instanceof Ticket ticket) {
+            ticket.setLoadedFlightId(getFlightId(ticket));
+        }
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (entity instanceof Flight flight) {
+            FlightReportEntry entry = FlightReportEntry.of(flight);
+            TransactionCallbacks.afterCommit(() -> reportsStore.getObject().putFlight(entry));
+        } else if (entity instanceof Ticket ticket) {
+            refreshFlightTicketsAfterCommit(ticket);
+        } else if (entity instanceof Aircraft || entity instanceof Airport) {
+            TransactionCallbacks.afterCommit(() -> reportsStore.getObject().invalidate());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Flight flight) {
+            Long flightId = flight.getId();
+            TransactionCallbacks.afterCommit(() -> reportsStore.getObject().removeFlight(flightId));
+        } else if (entity instanceof Ticket ticket) {
+            refreshFlightTicketsAfterCommit(ticket);
+        }
+    }
+
+    /**
+     * Refreshes the flight of the ticket and the flight it was transferred from, once the transaction is committed.
+     */
+    private void refreshFlightTicketsAfterCommit(Ticket ticket) {
+        Long flightId = getFlightId(ticket);
+
+        refreshFlightTicketsAfterCommit(ticket.getLoadedFlightId());
+        refreshFlightTicketsAfterCommit(flightId);
+        ticket.setLoadedFlightId(flightId);
+    }
+
+    private void refreshFlightTicketsAfterCommit(Long flightId) {
+        if (flightId == null) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reportsStore.getObject().refreshFlightTickets(flightId);
+            return;
+        }
+
+        // Flights changed by the transaction are bound to it, so a batch of tickets refreshes its flight only once
+        @SuppressWarnings("unchecked")
+        Set<Long> flightIds = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+
+        if (flightIds == null) {
+            Set<Long> changedFlightIds = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, changedFlightIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changedFlightIds.forEach(reportsStore.getObject()::refreshFlightTickets);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ReportsStoreListener.this);
+                }
+            });
+            flightIds = changedFlightIds;
+        }
+
+        flightIds.add(flightId);
+    }
+
+    private static Long getFlightId(Ticket ticket) {
+        return ticket.getFlight() != null ? ticket.getFlight().getId() : null;
+    }
+}
@@ -0,0 +1,13 @@
+package cz.mendelu.pef.airline_reservation_system.domain.reports;
+
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+
+/**
+ * Number of sold tickets of one ticket class and their total price, aggregated by the database.
+ */
+public record TicketClassSales(
+        TicketClass ticketClass,
+        Long ticketCount,
+        Double ticketSales
+) {
+}
@@ -0,0 +1,47 @@
+package cz.mendelu.pef.airline_reservation_system.domain.ticket;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One ticket of {@link TicketBatchRequest}.
+ */
+@Data
+@AllArgsConstructor
+public class PassengerRequest {
+
+    @Schema(example = "0000721866145")
+    @NotEmpty
+    private String number;
+
+    @JsonProperty("class")
+    @Schema(example = "Economy")
+    @NotNull
+    private TicketClass ticketClass;
+
+    @JsonProperty("passenger_full_name")
+    @Schema(example = "John Doe")
+    @NotEmpty
+    private String passengerFullName;
+
+    @JsonProperty("seat_number")
+    @Schema(description = "Valid seat number, integer and letter from [\"A\", \"B\", \"C\", \"D\", \"E\", \"F\"]; "
+            + "if it's missing, the first available seat is assigned", example = "12A")
+    private String seatNumber;
+
+    public TicketRequest toTicketRequest(TicketBatchRequest batchRequest) {
+        return new TicketRequest(
+                number,
+                ticketClass,
+                passengerFullName,
+                seatNumber,
+                batchRequest.getFlightId(),
+                batchRequest.getCustomerId()
+        );
+    }
+}
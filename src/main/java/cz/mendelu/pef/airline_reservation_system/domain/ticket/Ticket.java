@@ -2,6 +2,8 @@ package cz.mendelu.pef.airline_reservation_system.domain.ticket;
 
 import cz.mendelu.pef.airline_reservation_system.domain.customer.Customer;
 import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.SeatReservationsListener;
+import cz.mendelu.pef.airline_reservation_system.domain.reports.ReportsStoreListener;
 import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
@@ -9,7 +11,9 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.OffsetDateTime;
 
@@ -17,10 +21,15 @@ import java.time.OffsetDateTime;
 @Entity
 @Data
 @NoArgsConstructor
+@EntityListeners({ReportsStoreListener.class, SeatReservationsListener.class})
 public class Ticket {
 
+    // Unique index of the seat numbers of a flight, a seat cannot be sold twice even by concurrent instances or imports
+    public static final String SEAT_NUMBER_INDEX = "idx_ticket_flight_id_seat_number";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_id_seq")
+    @SequenceGenerator(name = "ticket_id_seq", sequenceName = "ticket_id_seq", allocationSize = 50)
     private Long id;
 
     @NotEmpty
@@ -63,6 +72,12 @@ public class Ticket {
     @ManyToOne
     private Customer customer;
 
+    // Flight the ticket was loaded or last saved with, a transfer changes the reports of both flights
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Long loadedFlightId;
+
     public void detachFromRelatedEntities() {
         if (flight != null) {
             flight.getTickets().remove(this);
@@ -0,0 +1,31 @@
+package cz.mendelu.pef.airline_reservation_system.domain.ticket;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class TicketBatchRequest {
+
+    public static final int MAX_PASSENGERS = 100;
+
+    @Schema(example = "9999")
+    @NotNull
+    private Long flightId;
+
+    @Schema(example = "3fa85f64-5717-4562-b3fc-2c963f66afa6")
+    @NotNull
+    private UUID customerId;
+
+    @NotEmpty
+    @Size(max = MAX_PASSENGERS)
+    private List<@Valid @NotNull PassengerRequest> passengers;
+}
@@ -6,6 +6,8 @@ import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
 import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightService;
 import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.*;
+import cz.mendelu.pef.airline_reservation_system.utils.export.ExportFormat;
+import cz.mendelu.pef.airline_reservation_system.utils.export.ResponseExporter;
 import cz.mendelu.pef.airline_reservation_system.utils.helpers.ApiErrorDetails;
 import cz.mendelu.pef.airline_reservation_system.utils.response.ArrayResponse;
 import cz.mendelu.pef.airline_reservation_system.utils.response.ObjectResponse;
@@ -20,9 +22,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 @RequestMapping("tickets")
@@ -35,11 +42,19 @@ public class TicketController {
 
     private CustomerService customerService;
 
+    private ResponseExporter responseExporter;
+
     @Autowired
-    public TicketController(TicketService ticketService, FlightService flightService, CustomerService customerService) {
+    public TicketController(
+            TicketService ticketService,
+            FlightService flightService,
+            CustomerService customerService,
+            ResponseExporter responseExporter
+    ) {
         this.ticketService = ticketService;
         this.flightService = flightService;
         this.customerService = customerService;
+        this.responseExporter = responseExporter;
     }
 
     @Operation(summary = "Get all tickets")
@@ -47,15 +62,36 @@ public class TicketController {
     @Valid
     public ArrayResponse<TicketResponse> getTickets(
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer limit
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Id of the last ticket of the previous page; if it's set, page is ignored")
+            @RequestParam(required = false) Long after
     ) {
-        int pageNumber = page != null && page >= 0 ? page : 0;
+        int pageNumber = page != null && page >= 0 && after == null ? page : 0;
         int pageSize = limit != null && limit > 0 ? limit : 100;
         Pageable pageRequest = PageRequest.of(pageNumber, pageSize);
 
         return ArrayResponse.of(
-                ticketService.getAllTickets(pageRequest),
-                TicketResponse::new
+                ticketService.getAllTickets(after, pageRequest),
+                TicketResponse::new,
+                Ticket::getId
+        );
+    }
+
+    @Operation(summary = "Export all tickets sorted by id")
+    @GetMapping(value = "/export")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportTickets(
+            @Parameter(description = "Format of the export, `ndjson` (one ticket per line) or `csv`")
+            @RequestParam(required = false, defaultValue = "ndjson") String format
+    ) {
+        return responseExporter.export(
+                "tickets",
+                ExportFormat.of(format),
+                TicketResponse.class,
+                ticketService::streamAllTicketResponses
         );
     }
 
@@ -134,7 +170,8 @@ public class TicketController {
         request.toTicket(ticket, flight, customer);
 
         try {
-            ticketService.assignSeatNumber(flight, ticket);
+            // Credit is charged by the ticket service
+            ticketService.createTicket(flight, ticket);
         } catch (SeatIsNotAvailableException e) {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "No available seat", e);
         } catch (InvalidFlightException e) {
@@ -143,15 +180,84 @@ public class TicketController {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Customer has not enough credit", e);
         }
 
-        ticketService.createTicket(ticket);
-        customerService.updateCustomer(customer.getId(), customer);
-
         return ObjectResponse.of(
                 ticket,
                 TicketResponse::new
         );
     }
 
+    @Operation(summary = "Create tickets of a group on one flight for one customer, all or none of them")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Created"),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Flight/customer not found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorDetails.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "422",
+                    description = "Not enough available seats",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorDetails.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid flight (something is absent, e.g. aircraft or airports)",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorDetails.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "422",
+                    description = "Customer has not enough credit",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorDetails.class)
+                    )
+            )
+    })
+    @PostMapping(value = "/batch", produces = "application/json")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Valid
+    public ArrayResponse<TicketResponse> createTickets(@RequestBody @Valid TicketBatchRequest request) {
+        Customer customer = customerService
+                .getCustomerById(request.getCustomerId())
+                .orElseThrow(NotFoundException::new);
+        Flight flight = flightService
+                .getFlightById(request.getFlightId())
+                .orElseThrow(NotFoundException::new);
+        List<Ticket> tickets = new ArrayList<>(request.getPassengers().size());
+
+        for (PassengerRequest passenger : request.getPassengers()) {
+            Ticket ticket = new Ticket();
+            passenger.toTicketRequest(request).toTicket(ticket, flight, customer);
+            tickets.add(ticket);
+        }
+
+        List<Ticket> createdTickets;
+
+        try {
+            createdTickets = ticketService.createTickets(flight, customer, tickets);
+        } catch (SeatIsNotAvailableException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Not enough available seats", e);
+        } catch (InvalidFlightException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid flight", e);
+        } catch (NotEnoughCreditException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Customer has not enough credit", e);
+        }
+
+        return ArrayResponse.of(
+                createdTickets,
+                TicketResponse::new
+        );
+    }
+
     @Operation(summary = "Change ticket seat number by id")
     @PutMapping(value = "/{id}/change_seat_number", produces = "application/json")
     @ApiResponses(value = {
@@ -198,13 +304,12 @@ public class TicketController {
             )
             @RequestParam(name = "seat_number") String seatNumber
     ) {
-        Ticket ticket = ticketService
-                .getTicketById(id)
-                .orElseThrow(NotFoundException::new);
-        Customer customer = ticket.getCustomer();
+        Ticket ticket;
 
         try {
-            ticketService.changeSeatNumber(ticket, seatNumber);
+            ticket = ticketService
+                    .changeSeatNumber(id, seatNumber)
+                    .orElseThrow(NotFoundException::new);
         } catch (SeatIsNotAvailableException e) {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "No available seat", e);
         } catch (InvalidFlightException e) {
@@ -213,9 +318,6 @@ public class TicketController {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Customer has not enough credit", e);
         }
 
-        customerService.updateCustomer(customer.getId(), customer);
-        ticketService.updateTicket(id, ticket);
-
         return ObjectResponse.of(
                 ticket,
                 TicketResponse::new
@@ -264,13 +366,12 @@ public class TicketController {
             @PathVariable Long id,
             @RequestParam(name = "new_ticket_class") TicketClass newTicketClass
     ) {
-        Ticket ticket = ticketService
-                .getTicketById(id)
-                .orElseThrow(NotFoundException::new);
-        Customer customer = ticket.getCustomer();
+        Ticket ticket;
 
         try {
-            ticketService.upgradeTicketClass(ticket, newTicketClass);
+            ticket = ticketService
+                    .upgradeTicketClass(id, newTicketClass)
+                    .orElseThrow(NotFoundException::new);
         } catch (InvalidTicketClassException e) {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getDetail(), e);
         } catch (SeatIsNotAvailableException e) {
@@ -279,9 +380,6 @@ public class TicketController {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Customer has not enough credit", e);
         }
 
-        customerService.updateCustomer(customer.getId(), customer);
-        ticketService.updateTicket(id, ticket);
-
         return ObjectResponse.of(
                 ticket,
                 TicketResponse::new
@@ -338,15 +436,15 @@ public class TicketController {
             @PathVariable Long id,
             @RequestParam(name = "flight_id") Long flightId
     ) {
-        Ticket ticket = ticketService
-                .getTicketById(id)
-                .orElseThrow(NotFoundException::new);
         Flight newFlight = flightService
                 .getFlightById(flightId)
                 .orElseThrow(NotFoundException::new);
+        Ticket ticket;
 
         try {
-            ticketService.transferTicketToOtherFlight(ticket, newFlight);
+            ticket = ticketService
+                    .transferTicketToOtherFlight(id, newFlight)
+                    .orElseThrow(NotFoundException::new);
         } catch (InvalidTransferInformationException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getDetail(), e);
         } catch (SeatIsNotAvailableException e) {
@@ -357,11 +455,6 @@ public class TicketController {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Customer has not enough credit", e);
         }
 
-        Customer customer = ticket.getCustomer();
-
-        customerService.updateCustomer(customer.getId(), customer);
-        ticketService.updateTicket(id, ticket);
-
         return ObjectResponse.of(
                 ticket,
                 TicketResponse::new
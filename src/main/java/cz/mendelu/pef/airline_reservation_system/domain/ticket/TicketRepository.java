@@ -1,6 +1,60 @@
 package cz.mendelu.pef.airline_reservation_system.domain.ticket;
 
+import cz.mendelu.pef.airline_reservation_system.domain.reports.FlightTicketSales;
+import cz.mendelu.pef.airline_reservation_system.utils.export.ResponseExporter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
+
+    /**
+     * Tickets following the id, unlike {@link #findAll(Pageable)} without counting all tickets.
+     * Tickets are read-only, so Hibernate keeps no snapshots of them for dirty checking.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Slice<Ticket> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * All tickets sorted by id read from a database cursor straight into responses, so no entities are loaded.
+     * Stream must be consumed in a transaction and closed.
+     */
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.ticket.TicketResponse(
+            t.id, t.number, t.ticketClass, t.price, t.discount, t.priceAfterDiscount, t.seatNumber,
+            t.passengerFullName, t.departure, t.arrival, f.id, t.customer.id
+        )
+        FROM Ticket AS t
+        LEFT JOIN t.flight AS f
+        ORDER BY t.id
+    """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ResponseExporter.FETCH_SIZE))
+    Stream<TicketResponse> streamAllTicketResponses();
+
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.reports.FlightTicketSales(
+            t.flight.id, t.ticketClass, COUNT(t), COUNT(t.seatNumber), SUM(t.priceAfterDiscount)
+        )
+        FROM Ticket AS t
+        WHERE t.flight IS NOT NULL
+        GROUP BY t.flight.id, t.ticketClass
+    """)
+    List<FlightTicketSales> getAllFlightTicketSales();
+
+    @Query("""
+        SELECT new cz.mendelu.pef.airline_reservation_system.domain.reports.FlightTicketSales(
+            t.flight.id, t.ticketClass, COUNT(t), COUNT(t.seatNumber), SUM(t.priceAfterDiscount)
+        )
+        FROM Ticket AS t
+        WHERE t.flight.id = :flightId
+        GROUP BY t.flight.id, t.ticketClass
+    """)
+    List<FlightTicketSales> getFlightTicketSales(Long flightId);
 }
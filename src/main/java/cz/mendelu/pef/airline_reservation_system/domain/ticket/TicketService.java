@@ -1,5 +1,7 @@
 package cz.mendelu.pef.airline_reservation_system.domain.ticket;
 
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.SeatCodec;
+import cz.mendelu.pef.airline_reservation_system.domain.customer.Customer;
 import cz.mendelu.pef.airline_reservation_system.domain.customer.CustomerService;
 import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
 import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightService;
@@ -8,12 +10,21 @@ import cz.mendelu.pef.airline_reservation_system.utils.exceptions.InvalidTicketC
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.InvalidTransferInformationException;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.InvalidFlightException;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.SeatIsNotAvailableException;
+import cz.mendelu.pef.airline_reservation_system.utils.metrics.MetricNames;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class TicketService {
@@ -28,27 +39,103 @@ public class TicketService {
         this.customerService = customerService;
     }
 
-    public List<Ticket> getAllTickets(Pageable pageRequest) {
-        return ticketRepository
-                .findAll(pageRequest)
-                .getContent();
+    /**
+     * @param afterId id of the last ticket of the previous page or null for the first page
+     * @return tickets sorted by id
+     */
+    @Transactional(readOnly = true)
+    public Slice<Ticket> getAllTickets(Long afterId, Pageable pageRequest) {
+        // Ids are positive, so 0 precedes the first ticket
+        return ticketRepository.findAllByIdGreaterThanOrderByIdAsc(afterId != null ? afterId : 0L, pageRequest);
+    }
+
+    /**
+     * @return all tickets sorted by id, the stream must be consumed in a transaction and closed
+     */
+    public Stream<TicketResponse> streamAllTicketResponses() {
+        return ticketRepository.streamAllTicketResponses();
     }
 
     public Optional<Ticket> getTicketById(Long id) {
         return ticketRepository.findById(id);
     }
 
-    public Ticket createTicket(Ticket ticket) {
-        return ticketRepository.save(ticket);
+    /**
+     * Books the ticket in one transaction: the sold seat, the seat number, the charge of the credit
+     * and the insert of the ticket are committed together or not at all.
+     * @see #assignSeatNumber(Flight, Ticket)
+     */
+    @Transactional
+    @Timed(value = MetricNames.BOOKING_CREATE, description = "Booking of one ticket including seat allocation and credit charge", histogram = true)
+    @Counted(value = MetricNames.BOOKING_ATTEMPTS, description = "Bookings by their outcome, the method tells single and group bookings apart")
+    public Ticket createTicket(Flight flight, Ticket ticket) {
+        assignSeatNumber(flight, ticket);
+
+        return writeSeatNumbers(flight, () -> ticketRepository.saveAndFlush(ticket));
     }
 
-    public Ticket updateTicket(Long id, Ticket ticket) {
-        ticket.setId(id);
-        return ticketRepository.save(ticket);
+    /**
+     * Books tickets of a group on one flight for one customer, all or none of them are created.
+     * Seats are allocated over one seat map, credit is charged once and the tickets are inserted in one JDBC batch.
+     * @param tickets new tickets of the flight and customer, tickets without a seat number get the first available seats
+     */
+    @Transactional
+    @Timed(value = MetricNames.BOOKING_CREATE_GROUP, description = "Booking of tickets of a group", histogram = true)
+    @Counted(value = MetricNames.BOOKING_ATTEMPTS, description = "Bookings by their outcome, the method tells single and group bookings apart")
+    public List<Ticket> createTickets(Flight flight, Customer customer, List<Ticket> tickets) {
+        if (flight == null) {
+            throw new InvalidFlightException();
+        }
+
+        boolean[] selectedSeats = flightService.claimSeatNumbers(flight, tickets);
+        int[] ticketClassSeats = new int[TicketClass.values().length];
+        double[] ticketPrices = new double[tickets.size()];
+        double totalPrice = 0.0;
+
+        for (int i = 0; i < tickets.size(); i++) {
+            Ticket ticket = tickets.get(i);
+            ticketClassSeats[ticket.getTicketClass().ordinal()]++;
+            ticketPrices[i] = flight.getFareTariff().getPriceByTicketClass(ticket.getTicketClass());
+
+            if (selectedSeats[i]) {
+                ticketPrices[i] += getTicketExtraPriceForCustomSeat(ticket)
+                        .orElseThrow(InvalidFlightException::new);
+            }
+
+            totalPrice += ticketPrices[i];
+        }
+
+        // If the credit is not enough, the rollback releases the claimed seats
+        customerService.chargeCustomerCredit(customer, totalPrice);
+
+        // Sold seats are counted last, the counter update locks the flight row until the commit,
+        // so concurrent bookings of the flight wait only for the inserts, not for the whole booking
+        for (TicketClass ticketClass : TicketClass.values()) {
+            int seats = ticketClassSeats[ticketClass.ordinal()];
+
+            if (seats > 0 && !flightService.reserveTicketClassSeats(flight, ticketClass, seats)) {
+                throw new SeatIsNotAvailableException();
+            }
+        }
+
+        for (int i = 0; i < tickets.size(); i++) {
+            Ticket ticket = tickets.get(i);
+            ticket.setPrice(ticketPrices[i]);
+            ticket.setDiscount(0.0);
+            ticket.setPriceAfterDiscount(ticketPrices[i]);
+        }
+
+        // If the inserts fail, the rollback releases the claimed seats, the sold seat counters and the charged credit
+        return writeSeatNumbers(flight, () -> ticketRepository.saveAllAndFlush(tickets));
     }
 
+    @Transactional
     public void deleteTicketById(Long id) {
+        Optional<Ticket> deletedTicket = ticketRepository.findById(id);
         ticketRepository.deleteById(id);
+
+        // Seat number is released by SeatReservationsListener once the deletion is committed
+        deletedTicket.ifPresent(ticket -> flightService.releaseTicketClassSeat(ticket.getFlight(), ticket.getTicketClass()));
     }
 
     public Optional<Double> getTicketExtraPriceForCustomSeat(Ticket ticket) {
@@ -61,6 +148,13 @@ public class TicketService {
     }
 
     public void assignSeatNumber(Flight flight, Ticket ticket) {
+        assignSeatNumber(flight, ticket, null);
+    }
+
+    /**
+     * @param previousFlight flight the ticket is transferred from, its sold seat is released together with the new one
+     */
+    private void assignSeatNumber(Flight flight, Ticket ticket, Flight previousFlight) {
         if (flight == null) {
             throw new InvalidFlightException();
         }
@@ -69,38 +163,72 @@ public class TicketService {
         var ticketPrice = flight.getFareTariff().getPriceByTicketClass(ticketClass);
         var seatNumber = ticket.getSeatNumber();
 
+        // Sold out class is refused by the loaded counters right away, the sold seat is counted atomically at the end
+        if (!flightService.isTicketClassSeatsAvailable(flight, ticketClass)) {
+            throw new SeatIsNotAvailableException();
+        }
+
         if (seatNumber == null) {
             // Automatically assign the first available seat, if so
-            final String newSeatNumber = flightService.issueSeatNumber(flight, ticketClass)
+            final String newSeatNumber = flightService.claimFirstAvailableSeatNumber(flight, ticketClass)
                     .orElseThrow(SeatIsNotAvailableException::new);
             ticket.setSeatNumber(newSeatNumber);
         } else {
             // Customer selected a custom seat that needs to be validated before setting
             var isSeatNumberValid = flightService.isSeatNumberValid(flight, ticketClass, seatNumber);
-            var isSeatNumberOccupied = flightService.isSeatNumberOccupied(flight, seatNumber);
 
-            if (!isSeatNumberValid || isSeatNumberOccupied) {
+            if (!isSeatNumberValid) {
                 throw new SeatIsNotAvailableException();
             }
 
             ticketPrice += getTicketExtraPriceForCustomSeat(ticket)
                     .orElseThrow(InvalidFlightException::new);
+
+            // Claiming fails, if the seat is occupied or somebody is booking it right now
+            if (!flightService.claimSeatNumber(flight, seatNumber)) {
+                throw new SeatIsNotAvailableException();
+            }
+
+            ticket.setSeatNumber(SeatCodec.normalize(seatNumber));
+        }
+
+        try {
+            customerService.chargeCustomerCredit(ticket.getCustomer(), ticketPrice);
+
+            // Sold seat is counted last, the counter update locks the flight row until the commit,
+            // so concurrent bookings of the flight wait only for the insert of the ticket, not for the whole booking
+            reserveTicketClassSeat(flight, ticketClass, previousFlight);
+        } catch (RuntimeException e) {
+            // Without a transaction only, inside one the rollback releases the seat
+            flightService.releaseSeatNumber(flight, ticket.getSeatNumber());
+            throw e;
         }
 
         ticket.setPrice(ticketPrice);
         ticket.setDiscount(0.0);
         ticket.setPriceAfterDiscount(ticketPrice);
+    }
 
-        customerService.chargeCustomerCredit(ticket.getCustomer(), ticketPrice);
+    /**
+     * Reads, changes and writes the ticket in one transaction, see {@link #changeSeatNumber(Ticket, String)}.
+     * @return changed ticket or empty, if there is no ticket with the id
+     */
+    @Transactional
+    @Counted(value = MetricNames.BOOKING_CHANGES, description = "Changes of booked tickets by their outcome, the method tells seat changes, upgrades and transfers apart")
+    public Optional<Ticket> changeSeatNumber(Long id, String seatNumber) {
+        // Ticket is managed by the transaction, its changes are flushed once, right after they are made
+        return ticketRepository.findById(id).map(ticket -> {
+            changeSeatNumber(ticket, seatNumber);
+            return writeSeatNumbers(ticket.getFlight(), () -> ticketRepository.saveAndFlush(ticket));
+        });
     }
 
     public void changeSeatNumber(Ticket ticket, String seatNumber) {
         var flight = ticket.getFlight();
         var ticketClass = ticket.getTicketClass();
         var isSeatNumberValid = flightService.isSeatNumberValid(flight, ticketClass, seatNumber);
-        var isSeatNumberOccupied = flightService.isSeatNumberOccupied(flight, seatNumber);
 
-        if (!isSeatNumberValid || isSeatNumberOccupied) {
+        if (!isSeatNumberValid) {
             throw new SeatIsNotAvailableException();
         }
 
@@ -108,11 +236,25 @@ public class TicketService {
                 .orElseThrow(InvalidFlightException::new);
         final double updatedTicketPrice = ticket.getPrice() + priceForSeatChange;
 
-        customerService.chargeCustomerCredit(ticket.getCustomer(), priceForSeatChange);
+        // Claiming fails, if the seat is occupied or somebody is booking it right now
+        if (!flightService.claimSeatNumber(flight, seatNumber)) {
+            throw new SeatIsNotAvailableException();
+        }
+
+        try {
+            customerService.chargeCustomerCredit(ticket.getCustomer(), priceForSeatChange);
+        } catch (RuntimeException e) {
+            flightService.releaseSeatNumber(flight, seatNumber);
+            throw e;
+        }
+
+        final String oldSeatNumber = ticket.getSeatNumber();
 
         ticket.setPrice(updatedTicketPrice);
         ticket.setPriceAfterDiscount(updatedTicketPrice);
-        ticket.setSeatNumber(seatNumber);
+        ticket.setSeatNumber(SeatCodec.normalize(seatNumber));
+
+        flightService.releaseSeatNumberAfterCommit(flight, oldSeatNumber);
     }
 
     public boolean isTicketClassUpgradeValid(TicketClass newTicketClass, TicketClass oldTicketClass) {
@@ -134,6 +276,19 @@ public class TicketService {
         return true;
     }
 
+    /**
+     * Reads, changes and writes the ticket in one transaction, see {@link #upgradeTicketClass(Ticket, TicketClass)}.
+     * @return changed ticket or empty, if there is no ticket with the id
+     */
+    @Transactional
+    @Counted(value = MetricNames.BOOKING_CHANGES, description = "Changes of booked tickets by their outcome, the method tells seat changes, upgrades and transfers apart")
+    public Optional<Ticket> upgradeTicketClass(Long id, TicketClass newTicketClass) {
+        return ticketRepository.findById(id).map(ticket -> {
+            upgradeTicketClass(ticket, newTicketClass);
+            return writeSeatNumbers(ticket.getFlight(), () -> ticketRepository.saveAndFlush(ticket));
+        });
+    }
+
     public void upgradeTicketClass(Ticket ticket, TicketClass newTicketClass) {
         var oldTicketClass = ticket.getTicketClass();
 
@@ -142,26 +297,55 @@ public class TicketService {
         }
 
         var flight = ticket.getFlight();
-        var isTicketClassSeatsAvailable = flightService.isTicketClassSeatsAvailable(flight, newTicketClass);
 
-        if (!isTicketClassSeatsAvailable) {
+        // Sold out class is refused by the loaded counters right away, the sold seat is counted atomically at the end
+        if (!flightService.isTicketClassSeatsAvailable(flight, newTicketClass)) {
             throw new SeatIsNotAvailableException();
         }
 
         final String newSeatNumber = flightService
-                .issueSeatNumber(flight, newTicketClass)
-                // This exception should NOT happen, since seat availability was validated before
+                .claimFirstAvailableSeatNumber(flight, newTicketClass)
+                // Concurrent bookings could take the remaining seats in the meantime
                 .orElseThrow(SeatIsNotAvailableException::new);
-        ticket.setSeatNumber(newSeatNumber);
 
         final double priceForTicketClassUpgrade = flight.getFareTariff().getPriceByTicketClass(newTicketClass) - ticket.getPrice();
         final double updatedTicketPrice = ticket.getPrice() + priceForTicketClassUpgrade;
 
-        customerService.chargeCustomerCredit(ticket.getCustomer(), priceForTicketClassUpgrade);
+        try {
+            customerService.chargeCustomerCredit(ticket.getCustomer(), priceForTicketClassUpgrade);
 
+            // Sold seat is counted last, the counter update locks the flight row until the commit
+            if (!flightService.reserveTicketClassSeat(flight, newTicketClass)) {
+                throw new SeatIsNotAvailableException();
+            }
+        } catch (RuntimeException e) {
+            // Without a transaction only, inside one the rollback releases the seat
+            flightService.releaseSeatNumber(flight, newSeatNumber);
+            throw e;
+        }
+
+        final String oldSeatNumber = ticket.getSeatNumber();
+
+        ticket.setSeatNumber(newSeatNumber);
         ticket.setPrice(updatedTicketPrice);
         ticket.setPriceAfterDiscount(updatedTicketPrice);
         ticket.setTicketClass(newTicketClass);
+
+        flightService.releaseTicketClassSeat(flight, oldTicketClass);
+        flightService.releaseSeatNumberAfterCommit(flight, oldSeatNumber);
+    }
+
+    /**
+     * Reads, changes and writes the ticket in one transaction, see {@link #transferTicketToOtherFlight(Ticket, Flight)}.
+     * @return changed ticket or empty, if there is no ticket with the id
+     */
+    @Transactional
+    @Counted(value = MetricNames.BOOKING_CHANGES, description = "Changes of booked tickets by their outcome, the method tells seat changes, upgrades and transfers apart")
+    public Optional<Ticket> transferTicketToOtherFlight(Long id, Flight newFlight) {
+        return ticketRepository.findById(id).map(ticket -> {
+            transferTicketToOtherFlight(ticket, newFlight);
+            return writeSeatNumbers(newFlight, () -> ticketRepository.saveAndFlush(ticket));
+        });
     }
 
     public Ticket transferTicketToOtherFlight(Ticket ticket, Flight newFlight) {
@@ -186,8 +370,18 @@ public class TicketService {
             throw new InvalidTransferInformationException(invalidTransferInformationDetail);
         }
 
+        final String oldSeatNumber = ticket.getSeatNumber();
         ticket.setSeatNumber(null);
-        assignSeatNumber(newFlight, ticket);
+
+        try {
+            // Sold seat of the old flight is released by the rollback, if the transfer fails
+            assignSeatNumber(newFlight, ticket, oldTicketFlight);
+        } catch (RuntimeException e) {
+            ticket.setSeatNumber(oldSeatNumber);
+            throw e;
+        }
+
+        flightService.releaseSeatNumberAfterCommit(oldTicketFlight, oldSeatNumber);
 
         ticket.setFlight(newFlight);
         ticket.setDeparture(newFlight.getDeparture());
@@ -195,4 +389,47 @@ public class TicketService {
 
         return ticket;
     }
+
+    /**
+     * Counts the sold seat of the flight and releases the sold seat of the previous flight, if any.
+     * Both counter updates lock rows of their flights until the commit, so they are made in the order
+     * of the flight ids and two transfers between the same flights in opposite directions cannot deadlock.
+     */
+    private void reserveTicketClassSeat(Flight flight, TicketClass ticketClass, Flight previousFlight) {
+        boolean previousFlightFirst = previousFlight != null
+                && previousFlight.getId() != null
+                && flight.getId() != null
+                && previousFlight.getId() < flight.getId();
+
+        if (previousFlightFirst) {
+            flightService.releaseTicketClassSeat(previousFlight, ticketClass);
+        }
+
+        if (!flightService.reserveTicketClassSeat(flight, ticketClass)) {
+            throw new SeatIsNotAvailableException();
+        }
+
+        if (previousFlight != null && !previousFlightFirst) {
+            flightService.releaseTicketClassSeat(previousFlight, ticketClass);
+        }
+    }
+
+    /**
+     * Writes seat numbers of the tickets to the database right away. A seat sold by another instance or imported
+     * in the meantime is refused by the unique index of the seat numbers and reported as not available.
+     */
+    private <T> T writeSeatNumbers(Flight flight, Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException violation
+                    && Ticket.SEAT_NUMBER_INDEX.equalsIgnoreCase(violation.getConstraintName())) {
+                // Claims of this instance don't know about the seat, they are seeded again from the tickets
+                flightService.refreshSeatNumbersAfterCompletion(flight);
+                throw new SeatIsNotAvailableException();
+            }
+
+            throw e;
+        }
+    }
 }
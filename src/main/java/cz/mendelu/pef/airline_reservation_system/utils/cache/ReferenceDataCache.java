@@ -0,0 +1,106 @@
+package cz.mendelu.pef.airline_reservation_system.utils.cache;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * All rows of a small, rarely changed table (aircrafts, fare tariffs) held as an immutable snapshot,
+ * so reads neither query the database nor take a lock.
+ * <p>
+ * Snapshot is loaded on the first read and dropped by {@link #invalidate()} after every write, the next read loads it again.
+ * Cached entities are shared by all readers, so they must be changed only right before they are saved
+ * and the cache is invalidated.
+ */
+public class ReferenceDataCache<T> {
+
+    private final Supplier<List<T>> loader;
+
+    private final Function<T, Long> idGetter;
+
+    private volatile Snapshot<T> snapshot;
+
+    // Incremented by every invalidation, so a snapshot loaded before a write is never stored after it
+    private long generation = 0;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param loader loads all rows in the order, in which {@link #getAll()} returns them
+     */
+    public ReferenceDataCache(Supplier<List<T>> loader, Function<T, Long> idGetter) {
+        this.loader = loader;
+        this.idGetter = idGetter;
+    }
+
+    public List<T> getAll() {
+        return getSnapshot().rows();
+    }
+
+    public Optional<T> get(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(getSnapshot().rowsById().get(id));
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        snapshot = null;
+    }
+
+    /**
+     * @return number of reads answered by a loaded snapshot
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of reads that had to load the snapshot
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private Snapshot<T> getSnapshot() {
+        Snapshot<T> current = snapshot;
+
+        if (current != null) {
+            hits.increment();
+            return current;
+        }
+
+        misses.increment();
+
+        long loadedGeneration;
+
+        synchronized (this) {
+            loadedGeneration = generation;
+        }
+
+        // Concurrent misses may load the table more than once, it's cheaper than making every read wait for a lock
+        List<T> rows = List.copyOf(loader.get());
+        Map<Long, T> rowsById = new HashMap<>(rows.size() * 2);
+        rows.forEach(row -> rowsById.put(idGetter.apply(row), row));
+        current = new Snapshot<>(rows, Map.copyOf(rowsById));
+
+        synchronized (this) {
+            if (generation == loadedGeneration) {
+                snapshot = current;
+            }
+        }
+
+        return current;
+    }
+
+    private record Snapshot<T>(List<T> rows, Map<Long, T> rowsById) {
+    }
+}
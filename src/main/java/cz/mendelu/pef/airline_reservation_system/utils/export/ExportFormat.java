@@ -0,0 +1,31 @@
+package cz.mendelu.pef.airline_reservation_system.utils.export;
+
+import cz.mendelu.pef.airline_reservation_system.utils.exceptions.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+    // One JSON object per line
+    NDJSON("ndjson", MediaType.APPLICATION_NDJSON),
+    CSV("csv", new MediaType("text", "csv"));
+
+    private final String extension;
+
+    private final MediaType mediaType;
+
+    /**
+     * @param extension case-insensitive extension of the format, e.g. `csv`
+     */
+    public static ExportFormat of(String extension) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(extension)) {
+                return format;
+            }
+        }
+
+        throw new BadRequestException();
+    }
+}
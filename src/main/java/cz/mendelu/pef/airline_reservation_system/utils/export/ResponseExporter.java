@@ -0,0 +1,114 @@
+package cz.mendelu.pef.airline_reservation_system.utils.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes rows of a query to the response as they are read from a database cursor,
+ * so exports of whole tables run in constant memory regardless of the number of rows.
+ */
+@Component
+public class ResponseExporter {
+
+    /**
+     * Rows read from the database cursor at once, use it as the fetch size hint of export queries.
+     */
+    public static final String FETCH_SIZE = "1000";
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final CsvMapper csvMapper;
+
+    public ResponseExporter(PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper
+                .builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    /**
+     * @param name file name of the export without extension
+     * @param rowType class of the rows, its properties are columns of the CSV format
+     * @param rows query returning a stream of the rows, it's called in a read-only transaction
+     */
+    public <T> ResponseEntity<StreamingResponseBody> export(
+            String name,
+            ExportFormat format,
+            Class<T> rowType,
+            Supplier<Stream<T>> rows
+    ) {
+        // Body is written after the controller returns, so the stream needs its own transaction
+        StreamingResponseBody body = outputStream -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<T> stream = rows.get()) {
+                switch (format) {
+                    case NDJSON -> writeNdjson(stream.iterator(), outputStream);
+                    case CSV -> writeCsv(stream.iterator(), rowType, outputStream);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        ContentDisposition contentDisposition = ContentDisposition
+                .attachment()
+                .filename(name + "." + format.getExtension())
+                .build();
+
+        return ResponseEntity
+                .ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .body(body);
+    }
+
+    private <T> void writeNdjson(Iterator<T> rows, OutputStream outputStream) throws IOException {
+        // Same serialization as the JSON API
+        ObjectWriter writer = objectMapper.writer();
+
+        while (rows.hasNext()) {
+            outputStream.write(writer.writeValueAsBytes(rows.next()));
+            outputStream.write('\n');
+        }
+    }
+
+    private <T> void writeCsv(Iterator<T> rows, Class<T> rowType, OutputStream outputStream) throws IOException {
+        CsvSchema schema = csvMapper
+                .schemaFor(rowType)
+                .withHeader();
+
+        // Response stream is closed by Spring after the body is written
+        try (SequenceWriter writer = csvMapper
+                .writer(schema)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(outputStream)) {
+            while (rows.hasNext()) {
+                writer.write(rows.next());
+            }
+        }
+    }
+}
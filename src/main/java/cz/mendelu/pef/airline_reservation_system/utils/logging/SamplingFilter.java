@@ -0,0 +1,60 @@
+package cz.mendelu.pef.airline_reservation_system.utils.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through only every n-th event of a logger (and its child loggers), events of other loggers are left
+ * to the next filters. Keeps a burst of e.g. slow queries under load from flooding the log.
+ * <p>
+ * Configured in `logback-spring.xml`:
+ * <pre>
+ * &lt;filter class="cz.mendelu.pef.airline_reservation_system.utils.logging.SamplingFilter"&gt;
+ *     &lt;loggerName&gt;org.hibernate.SQL_SLOW&lt;/loggerName&gt;
+ *     &lt;sampleRate&gt;10&lt;/sampleRate&gt;
+ * &lt;/filter&gt;
+ * </pre>
+ */
+public class SamplingFilter extends Filter<ILoggingEvent> {
+
+    private final AtomicLong events = new AtomicLong();
+
+    private String loggerName;
+
+    private int sampleRate = 1;
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (loggerName == null || !isSampledLogger(event.getLoggerName())) {
+            return FilterReply.NEUTRAL;
+        }
+
+        // The first event is always logged
+        return events.getAndIncrement() % sampleRate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    @Override
+    public void start() {
+        if (sampleRate < 1) {
+            addError("Sample rate must be at least 1, is " + sampleRate);
+            return;
+        }
+
+        super.start();
+    }
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    private boolean isSampledLogger(String name) {
+        return name.equals(loggerName) || (name.startsWith(loggerName) && name.charAt(loggerName.length()) == '.');
+    }
+}
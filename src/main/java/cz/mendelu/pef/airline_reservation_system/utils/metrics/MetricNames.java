@@ -0,0 +1,31 @@
+package cz.mendelu.pef.airline_reservation_system.utils.metrics;
+
+/**
+ * Names of the meters of the services, shared by all methods and classes that record into the same meter.
+ */
+public final class MetricNames {
+
+    public static final String BOOKING_CREATE = "booking.create";
+
+    public static final String BOOKING_CREATE_GROUP = "booking.create.group";
+
+    // Bookings by their outcome (exception), tagged by the method
+    public static final String BOOKING_ATTEMPTS = "booking.attempts";
+
+    // Seat changes, upgrades and transfers of booked tickets by their outcome (exception), tagged by the method
+    public static final String BOOKING_CHANGES = "booking.changes";
+
+    public static final String BOOKING_SEAT_ALLOCATION = "booking.seat.allocation";
+
+    // Every single claim of a seat, also the ones lost to a concurrent booking, tagged by the result
+    public static final String BOOKING_SEAT_ALLOCATION_ATTEMPTS = "booking.seat.allocation.attempts";
+
+    public static final String BOOKING_CREDIT_CHARGE = "booking.credit.charge";
+
+    public static final String FLIGHT_SEATS_AVAILABLE = "flight.seats.available";
+
+    public static final String REPORTS_GENERATE = "reports.generate";
+
+    private MetricNames() {
+    }
+}
@@ -0,0 +1,69 @@
+package cz.mendelu.pef.airline_reservation_system.utils.metrics;
+
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftService;
+import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariffService;
+import cz.mendelu.pef.airline_reservation_system.utils.cache.ReferenceDataCache;
+import io.micrometer.core.aop.CountedAspect;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Metrics of the services on top of the metrics of Spring Boot (requests, Hikari pool, JVM), scraped from `/actuator/prometheus`.
+ * <p>
+ * Service methods annotated by {@link io.micrometer.core.annotation.Timed} and {@link io.micrometer.core.annotation.Counted}
+ * are measured only, when they are called through the Spring proxy, i.e. from another bean.
+ */
+@Configuration
+public class MetricsConfiguration implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsConfiguration(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public TimedAspect timedAspect() {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public CountedAspect countedAspect() {
+        return new CountedAspect(meterRegistry);
+    }
+
+    /**
+     * Hits and misses of the reference data caches as `cache.gets`, like caches of Spring.
+     */
+    @Bean
+    public MeterBinder referenceDataCacheMetrics(AircraftService aircraftService, FareTariffService fareTariffService) {
+        return registry -> {
+            bindCache(registry, "aircrafts", aircraftService.getAircraftCache());
+            bindCache(registry, "fare_tariffs", fareTariffService.getFareTariffCache());
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new QueryCountInterceptor(meterRegistry));
+    }
+
+    private static void bindCache(MeterRegistry registry, String name, ReferenceDataCache<?> cache) {
+        FunctionCounter
+                .builder("cache.gets", cache, ReferenceDataCache::getHits)
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter
+                .builder("cache.gets", cache, ReferenceDataCache::getMisses)
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+    }
+}
@@ -0,0 +1,30 @@
+package cz.mendelu.pef.airline_reservation_system.utils.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts statements prepared by Hibernate on the current thread, so {@link QueryCountInterceptor} can record
+ * the statements of every request. Statements are not changed.
+ * <p>
+ * Registered by `hibernate.session_factory.statement_inspector` in `application.properties`,
+ * statements of a JDBC batch are prepared and counted once.
+ */
+public class QueryCountingStatementInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int getCount() {
+        return COUNT.get()[0];
+    }
+}
@@ -1,10 +1,13 @@
 package cz.mendelu.pef.airline_reservation_system.utils.response;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.function.Function;
@@ -19,8 +22,27 @@ public class ArrayResponse<T> {
         List<T> responses = items.stream()
                 .map(mapper)
                 .toList();
-        return new ArrayResponse<>(responses, responses.size());
+        return new ArrayResponse<>(responses, responses.size(), null);
+    }
+
+    /**
+     * @param items slice of items sorted by id
+     * @param cursor id of an item, which is passed as `after` to get the items following it
+     */
+    static public <I, T> ArrayResponse<T> of(Slice<I> items, Function<I, T> mapper, Function<I, ?> cursor) {
+        ArrayResponse<T> response = of(items.getContent(), mapper);
+
+        if (items.hasNext() && items.hasContent()) {
+            response.nextCursor = cursor.apply(items.getContent().get(items.getNumberOfElements() - 1));
+        }
+
+        return response;
     }
 
     int count;
-}
\ No newline at end of file
+
+    // Missing on the last page
+    @JsonProperty("next_cursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Object nextCursor;
+}
@@ -0,0 +1,50 @@
+package cz.mendelu.pef.airline_reservation_system.utils.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs actions once the current transaction ends, or immediately, if there is no transaction.
+ * <p>
+ * Entity listeners use it to keep in-memory stores (seat claims, indexes, reports) in sync with committed changes only.
+ * Listeners are created together with the entity manager factory, which the stores' repositories depend on,
+ * so they resolve the stores lazily through an {@code ObjectProvider}. The stores are loaded from the database
+ * on their first read and ignore changes made before it, because the load reads them from the database anyway.
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Runs the action after the current transaction is committed, it's dropped, if the transaction is rolled back.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Runs the action after the current transaction is committed or rolled back.
+     */
+    public static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package cz.mendelu.pef.airline_reservation_system;
+
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftService;
+import cz.mendelu.pef.airline_reservation_system.domain.airport.AirportService;
+import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariffService;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRouteGraph;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.ScheduledFlightIndex;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.SeatReservations;
+import cz.mendelu.pef.airline_reservation_system.domain.reports.ReportsStore;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+
+/**
+ * Drops all in-memory stores and caches after the `@Sql` scripts of a test are run, because the scripts
+ * bypass the application and the application context is shared by all tests.
+ */
+public class InMemoryStoresResetListener extends AbstractTestExecutionListener {
+
+    // After `SqlScriptsTestExecutionListener`
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public void beforeTestMethod(TestContext testContext) {
+        ApplicationContext context = testContext.getApplicationContext();
+
+        context.getBeanProvider(ReportsStore.class).ifAvailable(ReportsStore::invalidate);
+        context.getBeanProvider(ScheduledFlightIndex.class).ifAvailable(ScheduledFlightIndex::invalidate);
+        context.getBeanProvider(FlightRouteGraph.class).ifAvailable(FlightRouteGraph::invalidate);
+        context.getBeanProvider(AircraftService.class).ifAvailable(service -> service.getAircraftCache().invalidate());
+        context.getBeanProvider(FareTariffService.class).ifAvailable(service -> service.getFareTariffCache().invalidate());
+        context.getBeanProvider(AirportService.class).ifAvailable(AirportService::invalidateAirportCatalogue);
+        context.getBeanProvider(AirportService.class).ifAvailable(AirportService::invalidateDistanceCache);
+        context.getBeanProvider(SeatReservations.class).ifAvailable(SeatReservations::evictAll);
+    }
+}
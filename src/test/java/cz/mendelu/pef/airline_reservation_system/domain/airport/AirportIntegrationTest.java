@@ -12,7 +12,7 @@ import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import static io.restassured.RestAssured.given;
-import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.*;
 
 @ActiveProfiles("test")
 @ExtendWith(SpringExtension.class)
@@ -187,4 +187,62 @@ public class AirportIntegrationTest {
                 .then()
                 .statusCode(409);
     }
+
+    @Test
+    public void testGetNearbyAirports() {
+        given()
+                .queryParam("latitude", 40.0)
+                .queryParam("longitude", -80.0)
+                .queryParam("radius_km", 1000)
+                .when()
+                .get("/airports/nearby")
+                .then()
+                .statusCode(200)
+                .body("count", is(1))
+                .body("items[0].id", is(1))
+                .body("items[0].code", is("BQK"))
+                .body("items[0].distance_km", allOf(greaterThan(981.2f), lessThan(981.4f)));
+    }
+
+    @Test
+    public void testGetNearbyAirports_InvalidLatitude() {
+        given()
+                .queryParam("latitude", 91.0)
+                .queryParam("longitude", -80.0)
+                .queryParam("radius_km", 1000)
+                .when()
+                .get("/airports/nearby")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    public void testGetNearestAirports() {
+        final Long id = 1L;
+
+        given()
+                .pathParam("id", id)
+                .queryParam("limit", 5)
+                .when()
+                .get("/airports/{id}/nearest")
+                .then()
+                .statusCode(200)
+                .body("count", is(2))
+                .body("items[0].code", is("DEB"))
+                .body("items[0].distance_km", allOf(greaterThan(8385.8f), lessThan(8386.0f)))
+                .body("items[1].code", is("TKD"))
+                .body("items[1].distance_km", allOf(greaterThan(8725.2f), lessThan(8725.4f)));
+    }
+
+    @Test
+    public void testGetNearestAirports_NotFound() {
+        final Long id = 100L;
+
+        given()
+                .pathParam("id", id)
+                .when()
+                .get("/airports/{id}/nearest")
+                .then()
+                .statusCode(404);
+    }
 }
@@ -0,0 +1,173 @@
+package cz.mendelu.pef.airline_reservation_system.domain.airport;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AirportUnitTest {
+
+    @Test
+    public void testCalculateDistanceBetweenAirports_CachedUntilAirportUpdate() {
+        // given
+        AirportRepository airportRepository = mock(AirportRepository.class);
+        when(airportRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        AirportService airportService = new AirportService(airportRepository);
+
+        Airport airport1 = getAirportForTesting(1L, 31.255053, -81.466932);
+        Airport airport2 = getAirportForTesting(2L, 47.491676, 21.609334);
+
+        // when
+        double distance = airportService.calculateDistanceBetweenAirports(airport1, airport2);
+        double cachedDistance = airportService.calculateDistanceBetweenAirports(airport1, airport2);
+
+        Airport movedAirport2 = getAirportForTesting(2L, 31.255053, -81.466932);
+        airportService.updateAirport(2L, movedAirport2);
+        double distanceAfterUpdate = airportService.calculateDistanceBetweenAirports(airport1, movedAirport2);
+
+        // then
+        assertThat(distance, closeTo(8385.9, 0.1));
+        assertThat(cachedDistance, is(distance));
+        assertThat(distanceAfterUpdate, is(0.0));
+    }
+
+    @Test
+    public void testAirportDistanceCache() {
+        // given
+        AirportDistanceCache distanceCache = new AirportDistanceCache();
+
+        // when
+        for (long origin = 1; origin <= 100; origin++) {
+            for (long destination = 1; destination <= 100; destination++) {
+                distanceCache.put(origin, destination, origin * 1000 + destination, distanceCache.getGeneration());
+            }
+        }
+
+        // then
+        assertThat(distanceCache.size(), is(10000));
+        assertThat(distanceCache.get(42, 7), is(42007.0));
+        assertThat(distanceCache.get(7, 42), is(7042.0));
+        assertThat(Double.isNaN(distanceCache.get(101, 1)), is(true));
+
+        distanceCache.clear();
+
+        assertThat(distanceCache.size(), is(0));
+        assertThat(Double.isNaN(distanceCache.get(42, 7)), is(true));
+    }
+
+    @Test
+    public void testAirportDistanceCache_DistanceComputedBeforeClearNotStored() {
+        // given
+        AirportDistanceCache distanceCache = new AirportDistanceCache();
+        long generation = distanceCache.getGeneration();
+
+        // when
+        distanceCache.clear();
+        distanceCache.put(1, 2, 100.0, generation);
+
+        // then
+        assertThat(distanceCache.size(), is(0));
+        assertThat(Double.isNaN(distanceCache.get(1, 2)), is(true));
+
+        distanceCache.put(1, 2, 200.0, distanceCache.getGeneration());
+
+        assertThat(distanceCache.get(1, 2), is(200.0));
+    }
+
+    @Test
+    public void testAirportCatalogue_MatchesAllDistances() {
+        // given
+        AirportService airportService = new AirportService(null);
+        Random random = new Random(42);
+        List<AirportLocation> airports = new ArrayList<>();
+
+        // Airports near the poles and the antimeridian as well
+        for (long id = 1; id <= 2000; id++) {
+            double latitude = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+            double longitude = 360 * random.nextDouble() - 180;
+            airports.add(new AirportLocation(id, "A" + id, "Airport " + id, "CZ", latitude, longitude));
+        }
+
+        AirportCatalogue catalogue = new AirportCatalogue(airports);
+
+        for (int query = 0; query < 50; query++) {
+            AirportLocation origin = airports.get(random.nextInt(airports.size()));
+            double radiusInKm = 200 + 2000 * random.nextDouble();
+
+            List<AirportLocation> sortedByDistance = airports
+                    .stream()
+                    .sorted(Comparator.comparingDouble(airport -> airportService.calculateDistance(
+                            origin.latitude(), origin.longitude(), airport.latitude(), airport.longitude()
+                    )))
+                    .toList();
+            long airportsWithinRadius = sortedByDistance
+                    .stream()
+                    .filter(airport -> airportService.calculateDistance(
+                            origin.latitude(), origin.longitude(), airport.latitude(), airport.longitude()
+                    ) <= radiusInKm)
+                    .count();
+
+            // when
+            List<NearbyAirport> nearest = catalogue.getNearestAirports(origin, 10);
+            List<NearbyAirport> withinRadius = catalogue.getAirportsWithinRadius(
+                    origin.latitude(), origin.longitude(), radiusInKm, Integer.MAX_VALUE
+            );
+
+            // then
+            assertThat(nearest.stream().map(NearbyAirport::airport).toList(), is(sortedByDistance.subList(1, 11)));
+            assertThat((long) withinRadius.size(), is(airportsWithinRadius));
+            assertThat(withinRadius.get(0).airport(), is(origin));
+
+            for (NearbyAirport nearbyAirport : nearest) {
+                assertThat(nearbyAirport.distanceInKm(), closeTo(airportService.calculateDistance(
+                        origin.latitude(),
+                        origin.longitude(),
+                        nearbyAirport.airport().latitude(),
+                        nearbyAirport.airport().longitude()
+                ), 0.001));
+            }
+        }
+
+        assertThat(catalogue.size(), is(2000));
+        assertThat(catalogue.getAirport(42L).orElseThrow(), is(airports.get(41)));
+    }
+
+    @Test
+    public void testAirportCatalogue_RebuiltAfterAirportUpdate() {
+        // given
+        AirportRepository airportRepository = mock(AirportRepository.class);
+        when(airportRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(airportRepository.getAllAirportLocations()).thenReturn(
+                List.of(new AirportLocation(1L, "BQK", "Brunswick Golden Isles Airport", "US", 31.255053, -81.466932)),
+                List.of(new AirportLocation(1L, "BQK", "Brunswick Golden Isles Airport", "US", 47.491676, 21.609334))
+        );
+        AirportService airportService = new AirportService(airportRepository);
+
+        // when
+        List<NearbyAirport> nearbyBeforeUpdate = airportService.getAirportsWithinRadius(47.5, 21.6, 100, 10);
+        airportService.updateAirport(1L, getAirportForTesting(1L, 47.491676, 21.609334));
+        List<NearbyAirport> nearbyAfterUpdate = airportService.getAirportsWithinRadius(47.5, 21.6, 100, 10);
+
+        // then
+        assertThat(nearbyBeforeUpdate, is(empty()));
+        assertThat(nearbyAfterUpdate, hasSize(1));
+        assertThat(nearbyAfterUpdate.get(0).distanceInKm(), closeTo(1.16, 0.01));
+    }
+
+    private static Airport getAirportForTesting(Long id, double latitude, double longitude) {
+        Airport airport = new Airport();
+        airport.setId(id);
+        airport.setLatitude(latitude);
+        airport.setLongitude(longitude);
+
+        return airport;
+    }
+}
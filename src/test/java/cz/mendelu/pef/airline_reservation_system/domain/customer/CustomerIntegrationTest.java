@@ -234,4 +234,30 @@ public class CustomerIntegrationTest {
                 .statusCode(200)
                 .body("items", not(containsInAnyOrder(id.toString())));
     }
+
+    @Test
+    public void deleteCustomerById_SoldSeatsOfTicketsReleased() {
+        final UUID id = UUID.fromString("35645ea7-2b38-430d-aab8-f72302cdc2c8");
+
+        given()
+                .pathParam("id", id.toString())
+                .when()
+                .delete("/customers/{id}")
+                .then()
+                .statusCode(204);
+
+        // Premium ticket of the customer on flight 1 was deleted by the cascade, business ticket of another customer stays
+        given()
+                .queryParam("from", "BQK")
+                .queryParam("to", "TKD")
+                .queryParam("date", "2017-07-16")
+                .when()
+                .get("/flights/search")
+                .then()
+                .statusCode(200)
+                .body("items[0].flights[0].id", is(1))
+                .body("items[0].flights[0].available_seats.Business", is(2))
+                .body("items[0].flights[0].available_seats.Premium", is(16))
+                .body("items[0].flights[0].available_seats.Economy", is(125));
+    }
 }
@@ -0,0 +1,68 @@
+package cz.mendelu.pef.airline_reservation_system.domain.data_import;
+
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql("/test-data/cleanup.sql")
+@Sql("/test-data/base-data.sql")
+public class ImportIntegrationTest {
+    private final static String BASE_URI = "http://localhost";
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    public void configureRestAssured() {
+        RestAssured.baseURI = BASE_URI;
+        RestAssured.port = port;
+    }
+
+    @Test
+    public void testImportTickets() {
+        String csv = """
+                id,number,class,price,discount,price_after_discount,seat_number,passenger_full_name,departure,arrival,flight_id,customer_id
+                10,0000721866145,Economy,,,,10A,Marry Smith,,,3,35645ea7-2b38-430d-aab8-f72302cdc2c8
+                11,0000721866146,,,,,10B,Ben Rope,,,3,0931192f-35a2-461b-bc85-133290c63c67
+                12,0000721866147,Economy,,,,10C,Nobody,,,3,00000000-0000-0000-0000-000000000000
+                """;
+
+        given()
+                .contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/imports/tickets")
+                .then()
+                .statusCode(200)
+                .body("content.table", is("ticket"))
+                .body("content.imported_rows", is(1))
+                .body("content.failed_rows", is(2))
+                .body("content.errors[0].row", is(2))
+                .body("content.errors[0].message", is("ticketClass: must not be null"))
+                .body("content.errors[1].row", is(3))
+                .body("content.errors[1].message", containsString("customer"));
+
+        given()
+                .pathParam("id", 10)
+                .when()
+                .get("/tickets/{id}")
+                .then()
+                .statusCode(200)
+                .body("content.number", is("0000721866145"))
+                .body("content.price", is(737.0f))
+                .body("content.price_after_discount", is(737.0f))
+                .body("content.seat_number", is("10A"));
+    }
+}
@@ -180,6 +180,14 @@ public class FareTariffIntegrationTest {
                 .delete("/fare_tariffs")
                 .then()
                 .statusCode(204);
+
+        // Flight 1 used the deleted fare tariff
+        given()
+                .when()
+                .get("/flights/1")
+                .then()
+                .statusCode(200)
+                .body("content.fare_tariff_id", is(replacementId.intValue()));
     }
 
     @Test
@@ -0,0 +1,116 @@
+package cz.mendelu.pef.airline_reservation_system.domain.fare_tariff;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class FareTariffUnitTest {
+
+    @Test
+    public void testGetFareTariffs_CachedUntilFareTariffUpdate() {
+        // given
+        FareTariffRepository fareTariffRepository = mock(FareTariffRepository.class);
+        FareTariff fareTariff1 = getFareTariffForTesting(1L, "AB99");
+        FareTariff fareTariff2 = getFareTariffForTesting(2L, "SK91");
+        when(fareTariffRepository.findAll()).thenReturn(List.of(fareTariff1, fareTariff2));
+        when(fareTariffRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        FareTariffService fareTariffService = new FareTariffService(fareTariffRepository, null);
+
+        // when
+        List<FareTariff> fareTariffs = fareTariffService.getAllFareTariffs();
+        FareTariff cachedFareTariff = fareTariffService.getFareTariffById(2L).orElseThrow();
+        boolean missingFareTariffFound = fareTariffService.getFareTariffById(999L).isPresent();
+
+        // then
+        assertThat(fareTariffs.size(), is(2));
+        assertThat(cachedFareTariff.getCode(), is("SK91"));
+        assertThat(missingFareTariffFound, is(false));
+        verify(fareTariffRepository, times(1)).findAll();
+        verify(fareTariffRepository, never()).findById(any());
+        assertThat(fareTariffService.getFareTariffCache().getMisses(), is(1L));
+        assertThat(fareTariffService.getFareTariffCache().getHits(), is(2L));
+
+        // when
+        fareTariffService.updateFareTariff(2L, cachedFareTariff);
+        fareTariffService.getAllFareTariffs();
+
+        // then
+        verify(fareTariffRepository, times(2)).findAll();
+        assertThat(fareTariffService.getFareTariffCache().getMisses(), is(2L));
+    }
+
+    @Test
+    public void testGetFareTariffByIdForUpdate_CachedInstanceNotChanged() {
+        // given
+        FareTariffRepository fareTariffRepository = mock(FareTariffRepository.class);
+        when(fareTariffRepository.findAll()).thenReturn(List.of(getFareTariffForTesting(2L, "SK91")));
+        when(fareTariffRepository.findById(2L)).thenReturn(Optional.of(getFareTariffForTesting(2L, "SK91")));
+        when(fareTariffRepository.save(any())).thenThrow(new IllegalStateException());
+        FareTariffService fareTariffService = new FareTariffService(fareTariffRepository, null);
+        FareTariff cachedFareTariff = fareTariffService.getFareTariffById(2L).orElseThrow();
+
+        // when
+        FareTariff fareTariff = fareTariffService.getFareTariffByIdForUpdate(2L).orElseThrow();
+        fareTariff.setCode("XX00");
+
+        assertThrows(IllegalStateException.class, () -> fareTariffService.updateFareTariff(2L, fareTariff));
+
+        // then
+        assertThat(fareTariff, not(sameInstance(cachedFareTariff)));
+        assertThat(cachedFareTariff.getCode(), is("SK91"));
+    }
+
+    @Test
+    public void testDeleteFareTariffById_CacheInvalidatedAfterCommit() {
+        // given
+        FareTariffRepository fareTariffRepository = mock(FareTariffRepository.class);
+        when(fareTariffRepository.findAll()).thenReturn(List.of(getFareTariffForTesting(2L, "SK91")));
+        FareTariffService fareTariffService = new FareTariffService(fareTariffRepository, null);
+        fareTariffService.getAllFareTariffs();
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // when
+            fareTariffService.deleteFareTariffById(2L, null);
+            // Concurrent read before the commit must not keep the deleted fare tariff cached
+            fareTariffService.getAllFareTariffs();
+
+            // then
+            assertThat(fareTariffService.getFareTariffCache().getMisses(), is(1L));
+
+            TransactionSynchronizationManager
+                    .getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        fareTariffService.getAllFareTariffs();
+
+        assertThat(fareTariffService.getFareTariffCache().getMisses(), is(2L));
+        verify(fareTariffRepository).deleteById(2L);
+    }
+
+    private static FareTariff getFareTariffForTesting(Long id, String code) {
+        FareTariff fareTariff = new FareTariff();
+        fareTariff.setId(id);
+        fareTariff.setCode(code);
+        fareTariff.setBusinessPrice(5513.0);
+        fareTariff.setPremiumPrice(1326.0);
+        fareTariff.setEconomyPrice(924.0);
+
+        return fareTariff;
+    }
+}
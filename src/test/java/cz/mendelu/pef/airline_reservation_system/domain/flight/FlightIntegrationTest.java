@@ -9,6 +9,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlMergeMode;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.OffsetDateTime;
@@ -59,6 +60,29 @@ public class FlightIntegrationTest {
                 .body("items[1].fare_tariff_id", is(2));
     }
 
+    @Test
+    @Sql(statements = """
+        UPDATE public.flight SET
+            business_sold_seats = aircraft.business_capacity,
+            premium_sold_seats = aircraft.premium_capacity,
+            economy_sold_seats = aircraft.economy_capacity
+        FROM public.aircraft
+        WHERE aircraft.id = flight.aircraft_id AND flight.id = 2
+    """)
+    @SqlMergeMode(SqlMergeMode.MergeMode.MERGE)
+    public void testGetFlights_SoldOutFlightExcludedFromFullPage() {
+        // Sold out flight is in the middle of the first page, the page is still filled up to the limit
+        given()
+                .queryParam("limit", 2)
+                .when()
+                .get("/flights")
+                .then()
+                .statusCode(200)
+                .body("count", is(2))
+                .body("items.id", contains(1, 3))
+                .body("items.id", not(hasItem(2)));
+    }
+
     @Test
     public void testGetFlightById() {
         final Long id = 1L;
@@ -318,4 +342,102 @@ public class FlightIntegrationTest {
                 .then()
                 .statusCode(404);
     }
+
+    @Test
+    public void testSearchFlights() {
+        given()
+                .queryParam("from", "BQK")
+                .queryParam("to", "TKD")
+                .queryParam("date", "2017-07-16")
+                .when()
+                .get("/flights/search")
+                .then()
+                .statusCode(200)
+                .body("count", is(1))
+                .body("items[0].stops", is(0))
+                .body("items[0].flights[0].id", is(1))
+                .body("items[0].flights[0].number", is("AA0718"))
+                .body("items[0].flights[0].airport_departure_code", is("BQK"))
+                .body("items[0].flights[0].airport_arrival_code", is("TKD"))
+                .body("items[0].flights[0].available_seats.Business", is(2))
+                .body("items[0].flights[0].available_seats.Premium", is(15))
+                .body("items[0].flights[0].available_seats.Economy", is(125));
+    }
+
+    @Test
+    public void testSearchFlights_WithConnection() {
+        final FlightRequest request = new FlightRequest(
+                "PG0336",
+                OffsetDateTime.parse("2017-07-16T18:00:00Z"),
+                OffsetDateTime.parse("2017-07-16T23:00:00Z"),
+                "Scheduled",
+                null,
+                2L,
+                2L,
+                3L,
+                1L
+        );
+
+        given()
+                .body(request)
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/flights")
+                .then()
+                .statusCode(201);
+
+        given()
+                .queryParam("from", "BQK")
+                .queryParam("to", "DEB")
+                .queryParam("date", "2017-07-16")
+                .queryParam("maxStops", 1)
+                .when()
+                .get("/flights/search")
+                .then()
+                .statusCode(200)
+                .body("count", is(1))
+                .body("items[0].stops", is(1))
+                .body("items[0].flights[0].id", is(1))
+                .body("items[0].flights[1].number", is("PG0336"))
+                .body("items[0].flights[1].airport_departure_code", is("TKD"))
+                .body("items[0].flights[1].airport_arrival_code", is("DEB"));
+
+        given()
+                .queryParam("from", "BQK")
+                .queryParam("to", "DEB")
+                .queryParam("date", "2017-07-16")
+                .queryParam("maxStops", 0)
+                .when()
+                .get("/flights/search")
+                .then()
+                .statusCode(200)
+                .body("count", is(0));
+    }
+
+    @Test
+    public void testSearchFlights_NotEnoughAvailableSeats() {
+        given()
+                .queryParam("from", "BQK")
+                .queryParam("to", "TKD")
+                .queryParam("date", "2017-07-16")
+                .queryParam("ticketClass", "Business")
+                .queryParam("passengers", 3)
+                .when()
+                .get("/flights/search")
+                .then()
+                .statusCode(200)
+                .body("count", is(0));
+    }
+
+    @Test
+    public void testSearchFlights_SameAirports() {
+        given()
+                .queryParam("from", "BQK")
+                .queryParam("to", "BQK")
+                .queryParam("date", "2017-07-16")
+                .when()
+                .get("/flights/search")
+                .then()
+                .statusCode(400);
+    }
 }
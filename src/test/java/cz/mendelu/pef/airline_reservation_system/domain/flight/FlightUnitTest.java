@@ -2,11 +2,21 @@ package cz.mendelu.pef.airline_reservation_system.domain.flight;
 
 import cz.mendelu.pef.airline_reservation_system.domain.aircraft.Aircraft;
 import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftService;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.CabinLayout;
+import cz.mendelu.pef.airline_reservation_system.domain.aircraft.SeatCodec;
 import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariff;
 import cz.mendelu.pef.airline_reservation_system.domain.ticket.Ticket;
 import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
+import cz.mendelu.pef.airline_reservation_system.utils.metrics.MetricNames;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.IntStream;
 
@@ -21,7 +31,7 @@ public class FlightUnitTest {
     public void testGetSeatNumber_VeryFirstSeat() {
         // given
         var aircraftService = new AircraftService(null);
-        var flightService = new FlightService(null, aircraftService);
+        var flightService = new FlightService(null, aircraftService, new SeatReservations());
 
         var aircraft = new Aircraft();
         aircraft.setBusinessCapacity(12);
@@ -46,7 +56,7 @@ public class FlightUnitTest {
     public void testGetSeatNumber_WithSomeSeatsAlreadyOccupied() {
         // given
         var aircraftService = new AircraftService(null);
-        var flightService = new FlightService(null, aircraftService);
+        var flightService = new FlightService(null, aircraftService, new SeatReservations());
 
         var aircraft = new Aircraft();
         aircraft.setBusinessCapacity(12);
@@ -96,7 +106,7 @@ public class FlightUnitTest {
     public void testIsTicketClassSeatsAvailable() {
         // given
         var aircraftService = new AircraftService(null);
-        var flightService = new FlightService(null, aircraftService);
+        var flightService = new FlightService(null, aircraftService, new SeatReservations());
         var aircraft = new Aircraft();
         var flight = new Flight();
 
@@ -137,7 +147,7 @@ public class FlightUnitTest {
     public void testIsTicketClassSeatsAvailable_WithFullCapacity() {
         // given
         var aircraftService = new AircraftService(null);
-        var flightService = new FlightService(null, aircraftService);
+        var flightService = new FlightService(null, aircraftService, new SeatReservations());
         var aircraft = new Aircraft();
         var flight = new Flight();
 
@@ -178,7 +188,7 @@ public class FlightUnitTest {
     public void testIsTicketClassSeatsAvailable_WithAircraftNull() {
         // given
         var aircraftService = new AircraftService(null);
-        var flightService = new FlightService(null, aircraftService);
+        var flightService = new FlightService(null, aircraftService, new SeatReservations());
         var flight = new Flight();
 
         // then
@@ -191,7 +201,7 @@ public class FlightUnitTest {
     public void testIsSeatNumberValid() {
         // given
         var aircraftService = new AircraftService(null);
-        var flightService = new FlightService(null, aircraftService);
+        var flightService = new FlightService(null, aircraftService, new SeatReservations());
         var aircraft = new Aircraft();
         var flight = new Flight();
 
@@ -229,12 +239,236 @@ public class FlightUnitTest {
         assertFalse(flightService.isSeatNumberValid(flight, TicketClass.Business, "4X"));
     }
 
+    @Test
+    public void testSeatCodec_EncodesAndDecodesSeatNumbers() {
+        // then
+        for (int seatPosition = 0; seatPosition < 2 * SeatCodec.CACHED_ROWS * SeatCodec.SEATS_PER_ROW; seatPosition++) {
+            assertEquals(seatPosition, SeatCodec.encode(SeatCodec.decode(seatPosition)));
+        }
+
+        assertEquals(0, SeatCodec.encode("1A"));
+        assertEquals(14, SeatCodec.encode("3C"));
+        assertEquals("12C", SeatCodec.decode(SeatCodec.encode(" 012C ")));
+        assertEquals("12C", SeatCodec.normalize("12C"));
+        assertSame(SeatCodec.decode(68), SeatCodec.decode(68));
+        assertEquals(12, SeatCodec.getRow(68));
+        assertEquals(2, SeatCodec.getLetterIndex(68));
+
+        assertNull(SeatCodec.normalize("12G"));
+        assertEquals(SeatCodec.NO_SEAT, SeatCodec.encode(null));
+        assertEquals(SeatCodec.NO_SEAT, SeatCodec.encode(""));
+        assertEquals(SeatCodec.NO_SEAT, SeatCodec.encode("0A"));
+        assertEquals(SeatCodec.NO_SEAT, SeatCodec.encode("1 A"));
+        assertEquals(SeatCodec.NO_SEAT, SeatCodec.encode("-1A"));
+        assertEquals(SeatCodec.NO_SEAT, SeatCodec.encode("99999999999A"));
+    }
+
+    @Test
+    public void testCabinLayout() {
+        // given
+        var aircraft = new Aircraft();
+        aircraft.setBusinessCapacity(12);
+        aircraft.setPremiumCapacity(50);
+        aircraft.setEconomyCapacity(90);
+
+        // when
+        var layout = CabinLayout.of(aircraft);
+        var layoutWithFourSeatsPerRow = CabinLayout.of(aircraft, 4);
+
+        // then
+        assertSame(layout, CabinLayout.of(12, 50, 90));
+        assertEquals(1, layout.getStartRow(TicketClass.Business));
+        assertEquals(2, layout.getEndRow(TicketClass.Business));
+        assertEquals(3, layout.getStartRow(TicketClass.Premium));
+        assertEquals(11, layout.getEndRow(TicketClass.Premium));
+        assertEquals(12, layout.getStartRow(TicketClass.Economy));
+        assertEquals(26, layout.getEndRow(TicketClass.Economy));
+        assertEquals(156, layout.getSeatPositionCount());
+
+        // Last premium row has only two seats
+        assertEquals(TicketClass.Premium, layout.getTicketClass(SeatCodec.encode("11B")));
+        assertNull(layout.getTicketClass(SeatCodec.encode("11C")));
+        assertEquals(TicketClass.Economy, layout.getTicketClass(SeatCodec.encode("12A")));
+        assertNull(layout.getTicketClass(SeatCodec.encode("27A")));
+
+        assertEquals(4, layoutWithFourSeatsPerRow.getStartRow(TicketClass.Premium));
+        assertEquals(16, layoutWithFourSeatsPerRow.getEndRow(TicketClass.Premium));
+        assertEquals(39, layoutWithFourSeatsPerRow.getEndRow(TicketClass.Economy));
+    }
+
+    @Test
+    public void testGetAvailableSeats_WithPartiallyFilledRow() {
+        // given
+        var aircraftService = new AircraftService(null);
+        var flightService = new FlightService(null, aircraftService, new SeatReservations());
+        var aircraft = new Aircraft();
+        var flight = new Flight();
+
+        aircraft.setBusinessCapacity(8);
+        aircraft.setPremiumCapacity(0);
+        aircraft.setEconomyCapacity(13);
+        flight.setAircraft(aircraft);
+
+        var ticket = new Ticket();
+        ticket.setId(1L);
+        ticket.setTicketClass(TicketClass.Business);
+        ticket.setSeatNumber("1B");
+        flight.getTickets().add(ticket);
+
+        // when
+        var availableSeats = flightService.getAvailableSeats(flight);
+
+        // then
+        assertThat(availableSeats.get(TicketClass.Business.name()), contains("1A", "1C", "1D", "1E", "1F", "2A", "2B"));
+        assertThat(availableSeats.get(TicketClass.Premium.name()), is(empty()));
+        assertThat(availableSeats.get(TicketClass.Economy.name()), hasSize(13));
+        assertThat(availableSeats.get(TicketClass.Economy.name()).get(12), is("5A"));
+
+        assertTrue(flightService.isSeatNumberOccupied(flight, "1B"));
+        assertFalse(flightService.isSeatNumberOccupied(flight, "1C"));
+        assertFalse(flightService.isSeatNumberValid(flight, TicketClass.Business, "2C"));
+        assertFalse(flightService.isSeatNumberValid(flight, TicketClass.Economy, "5B"));
+    }
+
+    @Test
+    public void testClaimSeatNumber() {
+        // given
+        var aircraftService = new AircraftService(null);
+        var flightService = new FlightService(null, aircraftService, new SeatReservations());
+        var aircraft = new Aircraft();
+        var flight = new Flight();
+
+        aircraft.setBusinessCapacity(2);
+        aircraft.setPremiumCapacity(6);
+        aircraft.setEconomyCapacity(6);
+        flight.setId(1L);
+        flight.setAircraft(aircraft);
+
+        // when
+        var firstBusinessSeat = flightService.claimFirstAvailableSeatNumber(flight, TicketClass.Business);
+        var secondBusinessSeat = flightService.claimFirstAvailableSeatNumber(flight, TicketClass.Business);
+        var thirdBusinessSeat = flightService.claimFirstAvailableSeatNumber(flight, TicketClass.Business);
+
+        // then
+        assertThat(firstBusinessSeat.orElseThrow(), is("1A"));
+        assertThat(secondBusinessSeat.orElseThrow(), is("1B"));
+        assertTrue(thirdBusinessSeat.isEmpty());
+
+        assertTrue(flightService.claimSeatNumber(flight, "3C"));
+        assertFalse(flightService.claimSeatNumber(flight, "3C"));
+
+        flightService.releaseSeatNumber(flight, "3C");
+        assertTrue(flightService.claimSeatNumber(flight, "3C"));
+    }
+
+    @Test
+    public void testClaimSeatNumber_EveryAttemptCounted() {
+        // given
+        var meterRegistry = new SimpleMeterRegistry();
+        var seatReservations = new SeatReservations(meterRegistry);
+        var aircraftService = new AircraftService(null);
+        var flightService = new FlightService(null, aircraftService, seatReservations);
+        var aircraft = new Aircraft();
+        var flight = new Flight();
+
+        aircraft.setBusinessCapacity(2);
+        aircraft.setPremiumCapacity(6);
+        aircraft.setEconomyCapacity(6);
+        flight.setId(1L);
+        flight.setAircraft(aircraft);
+
+        var staleSeatMap = flightService.getSeatMap(flight);
+        assertTrue(flightService.claimSeatNumber(flight, "1A"));
+
+        // when
+        // Seat taken by a concurrent booking after the seat map was read, the next one is claimed by a retry
+        assertFalse(seatReservations.claim(flight.getId(), staleSeatMap, SeatCodec.encode("1A")));
+        assertTrue(seatReservations.claim(flight.getId(), staleSeatMap, SeatCodec.encode("1B")));
+
+        // then
+        assertEquals(2.0, meterRegistry.get(MetricNames.BOOKING_SEAT_ALLOCATION_ATTEMPTS).tag("result", "claimed").counter().count());
+        assertEquals(1.0, meterRegistry.get(MetricNames.BOOKING_SEAT_ALLOCATION_ATTEMPTS).tag("result", "taken").counter().count());
+    }
+
+    @Test
+    public void testReleaseSeatNumber_InTransactionReleasedByRollback() {
+        // given
+        var aircraftService = new AircraftService(null);
+        var flightService = new FlightService(null, aircraftService, new SeatReservations());
+        var aircraft = new Aircraft();
+        var flight = new Flight();
+
+        aircraft.setBusinessCapacity(2);
+        aircraft.setPremiumCapacity(6);
+        aircraft.setEconomyCapacity(6);
+        flight.setId(1L);
+        flight.setAircraft(aircraft);
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // when
+            assertTrue(flightService.claimSeatNumber(flight, "3C"));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+            flightService.releaseSeatNumber(flight, "3C");
+
+            // then
+            // Seat stays claimed until the rollback, so no concurrent booking can take it and lose it to the rollback
+            assertFalse(flightService.claimSeatNumber(flight, "3C"));
+
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(flightService.claimSeatNumber(flight, "3C"));
+    }
+
+    @Test
+    public void testUpdateFlight_SeatClaimsKeptUnlessAircraftChanged() {
+        // given
+        var aircraftService = new AircraftService(null);
+        var flightRepository = mock(FlightRepository.class);
+        var flightService = new FlightService(flightRepository, aircraftService, new SeatReservations());
+        var aircraft = new Aircraft();
+        var otherAircraft = new Aircraft();
+        var flight = new Flight();
+
+        aircraft.setId(1L);
+        aircraft.setBusinessCapacity(2);
+        aircraft.setPremiumCapacity(6);
+        aircraft.setEconomyCapacity(6);
+        otherAircraft.setId(2L);
+        otherAircraft.setBusinessCapacity(2);
+        otherAircraft.setPremiumCapacity(6);
+        otherAircraft.setEconomyCapacity(6);
+        flight.setId(1L);
+        flight.setAircraft(aircraft);
+
+        when(flightRepository.getPersistedAircraftId(1L)).thenReturn(Optional.of(1L));
+        assertTrue(flightService.claimSeatNumber(flight, "3C"));
+
+        // when
+        flightService.updateFlight(flight.getId(), flight);
+
+        // then
+        assertFalse(flightService.claimSeatNumber(flight, "3C"));
+
+        // when
+        flight.setAircraft(otherAircraft);
+        flightService.updateFlight(flight.getId(), flight);
+
+        // then
+        assertTrue(flightService.claimSeatNumber(flight, "3C"));
+    }
+
     @Test
     public void testCancelFlight() {
         // given
         var flightRepository = mock(FlightRepository.class);
         var aircraftService = new AircraftService(null);
-        var flightService = new FlightService(flightRepository, aircraftService);
+        var flightService = new FlightService(flightRepository, aircraftService, new SeatReservations());
 
         var aircraft = new Aircraft();
         aircraft.setBusinessCapacity(12);
@@ -291,4 +525,148 @@ public class FlightUnitTest {
         assertEquals(ticket2.getDiscount(), ticket2NewDiscount);
         assertEquals(ticket2.getPriceAfterDiscount(), ticket2NewPriceAfterDiscount);
     }
+
+    @Test
+    public void testScheduledFlightIndex_MergesDestinationsByDeparture() {
+        // given
+        var flightRepository = mock(FlightRepository.class);
+        when(flightRepository.getAllScheduledFlightEntries()).thenReturn(List.of(
+                new ScheduledFlightEntry(1L, OffsetDateTime.parse("2017-07-16T09:35:00Z"), "PRG", "Scheduled"),
+                new ScheduledFlightEntry(2L, OffsetDateTime.parse("2017-07-15T09:35:00Z"), "BRQ", "Scheduled"),
+                new ScheduledFlightEntry(3L, OffsetDateTime.parse("2017-07-17T09:35:00Z"), "PRG", "Scheduled"),
+                new ScheduledFlightEntry(4L, OffsetDateTime.parse("2017-07-14T09:35:00Z"), "VIE", "Scheduled")
+        ));
+        var scheduledFlightIndex = new ScheduledFlightIndex(flightRepository);
+
+        // when
+        var allFlightIds = scheduledFlightIndex.getFlightIdsByArrivalCodes(List.of("PRG", "BRQ"), 0, 100);
+        var secondPageFlightIds = scheduledFlightIndex.getFlightIdsByArrivalCodes(List.of("PRG", "BRQ"), 2, 2);
+
+        scheduledFlightIndex.put(
+                new ScheduledFlightEntry(5L, OffsetDateTime.parse("2017-07-16T10:00:00Z"), "BRQ", "Scheduled")
+        );
+        scheduledFlightIndex.put(
+                new ScheduledFlightEntry(1L, OffsetDateTime.parse("2017-07-16T09:35:00Z"), "PRG", "Cancelled")
+        );
+        var flightIdsAfterUpdate = scheduledFlightIndex.getFlightIdsByArrivalCodes(List.of("PRG", "BRQ"), 0, 100);
+
+        // then
+        assertThat(allFlightIds, is(List.of(2L, 1L, 3L)));
+        assertThat(secondPageFlightIds, is(List.of(3L)));
+        assertThat(flightIdsAfterUpdate, is(List.of(2L, 5L, 3L)));
+    }
+
+    @Test
+    public void testFlightRouteGraph_FindsConnectingItineraries() {
+        // given
+        var flightRepository = mock(FlightRepository.class);
+        when(flightRepository.getAllFlightRouteEntries()).thenReturn(List.of(
+                getFlightRouteEntryForTesting(1L, "PRG", "VIE", "2017-07-16T08:00:00Z", "2017-07-16T09:00:00Z"),
+                getFlightRouteEntryForTesting(2L, "VIE", "LHR", "2017-07-16T09:30:00Z", "2017-07-16T11:30:00Z"),
+                getFlightRouteEntryForTesting(3L, "VIE", "LHR", "2017-07-16T10:00:00Z", "2017-07-16T12:00:00Z"),
+                getFlightRouteEntryForTesting(4L, "PRG", "LHR", "2017-07-16T12:00:00Z", "2017-07-16T14:00:00Z"),
+                getFlightRouteEntryForTesting(5L, "VIE", "FRA", "2017-07-16T10:00:00Z", "2017-07-16T11:00:00Z"),
+                getFlightRouteEntryForTesting(6L, "FRA", "LHR", "2017-07-16T12:00:00Z", "2017-07-16T13:00:00Z"),
+                getFlightRouteEntryForTesting(7L, "FRA", "PRG", "2017-07-16T12:00:00Z", "2017-07-16T13:00:00Z"),
+                getFlightRouteEntryForTesting(8L, "PRG", "LHR", "2017-07-17T08:00:00Z", "2017-07-17T10:00:00Z")
+        ));
+        var flightRouteGraph = new FlightRouteGraph(flightRepository);
+        var dayStart = Instant.parse("2017-07-16T00:00:00Z");
+        var dayEnd = Instant.parse("2017-07-17T00:00:00Z");
+
+        // when
+        var directItineraries = flightRouteGraph.findItineraries("PRG", "LHR", dayStart, dayEnd, 0, 100);
+        var allItineraries = flightRouteGraph.findItineraries("PRG", "LHR", dayStart, dayEnd, 2, 100);
+
+        flightRouteGraph.put(getFlightRouteEntryForTesting(3L, "VIE", "LHR", "2017-07-16T09:50:00Z", "2017-07-16T11:50:00Z"));
+        flightRouteGraph.remove(6L);
+        var itinerariesAfterUpdate = flightRouteGraph.findItineraries("PRG", "LHR", dayStart, dayEnd, 2, 100);
+
+        // then
+        // Flight 2 departs sooner than the minimum connection time after flight 1 arrives
+        assertThat(getFlightIds(directItineraries), is(List.of(List.of(4L))));
+        assertThat(getFlightIds(allItineraries), is(List.of(List.of(1L, 3L), List.of(1L, 5L, 6L), List.of(4L))));
+        assertThat(getFlightIds(itinerariesAfterUpdate), is(List.of(List.of(1L, 3L), List.of(4L))));
+    }
+
+    @Test
+    public void testFlightRouteGraph_LimitKeepsItinerariesArrivingFirst() {
+        // given
+        var flightRepository = mock(FlightRepository.class);
+        when(flightRepository.getAllFlightRouteEntries()).thenReturn(List.of(
+                getFlightRouteEntryForTesting(1L, "PRG", "LHR", "2017-07-16T08:00:00Z", "2017-07-16T15:00:00Z"),
+                getFlightRouteEntryForTesting(2L, "PRG", "VIE", "2017-07-16T08:30:00Z", "2017-07-16T09:30:00Z"),
+                getFlightRouteEntryForTesting(3L, "VIE", "LHR", "2017-07-16T10:30:00Z", "2017-07-16T12:30:00Z"),
+                getFlightRouteEntryForTesting(4L, "VIE", "LHR", "2017-07-16T16:00:00Z", "2017-07-16T18:00:00Z"),
+                getFlightRouteEntryForTesting(5L, "PRG", "LHR", "2017-07-16T09:00:00Z", "2017-07-16T11:00:00Z"),
+                getFlightRouteEntryForTesting(6L, "PRG", "LHR", "2017-07-16T20:00:00Z", "2017-07-16T22:00:00Z")
+        ));
+        var flightRouteGraph = new FlightRouteGraph(flightRepository);
+        var dayStart = Instant.parse("2017-07-16T00:00:00Z");
+        var dayEnd = Instant.parse("2017-07-17T00:00:00Z");
+
+        // when
+        var firstItinerary = flightRouteGraph.findItineraries("PRG", "LHR", dayStart, dayEnd, 1, 1);
+        var firstItineraries = flightRouteGraph.findItineraries("PRG", "LHR", dayStart, dayEnd, 1, 3);
+
+        // then
+        // Flight 1 departs first, but arrives after the later departing flight 5 and the connection of flights 2 and 3
+        assertThat(getFlightIds(firstItinerary), is(List.of(List.of(5L))));
+        assertThat(getFlightIds(firstItineraries), is(List.of(List.of(5L), List.of(2L, 3L), List.of(1L))));
+    }
+
+    @Test
+    public void testReserveTicketClassSeat() {
+        // given
+        var flightRepository = mock(FlightRepository.class);
+        var aircraftService = new AircraftService(null);
+        var flightService = new FlightService(flightRepository, aircraftService, new SeatReservations());
+
+        var aircraft = new Aircraft();
+        aircraft.setBusinessCapacity(2);
+        aircraft.setPremiumCapacity(0);
+        aircraft.setEconomyCapacity(0);
+
+        var flight = new Flight();
+        flight.setId(1L);
+        flight.setAircraft(aircraft);
+        flight.setBusinessSoldSeats(1);
+        flight.setPremiumSoldSeats(0);
+        flight.setEconomySoldSeats(0);
+
+        // Database refuses the second reservation, because the class is sold out
+        when(flightRepository.addSoldSeats(1L, "Business", 1)).thenReturn(1, 0);
+        when(flightRepository.addSoldSeats(1L, "Business", -1)).thenReturn(1);
+
+        // when
+        var firstReservation = flightService.reserveTicketClassSeat(flight, TicketClass.Business);
+        var soldSeatsAfterFirstReservation = flight.getBusinessSoldSeats();
+        var secondReservation = flightService.reserveTicketClassSeat(flight, TicketClass.Business);
+        flightService.releaseTicketClassSeat(flight, TicketClass.Business);
+
+        // then
+        assertTrue(firstReservation);
+        assertEquals(2, soldSeatsAfterFirstReservation);
+        assertFalse(secondReservation);
+        assertEquals(1, flight.getBusinessSoldSeats());
+        assertFalse(flightService.isTicketClassSeatsAvailable(flight, TicketClass.Premium));
+        verify(flightRepository, times(2)).addSoldSeats(1L, "Business", 1);
+    }
+
+    private static FlightRouteEntry getFlightRouteEntryForTesting(
+            Long id,
+            String departureCode,
+            String arrivalCode,
+            String departure,
+            String arrival
+    ) {
+        return new FlightRouteEntry(id, "PG" + id, departureCode, arrivalCode, Instant.parse(departure), Instant.parse(arrival));
+    }
+
+    private static List<List<Long>> getFlightIds(List<List<FlightRouteEntry>> itineraries) {
+        return itineraries
+                .stream()
+                .map(itinerary -> itinerary.stream().map(FlightRouteEntry::id).toList())
+                .toList();
+    }
 }
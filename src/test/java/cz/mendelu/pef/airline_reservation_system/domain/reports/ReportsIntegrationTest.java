@@ -4,13 +4,18 @@ import io.restassured.RestAssured;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.OffsetDateTime;
+
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 
@@ -25,6 +30,9 @@ public class ReportsIntegrationTest {
     @LocalServerPort
     private int port;
 
+    @Autowired
+    private ReportsService reportsService;
+
     @BeforeEach
     public void configureRestAssured() {
         RestAssured.baseURI = BASE_URI;
@@ -50,4 +58,43 @@ public class ReportsIntegrationTest {
                 .body("content.passenger_load_factor_in_percentage", is(1.0416666f))
                 .body("content.revenue_per_passenger", is(2525.3333f));
     }
+
+    @Test
+    public void testGetReports_DaysInOtherTimeZone() {
+        // Days not starting at a UTC midnight are aggregated by the database
+        given()
+                .queryParam("startDate", "2017-07-01")
+                .queryParam("endDate", "2017-07-31")
+                .queryParam("offset", "+02:00")
+                .when()
+                .get("/reports")
+                .then()
+                .statusCode(200)
+                .body("content.ticket_sales", is(7576.0f))
+                .body("content.ticket_class_distribution.Business", is(1))
+                .body("content.ticket_class_distribution.Premium", is(1))
+                .body("content.ticket_class_distribution.Economy", is(1))
+                .body("content.passenger_load_factor_in_percentage", is(1.0416666f));
+    }
+
+    @Test
+    public void testGetAllReports_RangeNotStartingAtMidnight() {
+        // Range of whole days is aggregated by the reports store, other ranges by the database
+        Reports reportsOfDays = reportsService.getAllReports(
+                OffsetDateTime.parse("2017-07-01T00:00:00Z"),
+                OffsetDateTime.parse("2017-07-31T00:00:00Z")
+        );
+        Reports reports = reportsService.getAllReports(
+                OffsetDateTime.parse("2017-07-01T06:30:00Z"),
+                OffsetDateTime.parse("2017-07-31T06:30:00Z")
+        );
+
+        assertThat(reports.getTicketSales(), is(reportsOfDays.getTicketSales()));
+        assertThat(reports.getTicketClassDistribution(), is(reportsOfDays.getTicketClassDistribution()));
+        assertThat(reports.getTop5PopularFlightIdsBasedOnTicketSales(), contains(1L, 2L));
+        assertThat(reports.getCancelledAndDelayedFlights(), is(reportsOfDays.getCancelledAndDelayedFlights()));
+        assertThat(reports.getPassengerLoadFactorInPercentage(), closeTo(reportsOfDays.getPassengerLoadFactorInPercentage(), 1e-9));
+        assertThat(reports.getPassengerLoadFactorInPercentage(), closeTo(1.0416666, 1e-6));
+        assertThat(reports.getRevenuePerPassenger(), closeTo(reportsOfDays.getRevenuePerPassenger(), 1e-9));
+    }
 }
@@ -5,8 +5,11 @@ import cz.mendelu.pef.airline_reservation_system.domain.aircraft.AircraftService
 import cz.mendelu.pef.airline_reservation_system.domain.airport.Airport;
 import cz.mendelu.pef.airline_reservation_system.domain.airport.AirportService;
 import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRepository;
 import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightService;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.SeatReservations;
 import cz.mendelu.pef.airline_reservation_system.domain.ticket.Ticket;
+import cz.mendelu.pef.airline_reservation_system.domain.ticket.TicketRepository;
 import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
 import org.junit.jupiter.api.Test;
 
@@ -15,10 +18,17 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class ReportsUnitTest {
 
@@ -26,9 +36,9 @@ public class ReportsUnitTest {
     public void testCalculatePassengerLoadFactor() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         AirportService airportService = new AirportService(null);
-        ReportsService reportsService = new ReportsService(null, flightService, airportService);
+        ReportsService reportsService = new ReportsService(null, flightService, airportService, null);
 
         // when
         double result1 = reportsService.calculatePassengerLoadFactor(getFlightsForTesting());
@@ -43,9 +53,9 @@ public class ReportsUnitTest {
     public void testCalculateRevenuePerPassenger() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         AirportService airportService = new AirportService(null);
-        ReportsService reportsService = new ReportsService(null, flightService, airportService);
+        ReportsService reportsService = new ReportsService(null, flightService, airportService, null);
 
         List<Ticket> tickets = getFlightsForTesting()
                 .stream()
@@ -63,9 +73,9 @@ public class ReportsUnitTest {
     public void testCalculateRevenuePerPassenger_ZeroTickets() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         AirportService airportService = new AirportService(null);
-        ReportsService reportsService = new ReportsService(null, flightService, airportService);
+        ReportsService reportsService = new ReportsService(null, flightService, airportService, null);
 
         // when
         double result = reportsService.calculateRevenuePerPassenger(List.of());
@@ -77,7 +87,7 @@ public class ReportsUnitTest {
     @Test
     public void testGetTicketSales() {
         // given
-        ReportsService reportsService = new ReportsService(null, null, null);
+        ReportsService reportsService = new ReportsService(null, null, null, null);
 
         List<Ticket> tickets = new ArrayList<>();
         getFlightsForTesting()
@@ -95,7 +105,7 @@ public class ReportsUnitTest {
     @Test
     public void testGetTicketClassDistribution() {
         // given
-        ReportsService reportsService = new ReportsService(null, null, null);
+        ReportsService reportsService = new ReportsService(null, null, null, null);
 
         List<Ticket> tickets = new ArrayList<>();
         getFlightsForTesting()
@@ -116,9 +126,9 @@ public class ReportsUnitTest {
     public void testGetCancelledAndDelayedFlights() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         AirportService airportService = new AirportService(null);
-        ReportsService reportsService = new ReportsService(null, flightService, airportService);
+        ReportsService reportsService = new ReportsService(null, flightService, airportService, null);
 
         // when
         Map<String, Long> cancelledAndDelayedFlights = reportsService.getCancelledAndDelayedFlights(getFlightsForTesting());
@@ -128,6 +138,128 @@ public class ReportsUnitTest {
         assertThat(cancelledAndDelayedFlights.get("Cancelled"), is(0L));
     }
 
+    @Test
+    public void testGetAllReports_FromReportsStore() {
+        // given
+        List<Flight> flights = getFlightsForTesting();
+        List<FlightTicketSales> flightTicketSales = flights
+                .stream()
+                .flatMap(ReportsUnitTest::getFlightTicketSales)
+                .toList();
+        List<FlightTicketSales> flight1TicketSales = flightTicketSales
+                .stream()
+                .filter(sales -> sales.flightId() == 1L)
+                .toList();
+        List<FlightTicketSales> flight1TicketSalesWithNewTicket = new ArrayList<>(flight1TicketSales);
+        flight1TicketSalesWithNewTicket.add(new FlightTicketSales(1L, TicketClass.Premium, 1L, 0L, 100.5));
+
+        FlightRepository flightRepository = mock(FlightRepository.class);
+        when(flightRepository.getAllFlightReportEntries())
+                .thenReturn(flights.stream().map(FlightReportEntry::of).toList());
+        when(flightRepository.getTop5FlightIdsByTicketSales(any(), any()))
+                .thenReturn(List.of(2L, 1L));
+
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        when(ticketRepository.getAllFlightTicketSales()).thenReturn(flightTicketSales);
+        when(ticketRepository.getFlightTicketSales(1L))
+                .thenReturn(flight1TicketSalesWithNewTicket, flight1TicketSalesWithNewTicket, flight1TicketSales);
+
+        AirportService airportService = new AirportService(null);
+        ReportsStore reportsStore = new ReportsStore(flightRepository, ticketRepository, airportService);
+        ReportsService reportsService = new ReportsService(flightRepository, null, airportService, reportsStore);
+
+        OffsetDateTime startDate = OffsetDateTime.parse("2017-07-01T00:00:00Z");
+        OffsetDateTime endDate = OffsetDateTime.parse("2017-08-01T00:00:00Z");
+
+        // when
+        Reports reports = reportsService.getAllReports(startDate, endDate);
+        // Refreshing the flight twice doesn't count the new ticket twice
+        reportsStore.refreshFlightTickets(1L);
+        reportsStore.refreshFlightTickets(1L);
+        Reports reportsAfterNewTicket = reportsService.getAllReports(startDate, endDate);
+        reportsStore.refreshFlightTickets(1L);
+        Reports reportsAfterRemovedTicket = reportsService.getAllReports(startDate, endDate);
+        Reports reportsOutOfRange = reportsService.getAllReports(startDate, startDate.plusDays(15));
+
+        // then
+        assertThat(reports.getTicketSales(), is(55545.0));
+        assertThat(reports.getTicketClassDistribution().get(TicketClass.Economy.name()), is(5L));
+        assertThat(reports.getTicketClassDistribution().get(TicketClass.Premium.name()), is(0L));
+        assertThat(reports.getTicketClassDistribution().get(TicketClass.Business.name()), is(5L));
+        assertThat(reports.getTop5PopularFlightIdsBasedOnTicketSales(), is(List.of(2L, 1L)));
+        assertThat(reports.getCancelledAndDelayedFlights().get("Delayed"), is(1L));
+        assertThat(reports.getCancelledAndDelayedFlights().get("Cancelled"), is(0L));
+        assertThat(reports.getPassengerLoadFactorInPercentage(), closeTo(5.434782608695652, 1e-9));
+        assertThat(reports.getRevenuePerPassenger(), is(5554.5));
+
+        assertThat(reportsAfterNewTicket.getTicketSales(), is(55645.5));
+        assertThat(reportsAfterNewTicket.getTicketClassDistribution().get(TicketClass.Premium.name()), is(1L));
+
+        assertThat(reportsAfterRemovedTicket.getTicketSales(), is(55545.0));
+        assertThat(reportsAfterRemovedTicket.getTicketClassDistribution().get(TicketClass.Premium.name()), is(0L));
+
+        assertThat(reportsOutOfRange.getTicketSales(), is(0.0));
+        assertThat(reportsOutOfRange.getCancelledAndDelayedFlights().get("Delayed"), is(0L));
+    }
+
+    @Test
+    public void testGetAllReports_AggregatedByDatabase() {
+        // given
+        FlightRepository flightRepository = mock(FlightRepository.class);
+        when(flightRepository.getTicketClassSales(any(), any())).thenReturn(List.of(
+                new TicketClassSales(TicketClass.Economy, 5L, 3610.0),
+                new TicketClassSales(TicketClass.Business, 5L, 51935.0)
+        ));
+        when(flightRepository.getFlightStatusCounts(any(), any())).thenReturn(List.of(
+                new FlightStatusCount("scheduled", 1L),
+                new FlightStatusCount("delayed", 1L)
+        ));
+        when(flightRepository.getPassengerLoads(any(), any())).thenReturn(List.of(
+                new PassengerLoad(5L, 92, 1L, 50.0, 14.0, 2L, 40.0, -74.0)
+        ));
+        when(flightRepository.getTop5FlightIdsByTicketSales(any(), any())).thenReturn(List.of(2L, 1L));
+
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        AirportService airportService = new AirportService(null);
+        ReportsStore reportsStore = new ReportsStore(flightRepository, ticketRepository, airportService);
+        ReportsService reportsService = new ReportsService(flightRepository, null, airportService, reportsStore);
+
+        // when
+        Reports reports = reportsService.getAllReports(
+                OffsetDateTime.parse("2017-07-01T12:00:00Z"),
+                OffsetDateTime.parse("2017-07-31T12:00:00Z")
+        );
+
+        // then
+        assertThat(reports.getTicketSales(), is(55545.0));
+        assertThat(reports.getTicketClassDistribution().get(TicketClass.Economy.name()), is(5L));
+        assertThat(reports.getTicketClassDistribution().get(TicketClass.Premium.name()), is(0L));
+        assertThat(reports.getTicketClassDistribution().get(TicketClass.Business.name()), is(5L));
+        assertThat(reports.getTop5PopularFlightIdsBasedOnTicketSales(), is(List.of(2L, 1L)));
+        assertThat(reports.getCancelledAndDelayedFlights().get("Delayed"), is(1L));
+        assertThat(reports.getCancelledAndDelayedFlights().get("Cancelled"), is(0L));
+        assertThat(reports.getPassengerLoadFactorInPercentage(), closeTo(5.434782608695652, 1e-9));
+        assertThat(reports.getRevenuePerPassenger(), is(5554.5));
+        // Range not made of whole days is not answered by the store, so the store is not loaded
+        verify(flightRepository, never()).getAllFlightReportEntries();
+        verify(ticketRepository, never()).getAllFlightTicketSales();
+    }
+
+    private static Stream<FlightTicketSales> getFlightTicketSales(Flight flight) {
+        return flight.getTickets()
+                .stream()
+                .collect(Collectors.groupingBy(Ticket::getTicketClass))
+                .entrySet()
+                .stream()
+                .map(entry -> new FlightTicketSales(
+                        flight.getId(),
+                        entry.getKey(),
+                        (long) entry.getValue().size(),
+                        entry.getValue().stream().filter(ticket -> ticket.getSeatNumber() != null).count(),
+                        entry.getValue().stream().mapToDouble(Ticket::getPriceAfterDiscount).sum()
+                ));
+    }
+
     private static List<Flight> getFlightsForTesting() {
         List<String> seatNumberLetters = List.of("A", "B", "C", "D", "E", "F");
 
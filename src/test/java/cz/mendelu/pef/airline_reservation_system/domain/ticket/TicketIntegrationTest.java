@@ -12,13 +12,23 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.IntStream;
 
 import static io.restassured.RestAssured.given;
 import static java.lang.Float.parseFloat;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 
 @ActiveProfiles("test")
 @ExtendWith(SpringExtension.class)
@@ -59,6 +69,56 @@ public class TicketIntegrationTest {
                 .body("items[0].customer_id", is("35645ea7-2b38-430d-aab8-f72302cdc2c8"));
     }
 
+    @Test
+    public void testGetTicketsAfterCursor() {
+        given()
+                .queryParam("after", 1)
+                .queryParam("limit", 1)
+                .when()
+                .get("/tickets")
+                .then()
+                .statusCode(200)
+                .body("count", is(1))
+                .body("items[0].number", is("0003099269080"))
+                .body("next_cursor", is(2));
+
+        given()
+                .queryParam("after", 2)
+                .queryParam("limit", 1)
+                .when()
+                .get("/tickets")
+                .then()
+                .statusCode(200)
+                .body("count", is(1))
+                .body("items[0].number", is("0001901266072"))
+                .body("next_cursor", nullValue());
+    }
+
+    @Test
+    public void testExportTickets() {
+        given()
+                .queryParam("format", "csv")
+                .when()
+                .get("/tickets/export")
+                .then()
+                .statusCode(200)
+                .contentType(startsWith("text/csv"))
+                .body(startsWith("id,number,class,price,discount,price_after_discount,seat_number,passenger_full_name,"))
+                .body(containsString("\n2,0003099269080,Business,5513.0,0.0,5513.0,1A,"));
+
+        String ndjson = given()
+                .when()
+                .get("/tickets/export")
+                .then()
+                .statusCode(200)
+                .contentType(startsWith("application/x-ndjson"))
+                .extract()
+                .asString();
+
+        assertThat(ndjson.lines().count(), is(3L));
+        assertThat(ndjson, startsWith("{\"id\":1,\"number\":\"0008386672215\""));
+    }
+
     @Test
     public void testGetTestById() {
         final Long id = 2L;
@@ -134,6 +194,55 @@ public class TicketIntegrationTest {
                 .body("content.customer_id", is("35645ea7-2b38-430d-aab8-f72302cdc2c8"));
     }
 
+    @Test
+    public void testCreateTicket_RecordedInMetrics() {
+        final TicketRequest request = new TicketRequest(
+                "0004099267192",
+                TicketClass.Premium,
+                "John Smith",
+                null,
+                1L,
+                UUID.fromString("35645ea7-2b38-430d-aab8-f72302cdc2c8")
+        );
+        // Customer has credit only for an economy ticket
+        final TicketRequest requestWithoutCredit = new TicketRequest(
+                "0004099267193",
+                TicketClass.Premium,
+                "John Smith",
+                null,
+                1L,
+                UUID.fromString("da8d38a8-28a7-4740-8096-f0197ebabd5c")
+        );
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(request)
+                .when()
+                .post("/tickets")
+                .then()
+                .statusCode(201);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(requestWithoutCredit)
+                .when()
+                .post("/tickets")
+                .then()
+                .statusCode(422);
+
+        given()
+                .when()
+                .get("/actuator/prometheus")
+                .then()
+                .statusCode(200)
+                .body(containsString("booking_create_seconds_bucket"))
+                .body(containsString("booking_seat_allocation_attempts_total"))
+                .body(containsString("booking_credit_charge_seconds_bucket"))
+                .body(containsString("exception=\"NotEnoughCreditException\""))
+                .body(containsString("http_server_requests_queries_count"))
+                .body(containsString("hikaricp_connections_pending"));
+    }
+
     @Test
     public void testCreateTicket_CustomerNotFound() {
         final TicketRequest request = new TicketRequest(
@@ -217,6 +326,77 @@ public class TicketIntegrationTest {
                 .body("content.customer_id", is("35645ea7-2b38-430d-aab8-f72302cdc2c8"));
     }
 
+    @Test
+    public void testCreateTickets() {
+        final TicketBatchRequest request = new TicketBatchRequest(
+                1L,
+                UUID.fromString("35645ea7-2b38-430d-aab8-f72302cdc2c8"),
+                List.of(
+                        new PassengerRequest("0004099267192", TicketClass.Premium, "John Smith", null),
+                        new PassengerRequest("0004099267193", TicketClass.Premium, "Jane Smith", "2F"),
+                        new PassengerRequest("0004099267194", TicketClass.Premium, "Jack Smith", null)
+                )
+        );
+
+        // Custom seat costs additional fee, 10% of ticket price
+        final float expectedCustomSeatTicketPrice = 1326.f + (1326.f * 0.1f);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(request)
+                .when()
+                .post("/tickets/batch")
+                .then()
+                .statusCode(201)
+                .body("count", is(3))
+                .body("items[0].seat_number", is("2B"))
+                .body("items[0].price", is(1326.f))
+                .body("items[1].seat_number", is("2F"))
+                .body("items[1].price", is(expectedCustomSeatTicketPrice))
+                .body("items[2].seat_number", is("2C"))
+                .body("items[2].price", is(1326.f))
+                .body("items[2].passenger_full_name", is("Jack Smith"))
+                .body("items[2].flight_id", is(1));
+
+        given()
+                .when()
+                .get("/tickets")
+                .then()
+                .statusCode(200)
+                .body("count", is(6));
+    }
+
+    @Test
+    public void testCreateTickets_NotEnoughAvailableSeats() {
+        // Business class of the flight has 3 seats and one of them is already sold
+        final TicketBatchRequest request = new TicketBatchRequest(
+                1L,
+                UUID.fromString("35645ea7-2b38-430d-aab8-f72302cdc2c8"),
+                List.of(
+                        new PassengerRequest("0004099267192", TicketClass.Economy, "John Smith", null),
+                        new PassengerRequest("0004099267193", TicketClass.Business, "Jane Smith", null),
+                        new PassengerRequest("0004099267194", TicketClass.Business, "Jack Smith", null),
+                        new PassengerRequest("0004099267195", TicketClass.Business, "Jill Smith", null)
+                )
+        );
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(request)
+                .when()
+                .post("/tickets/batch")
+                .then()
+                .statusCode(422);
+
+        // None of the tickets is created
+        given()
+                .when()
+                .get("/tickets")
+                .then()
+                .statusCode(200)
+                .body("count", is(3));
+    }
+
     @Test
     public void testCreateTicket_NoAvailableSeat() {
         final TicketRequest request1 = new TicketRequest(
@@ -331,6 +511,39 @@ public class TicketIntegrationTest {
                 .statusCode(422);
     }
 
+    @Test
+    public void testCreateTicket_ConcurrentPurchasesAreAllCharged() throws Exception {
+        // Customer has credit for 27 economy tickets (737.0) of flight 3
+        final List<Integer> statusCodes = createEconomyTicketsConcurrently("35645ea7-2b38-430d-aab8-f72302cdc2c8", 20);
+
+        assertThat(statusCodes.stream().filter(statusCode -> statusCode == 201).count(), is(20L));
+
+        given()
+                .pathParam("id", "35645ea7-2b38-430d-aab8-f72302cdc2c8")
+                .when()
+                .get("/customers/{id}")
+                .then()
+                .statusCode(200)
+                .body("content.credit", is(5259.81f));
+    }
+
+    @Test
+    public void testCreateTicket_ConcurrentPurchasesDoNotOverdrawCredit() throws Exception {
+        // Customer has credit for one economy ticket (737.0) of flight 3
+        final List<Integer> statusCodes = createEconomyTicketsConcurrently("da8d38a8-28a7-4740-8096-f0197ebabd5c", 10);
+
+        assertThat(statusCodes.stream().filter(statusCode -> statusCode == 201).count(), is(1L));
+        assertThat(statusCodes.stream().filter(statusCode -> statusCode == 422).count(), is(9L));
+
+        given()
+                .pathParam("id", "da8d38a8-28a7-4740-8096-f0197ebabd5c")
+                .when()
+                .get("/customers/{id}")
+                .then()
+                .statusCode(200)
+                .body("content.credit", is(134.81f));
+    }
+
     @Test
     public void testChangeSeatNumber() {
         final Long ticketId = 1L;
@@ -679,4 +892,53 @@ public class TicketIntegrationTest {
                 .then()
                 .statusCode(404);
     }
+
+    /**
+     * Sends all requests at once, every one buying an economy ticket of flight 3 for the customer.
+     * @return status codes of the responses
+     */
+    private static List<Integer> createEconomyTicketsConcurrently(String customerId, int purchases) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(purchases);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            final List<Future<Integer>> responses = new ArrayList<>();
+
+            for (int i = 0; i < purchases; i++) {
+                final TicketRequest request = new TicketRequest(
+                        String.format("%013d", 4099267200L + i),
+                        TicketClass.Economy,
+                        "Passenger " + i,
+                        null,
+                        3L,
+                        UUID.fromString(customerId)
+                );
+
+                responses.add(executor.submit(() -> {
+                    start.await();
+
+                    return given()
+                            .contentType(ContentType.JSON)
+                            .body(request)
+                            .when()
+                            .post("/tickets")
+                            .then()
+                            .extract()
+                            .statusCode();
+                }));
+            }
+
+            start.countDown();
+
+            final List<Integer> statusCodes = new ArrayList<>();
+
+            for (Future<Integer> response : responses) {
+                statusCodes.add(response.get());
+            }
+
+            return statusCodes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
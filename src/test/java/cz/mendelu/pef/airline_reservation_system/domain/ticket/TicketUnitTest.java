@@ -7,19 +7,31 @@ import cz.mendelu.pef.airline_reservation_system.domain.customer.Customer;
 import cz.mendelu.pef.airline_reservation_system.domain.customer.CustomerService;
 import cz.mendelu.pef.airline_reservation_system.domain.fare_tariff.FareTariff;
 import cz.mendelu.pef.airline_reservation_system.domain.flight.Flight;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightRepository;
 import cz.mendelu.pef.airline_reservation_system.domain.flight.FlightService;
+import cz.mendelu.pef.airline_reservation_system.domain.flight.SeatReservations;
 import cz.mendelu.pef.airline_reservation_system.utils.enums.TicketClass;
 import cz.mendelu.pef.airline_reservation_system.utils.exceptions.*;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
 
 import static org.hamcrest.Matchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class TicketUnitTest {
 
@@ -27,7 +39,7 @@ public class TicketUnitTest {
     public void testAssignSeatNumber() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         CustomerService customerService = new CustomerService(null, null);
         TicketService ticketService = new TicketService(null, flightService, customerService);
 
@@ -60,7 +72,7 @@ public class TicketUnitTest {
     public void testAssignSeatNumber_WithCustomSeat() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         CustomerService customerService = new CustomerService(null, null);
         TicketService ticketService = new TicketService(null, flightService, customerService);
 
@@ -96,7 +108,7 @@ public class TicketUnitTest {
     public void testAssignSeatNumber_InvalidFlightException() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         CustomerService customerService = new CustomerService(null, null);
         TicketService ticketService = new TicketService(null, flightService, customerService);
 
@@ -128,7 +140,7 @@ public class TicketUnitTest {
     public void testChangeSeatNumber() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         CustomerService customerService = new CustomerService(null, null);
         TicketService ticketService = new TicketService(null, flightService, customerService);
 
@@ -163,7 +175,7 @@ public class TicketUnitTest {
     public void testChangeSeatNumber_SeatIsNotAvailable() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         CustomerService customerService = new CustomerService(null, null);
         TicketService ticketService = new TicketService(null, flightService, customerService);
 
@@ -195,7 +207,7 @@ public class TicketUnitTest {
     public void testChangeSeatNumber_CustomerHasNotEnoughCredit() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         CustomerService customerService = new CustomerService(null, null);
         TicketService ticketService = new TicketService(null, flightService, customerService);
 
@@ -267,7 +279,7 @@ public class TicketUnitTest {
     public void testUpgradeTicketClass() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         CustomerService customerService = new CustomerService(null, null);
         TicketService ticketService = new TicketService(null, flightService, customerService);
 
@@ -300,7 +312,7 @@ public class TicketUnitTest {
     public void testUpgradeTicketClass_InvalidTicketClass() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         CustomerService customerService = new CustomerService(null, null);
         TicketService ticketService = new TicketService(null, flightService, customerService);
 
@@ -330,7 +342,7 @@ public class TicketUnitTest {
     public void testUpgradeTicketClass_CustomerHasNotEnoughCredit() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         CustomerService customerService = new CustomerService(null, null);
         TicketService ticketService = new TicketService(null, flightService, customerService);
 
@@ -366,7 +378,7 @@ public class TicketUnitTest {
     public void testTransferTicketToOtherFlight() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         CustomerService customerService = new CustomerService(null, null);
         TicketService ticketService = new TicketService(null, flightService, customerService);
 
@@ -401,11 +413,53 @@ public class TicketUnitTest {
         assertThat(ticket.getArrival(), is(newFlight.getArrival()));
     }
 
+    @Test
+    public void testTransferTicketToOtherFlight_SoldSeatsCountedInFlightIdOrder() {
+        // given
+        FlightRepository flightRepository = mock(FlightRepository.class);
+        when(flightRepository.addSoldSeats(anyLong(), anyString(), anyInt())).thenReturn(1);
+        AircraftService aircraftService = new AircraftService(null);
+        FlightService flightService = new FlightService(flightRepository, aircraftService, new SeatReservations());
+        CustomerService customerService = new CustomerService(null, null);
+        TicketService ticketService = new TicketService(null, flightService, customerService);
+
+        Flight flight1 = getFlightForTesting();
+        Flight flight2 = getFlightForTesting();
+        flight2.setId(2L);
+
+        for (Flight flight : List.of(flight1, flight2)) {
+            flight.getTickets().clear();
+            flight.setSoldSeatsByTicketClass(TicketClass.Economy, 1);
+        }
+
+        Customer customer = new Customer();
+        customer.setCredit(10000.0);
+
+        Ticket ticket = new Ticket();
+        ticket.setTicketClass(TicketClass.Economy);
+        ticket.setPrice(flight2.getFareTariff().getEconomyPrice());
+        ticket.setCustomer(customer);
+        ticket.setFlight(flight2);
+
+        // when
+        ticketService.transferTicketToOtherFlight(ticket, flight1);
+        ticketService.transferTicketToOtherFlight(ticket, flight2);
+
+        // then
+        // Row of the flight with the lower id is always locked first
+        InOrder inOrder = inOrder(flightRepository);
+        inOrder.verify(flightRepository).addSoldSeats(1L, TicketClass.Economy.name(), 1);
+        inOrder.verify(flightRepository).addSoldSeats(2L, TicketClass.Economy.name(), -1);
+        inOrder.verify(flightRepository).addSoldSeats(1L, TicketClass.Economy.name(), -1);
+        inOrder.verify(flightRepository).addSoldSeats(2L, TicketClass.Economy.name(), 1);
+        assertThat(ticket.getFlight(), is(flight2));
+    }
+
     @Test
     public void testTransferTicketToOtherFlight_SameFlight() {
         // given
         AircraftService aircraftService = new AircraftService(null);
-        FlightService flightService = new FlightService(null, aircraftService);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
         CustomerService customerService = new CustomerService(null, null);
         TicketService ticketService = new TicketService(null, flightService, customerService);
 
@@ -434,6 +488,56 @@ public class TicketUnitTest {
         assertThat(ticket.getArrival(), is(flight.getArrival()));
     }
 
+    @Test
+    public void testCreateTickets_NotEnoughCreditSeatReleasedOnlyByRollback() throws Exception {
+        // given
+        AircraftService aircraftService = new AircraftService(null);
+        FlightService flightService = new FlightService(null, aircraftService, new SeatReservations());
+        CustomerService customerService = new CustomerService(null, null);
+        TicketService ticketService = new TicketService(null, flightService, customerService);
+
+        Flight flight = getFlightForTesting();
+        Customer customer = new Customer();
+        customer.setCredit(0.0);
+
+        Ticket ticket = new Ticket();
+        ticket.setTicketClass(TicketClass.Economy);
+        ticket.setSeatNumber("7F");
+        ticket.setFlight(flight);
+        ticket.setCustomer(customer);
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // when
+            assertThrows(
+                    NotEnoughCreditException.class,
+                    () -> ticketService.createTickets(flight, customer, List.of(ticket))
+            );
+
+            // then
+            // Concurrent booking cannot take the seat, while the failed batch is not rolled back yet
+            assertThat(claimSeatNumberConcurrently(flightService, flight, "7F"), is(false));
+
+            TransactionSynchronizationManager
+                    .getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Seat is released once, so the claim of the concurrent booking stays
+        assertThat(claimSeatNumberConcurrently(flightService, flight, "7F"), is(true));
+        assertThat(claimSeatNumberConcurrently(flightService, flight, "7F"), is(false));
+    }
+
+    /**
+     * Claims the seat on another thread, i.e. outside the transaction of the test.
+     */
+    private static boolean claimSeatNumberConcurrently(FlightService flightService, Flight flight, String seatNumber) throws Exception {
+        return CompletableFuture.supplyAsync(() -> flightService.claimSeatNumber(flight, seatNumber)).get();
+    }
+
     private static Flight getFlightForTesting() {
         Aircraft aircraft = new Aircraft();
         aircraft.setEconomyCapacity(50);
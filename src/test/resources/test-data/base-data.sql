@@ -47,6 +47,12 @@ INSERT INTO public.ticket VALUES (3, '0001901266072', 'Economy', 737.0, 0.0, 737
                                   TO_TIMESTAMP('2017-07-16 20:30:00 + 02', 'YYYY-MM-DD HH24:MI:SS TZH:TZM'),
                                   2, 'da8d38a8-28a7-4740-8096-f0197ebabd5c');
 
+-- Sold seat counters are maintained by the application, so they have to match the inserted tickets
+UPDATE public.flight SET
+    business_sold_seats = (SELECT COUNT(*) FROM public.ticket WHERE ticket.flight_id = flight.id AND ticket.class = 'Business'),
+    premium_sold_seats = (SELECT COUNT(*) FROM public.ticket WHERE ticket.flight_id = flight.id AND ticket.class = 'Premium'),
+    economy_sold_seats = (SELECT COUNT(*) FROM public.ticket WHERE ticket.flight_id = flight.id AND ticket.class = 'Economy');
+
 SELECT setval(pg_get_serial_sequence('ticket', 'id'), 4);
 SELECT setval(pg_get_serial_sequence('aircraft', 'id'), 3);
 SELECT setval(pg_get_serial_sequence('airport', 'id'), 4);